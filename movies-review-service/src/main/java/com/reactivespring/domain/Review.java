@@ -5,20 +5,29 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document
+@CompoundIndexes({
+        // Keyset pages of a movie's reviews, newest first and highest rated first
+        @CompoundIndex(name = "movieInfoId_id", def = "{'movieInfoId': 1, '_id': -1}"),
+        @CompoundIndex(name = "movieInfoId_rating_id", def = "{'movieInfoId': 1, 'rating': -1, '_id': -1}")
+})
 public class Review {
 
     @Id
     private String reviewId;
+    @NotNull(message = "review.movieInfoId : must not be null")
     private Long movieInfoId;
     private String comment;
-    //@Min(value = 0L, message = "rating.negative : please pass a non-negative value")
+    @Min(value = 0L, message = "rating.negative : please pass a non-negative value")
     private Double rating;
 }
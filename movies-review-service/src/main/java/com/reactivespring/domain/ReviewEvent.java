@@ -0,0 +1,17 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A review as it was saved, with the change stream resume token of the save as its {@code id}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReviewEvent {
+
+    private String id;
+    private Review review;
+}
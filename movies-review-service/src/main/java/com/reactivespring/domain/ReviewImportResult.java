@@ -0,0 +1,28 @@
+package com.reactivespring.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one review of a bulk import, streamed back in upload order. {@code record} is the
+ * 1-based position of the review in the upload.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReviewImportResult {
+
+    private Long record;
+    private Status status;
+    private String reviewId;
+    private String error;
+
+    public enum Status {
+        IMPORTED,
+        INVALID,
+        FAILED
+    }
+}
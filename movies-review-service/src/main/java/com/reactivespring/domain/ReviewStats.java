@@ -0,0 +1,36 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Rating aggregates of one movie, kept up to date with $inc as its reviews are created, updated
+ * and deleted. Only reviews with a rating are counted. The histogram counts ratings by their
+ * whole part, e.g. 8.5 in bucket "8".
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document("review_stats")
+public class ReviewStats {
+
+    @Id
+    private Long movieInfoId;
+    private long count;
+    private double ratingSum;
+    private Map<String, Long> histogram = new HashMap<>();
+
+    public static ReviewStats empty(Long movieInfoId) {
+        return new ReviewStats(movieInfoId, 0, 0, new HashMap<>());
+    }
+
+    public Double getAverageRating() {
+        return count > 0 ? ratingSum / count : null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.reactivespring.exception;
+
+public class ReviewConflictException extends RuntimeException{
+
+    private String message;
+    private Throwable ex;
+
+    public ReviewConflictException( String message, Throwable ex) {
+        super(message, ex);
+        this.message = message;
+        this.ex = ex;
+    }
+
+    public ReviewConflictException(String message) {
+        super(message);
+        this.message = message;
+    }
+}
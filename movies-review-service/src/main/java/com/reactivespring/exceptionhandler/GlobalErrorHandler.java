@@ -0,0 +1,50 @@
+package com.reactivespring.exceptionhandler;
+
+import com.reactivespring.exception.ReviewConflictException;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.exception.ReviewNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.reactive.error.ErrorWebExceptionHandler;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns the exceptions of the functional review endpoints into status codes, with the
+ * exception message as the response body.
+ */
+@Slf4j
+@Component
+@Order(-2)
+public class GlobalErrorHandler implements ErrorWebExceptionHandler {
+
+    @Override
+    public Mono<Void> handle(ServerWebExchange exchange, Throwable ex) {
+        log.error("Exception message is {} ", ex.getMessage(), ex);
+        if (exchange.getResponse().isCommitted()) {
+            return Mono.error(ex);
+        }
+
+        HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
+        if (ex instanceof ReviewDataException) {
+            status = HttpStatus.BAD_REQUEST;
+        } else if (ex instanceof ReviewNotFoundException) {
+            status = HttpStatus.NOT_FOUND;
+        } else if (ex instanceof ReviewConflictException) {
+            status = HttpStatus.CONFLICT;
+        } else if (ex instanceof ResponseStatusException) {
+            status = ((ResponseStatusException) ex).getStatus();
+        }
+
+        String message = ex.getMessage() != null ? ex.getMessage() : status.getReasonPhrase();
+        DataBuffer errorMessage = exchange.getResponse().bufferFactory().wrap(message.getBytes(StandardCharsets.UTF_8));
+        exchange.getResponse().setStatusCode(status);
+        return exchange.getResponse().writeWith(Mono.just(errorMessage));
+    }
+}
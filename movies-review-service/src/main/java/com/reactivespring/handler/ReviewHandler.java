@@ -0,0 +1,218 @@
+package com.reactivespring.handler;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewImportResult;
+import com.reactivespring.domain.ReviewStats;
+import com.reactivespring.exception.ReviewConflictException;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.exception.ReviewNotFoundException;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.service.ReviewFeedService;
+import com.reactivespring.service.ReviewImportService;
+import com.reactivespring.service.ReviewStatsService;
+import com.reactivespring.validator.ReviewValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class ReviewHandler {
+
+    private static final Set<String> PROJECTABLE_FIELDS =
+            new LinkedHashSet<>(Arrays.asList("movieInfoId", "comment", "rating"));
+
+    private final ReviewReactiveRepository reviewReactiveRepository;
+    private final ReviewStatsService reviewStatsService;
+    private final ReviewImportService reviewImportService;
+    private final ReviewValidator reviewValidator;
+    private final ReviewFeedService reviewFeedService;
+    private final int defaultPageLimit;
+    private final int maxPageLimit;
+
+    public ReviewHandler(ReviewReactiveRepository reviewReactiveRepository,
+                         ReviewStatsService reviewStatsService,
+                         ReviewImportService reviewImportService,
+                         ReviewValidator reviewValidator,
+                         ReviewFeedService reviewFeedService,
+                         @Value("${reviews.page.default-limit:50}") int defaultPageLimit,
+                         @Value("${reviews.page.max-limit:500}") int maxPageLimit) {
+        this.reviewReactiveRepository = reviewReactiveRepository;
+        this.reviewStatsService = reviewStatsService;
+        this.reviewImportService = reviewImportService;
+        this.reviewValidator = reviewValidator;
+        this.reviewFeedService = reviewFeedService;
+        this.defaultPageLimit = defaultPageLimit;
+        this.maxPageLimit = maxPageLimit;
+    }
+
+    public Mono<ServerResponse> addReview(ServerRequest request) {
+        return request.bodyToMono(Review.class)
+                .doOnNext(reviewValidator::validate)
+                // Ids are assigned here, as in bulk imports, whatever the client sent: reviews are paged
+                // newest first in id order, which only ObjectIds follow
+                .doOnNext(review -> review.setReviewId(new ObjectId().toHexString()))
+                // An insert, not a save: replacing an existing review would count it in the stats twice
+                .flatMap(review -> reviewReactiveRepository.insert(review)
+                        .onErrorMap(DuplicateKeyException.class, e -> new ReviewConflictException(
+                                "Review already exists for the given Review id " + review.getReviewId(), e)))
+                .flatMap(savedReview -> reviewStatsService.reviewAdded(savedReview).thenReturn(savedReview))
+                .flatMap(savedReview -> ServerResponse.status(HttpStatus.CREATED).bodyValue(savedReview));
+    }
+
+    /**
+     * One page of reviews, of the movie given by {@code movieInfoId} if any. Newest first, or highest
+     * rated first with {@code sort=rating}, which needs a {@code movieInfoId}; {@code limit} bounds
+     * the page and {@code fields} (comma separated, e.g. {@code movieInfoId,rating}) lets list views
+     * skip the comment text. The next page is asked for with the last review's {@code reviewId} as
+     * {@code after}, plus its rating as {@code afterRating} when sorting by rating.
+     */
+    public Mono<ServerResponse> getReviews(ServerRequest request) {
+        Long movieInfoId = request.queryParam("movieInfoId").map(ReviewHandler::parseMovieInfoId).orElse(null);
+        String sort = request.queryParam("sort").orElse(null);
+        if (sort != null && !sort.equals("rating")) {
+            throw new ReviewDataException("sort must be rating : " + sort);
+        }
+        if (sort != null && movieInfoId == null) {
+            // Rating order is only indexed within a movie; across all reviews it would be an in-memory sort
+            throw new ReviewDataException("sort=rating needs a movieInfoId");
+        }
+        boolean byRating = sort != null;
+        String after = request.queryParam("after").orElse(null);
+        Double afterRating = request.queryParam("afterRating").map(ReviewHandler::parseRating).orElse(null);
+        Set<String> fields = request.queryParam("fields")
+                .map(ReviewHandler::parseFields)
+                .orElse(Collections.emptySet());
+        int limit = request.queryParam("limit").map(this::parseLimit).orElse(defaultPageLimit);
+        Flux<Review> reviews = reviewReactiveRepository.findReviewsPage(movieInfoId, byRating,
+                after, afterRating, fields, limit);
+        return ServerResponse.ok().body(reviews, Review.class);
+    }
+
+    public Mono<ServerResponse> updateReview(ServerRequest request) {
+        String reviewId = request.pathVariable("id");
+        return request.bodyToMono(Review.class)
+                .doOnNext(reviewValidator::validate)
+                // The stats delta is taken from the review as this very write replaced it, so concurrent
+                // updates of one review each move the stats by their own change
+                .flatMap(reqReview -> reviewReactiveRepository.findAndUpdateById(reviewId, reqReview)
+                        .switchIfEmpty(Mono.error(new ReviewNotFoundException(
+                                "Review not found for the given Review id " + reviewId)))
+                        .flatMap(previousReview -> {
+                            Review savedReview = new Review(reviewId, reqReview.getMovieInfoId(),
+                                    reqReview.getComment(), reqReview.getRating());
+                            return reviewStatsService.reviewUpdated(previousReview, savedReview)
+                                    .thenReturn(savedReview);
+                        }))
+                .flatMap(savedReview -> ServerResponse.ok().bodyValue(savedReview));
+    }
+
+    public Mono<ServerResponse> deleteReview(ServerRequest request) {
+        String reviewId = request.pathVariable("id");
+        // Only the delete that actually removed the review takes it out of the stats
+        return reviewReactiveRepository.findAndRemoveById(reviewId)
+                .switchIfEmpty(Mono.error(new ReviewNotFoundException(
+                        "Review not found for the given Review id " + reviewId)))
+                .flatMap(reviewStatsService::reviewDeleted)
+                .then(ServerResponse.noContent().build());
+    }
+
+    public Mono<ServerResponse> getReviewStats(ServerRequest request) {
+        Long movieInfoId = parseMovieInfoId(request.pathVariable("movieInfoId"));
+        return reviewStatsService.getStats(movieInfoId)
+                .flatMap(stats -> ServerResponse.ok().bodyValue(stats));
+    }
+
+    /**
+     * Stats of the movies listed in {@code movieInfoIds}, comma separated, in that order.
+     */
+    public Mono<ServerResponse> getReviewStatsBatch(ServerRequest request) {
+        List<Long> movieInfoIds = request.queryParam("movieInfoIds")
+                .map(ids -> Arrays.stream(ids.split(","))
+                        .map(String::trim)
+                        .filter(id -> !id.isEmpty())
+                        .map(ReviewHandler::parseMovieInfoId)
+                        .collect(Collectors.toList()))
+                .orElseThrow(() -> new ReviewDataException("movieInfoIds must be given"));
+        return ServerResponse.ok().body(reviewStatsService.getStats(movieInfoIds), ReviewStats.class);
+    }
+
+    /**
+     * Imports the reviews of an NDJSON or JSON array body in bulk, streaming one NDJSON result per
+     * review back in upload order.
+     */
+    public Mono<ServerResponse> importReviews(ServerRequest request) {
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(reviewImportService.importReviews(request.bodyToFlux(Review.class)), ReviewImportResult.class);
+    }
+
+    /**
+     * Server-sent events of reviews as they are saved by any instance. Each event's id resumes the
+     * stream right after it when sent back as {@code Last-Event-ID}, as browsers do on reconnect.
+     */
+    public Mono<ServerResponse> getReviewsStream(ServerRequest request) {
+        String lastEventId = request.headers().firstHeader("Last-Event-ID");
+        Flux<ServerSentEvent<Review>> events = reviewFeedService.events(lastEventId)
+                .map(event -> ServerSentEvent.builder(event.getReview()).id(event.getId()).build());
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(events, new ParameterizedTypeReference<ServerSentEvent<Review>>() {
+                });
+    }
+
+    private int parseLimit(String limit) {
+        try {
+            return Math.max(1, Math.min(Integer.parseInt(limit), maxPageLimit));
+        } catch (NumberFormatException e) {
+            throw new ReviewDataException("limit must be a number : " + limit);
+        }
+    }
+
+    private static Double parseRating(String rating) {
+        try {
+            return Double.valueOf(rating);
+        } catch (NumberFormatException e) {
+            throw new ReviewDataException("afterRating must be a number : " + rating);
+        }
+    }
+
+    private static Set<String> parseFields(String fields) {
+        Set<String> parsed = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty() && !field.equals("reviewId"))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        parsed.stream()
+                .filter(field -> !PROJECTABLE_FIELDS.contains(field))
+                .findFirst()
+                .ifPresent(field -> {
+                    throw new ReviewDataException("fields must be among " + PROJECTABLE_FIELDS + " : " + field);
+                });
+        return parsed;
+    }
+
+    private static Long parseMovieInfoId(String movieInfoId) {
+        try {
+            return Long.valueOf(movieInfoId);
+        } catch (NumberFormatException e) {
+            throw new ReviewDataException("movieInfoId must be a number : " + movieInfoId);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+public interface ReviewRepositoryCustom {
+
+    /**
+     * One page of reviews, newest first or, with {@code byRating}, highest rated first. Newest first
+     * is id order, which is insertion order for the ObjectIds the server assigns to every review. The
+     * next page starts after the last review of this one: pass its {@code reviewId} as {@code after}
+     * and, when sorting by rating, its rating as {@code afterRating}. Only the {@code fields}
+     * given are read besides the id; all of them when {@code fields} is empty.
+     */
+    Flux<Review> findReviewsPage(Long movieInfoId, boolean byRating, String after, Double afterRating,
+                                 Set<String> fields, int limit);
+
+    /**
+     * Replaces the movieInfoId, comment and rating of a review in one atomic write and returns the
+     * review as it was before; empty when there is no such review.
+     */
+    Mono<Review> findAndUpdateById(String reviewId, Review review);
+
+    /**
+     * Removes a review and returns it; empty when there is no such review, e.g. when a concurrent
+     * delete removed it first.
+     */
+    Mono<Review> findAndRemoveById(String reviewId);
+}
@@ -0,0 +1,75 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Review;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReviewRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<Review> findReviewsPage(Long movieInfoId, boolean byRating, String after, Double afterRating,
+                                        Set<String> fields, int limit) {
+        return mongoTemplate.find(pageQuery(movieInfoId, byRating, after, afterRating, fields, limit), Review.class);
+    }
+
+    @Override
+    public Mono<Review> findAndUpdateById(String reviewId, Review review) {
+        Update update = new Update()
+                .set("movieInfoId", review.getMovieInfoId())
+                .set("comment", review.getComment())
+                .set("rating", review.getRating());
+        return mongoTemplate.findAndModify(byId(reviewId), update, FindAndModifyOptions.options().returnNew(false), Review.class);
+    }
+
+    @Override
+    public Mono<Review> findAndRemoveById(String reviewId) {
+        return mongoTemplate.findAndRemove(byId(reviewId), Review.class);
+    }
+
+    private static Query byId(String reviewId) {
+        return Query.query(Criteria.where("reviewId").is(reviewId));
+    }
+
+    static Query pageQuery(Long movieInfoId, boolean byRating, String after, Double afterRating,
+                           Set<String> fields, int limit) {
+        Query query = new Query();
+        if (movieInfoId != null) {
+            query.addCriteria(Criteria.where("movieInfoId").is(movieInfoId));
+        }
+        if (after != null) {
+            query.addCriteria(byRating ? afterByRating(after, afterRating) : Criteria.where("reviewId").lt(after));
+        }
+        fields.forEach(field -> query.fields().include(field));
+        Sort sort = byRating
+                ? Sort.by(Sort.Order.desc("rating"), Sort.Order.desc("reviewId"))
+                : Sort.by(Sort.Direction.DESC, "reviewId");
+        return query.with(sort).limit(limit);
+    }
+
+    private static Criteria afterByRating(String after, Double afterRating) {
+        // Reviews without a rating sort last, so they follow every rated review
+        Criteria unratedAfter = new Criteria().andOperator(
+                Criteria.where("rating").is(null), Criteria.where("reviewId").lt(after));
+        if (afterRating == null) {
+            return unratedAfter;
+        }
+        return new Criteria().orOperator(
+                Criteria.where("rating").lt(afterRating),
+                new Criteria().andOperator(Criteria.where("rating").is(afterRating), Criteria.where("reviewId").lt(after)),
+                Criteria.where("rating").is(null));
+    }
+}
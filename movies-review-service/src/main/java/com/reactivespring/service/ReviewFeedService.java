@@ -0,0 +1,216 @@
+package com.reactivespring.service;
+
+import com.mongodb.MongoServerException;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.exception.ReviewDataException;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Feed of saved reviews backed by a MongoDB change stream on the review collection, so it sees
+ * the saves of every instance and not only this one. A single cursor per instance is opened on
+ * the first subscription and multicast to every subscriber.
+ * <p>
+ * Each event carries its resume token as its id. A client reconnecting with the last id it saw
+ * is served the events it missed from the last {@code reviews.stream.history-size} events of the
+ * shared cursor or, when the id is older than that or was issued by another instance, from a
+ * change stream of its own resumed after the token; either way the reviews are not queried again.
+ * That change stream is only kept until it reaches an event the shared cursor has seen, so each
+ * instance still has one long-lived cursor whatever its clients reconnect with.
+ */
+@Slf4j
+@Service
+public class ReviewFeedService {
+
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_RETRY_BACKOFF = Duration.ofSeconds(30);
+    // InvalidResumeToken, ChangeStreamFatalError, ChangeStreamHistoryLost
+    private static final Set<Integer> NON_RESUMABLE_ERROR_CODES = new HashSet<>(Arrays.asList(260, 280, 286));
+    private static final String NON_RESUMABLE_ERROR_LABEL = "NonResumableChangeStreamError";
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final int bufferSize;
+    private final BufferOverflowStrategy overflowStrategy;
+
+    private final AtomicLong sequence = new AtomicLong();
+    // Sequence number of every event id still in the shared cursor's history
+    private final Map<String, Long> history;
+    private final Flux<SequencedEvent> sharedEvents;
+    private volatile BsonValue lastResumeToken;
+
+    public ReviewFeedService(ReactiveMongoTemplate mongoTemplate,
+                             @Value("${reviews.stream.buffer-size:256}") int bufferSize,
+                             @Value("${reviews.stream.overflow-strategy:DROP_OLDEST}") BufferOverflowStrategy overflowStrategy,
+                             @Value("${reviews.stream.history-size:1000}") int historySize) {
+        this.mongoTemplate = mongoTemplate;
+        this.bufferSize = bufferSize;
+        this.overflowStrategy = overflowStrategy;
+        this.history = Collections.synchronizedMap(new LinkedHashMap<String, Long>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > historySize;
+            }
+        });
+        this.sharedEvents = Flux.defer(() -> watch(lastResumeToken))
+                // The server ends the cursor when the collection is dropped or renamed; its last token
+                // cannot be resumed after, so watch again from now
+                .doOnComplete(() -> {
+                    log.warn("Review change stream was closed by the server, watching again from now");
+                    lastResumeToken = null;
+                })
+                .repeatWhen(completions -> completions.delayElements(RETRY_BACKOFF))
+                .map(event -> {
+                    lastResumeToken = event.getResumeToken();
+                    SequencedEvent sequenced = new SequencedEvent(sequence.incrementAndGet(), toReviewEvent(event));
+                    history.put(sequenced.event.getId(), sequenced.sequence);
+                    return sequenced;
+                })
+                // A dropped cursor resumes after the last event it delivered, so subscribers see no gap;
+                // once that event has left the oplog no retry could resume after it, so watch from now
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, RETRY_BACKOFF)
+                        .maxBackoff(MAX_RETRY_BACKOFF)
+                        .doBeforeRetry(signal -> {
+                            if (isResumable(signal.failure())) {
+                                log.warn("Review change stream failed, resuming", signal.failure());
+                            } else {
+                                log.error("Review change stream cannot resume, watching again from now", signal.failure());
+                                lastResumeToken = null;
+                            }
+                        }))
+                .replay(historySize)
+                .autoConnect();
+    }
+
+    /**
+     * Reviews as they are saved, from the moment of subscription or, given the id of an earlier
+     * event, from right after that event. Every subscriber gets its own buffer of
+     * {@code reviews.stream.buffer-size} events, so a slow consumer only loses its own events, by
+     * {@code reviews.stream.overflow-strategy}, and never holds up the others or grows the heap.
+     */
+    public Flux<ReviewEvent> events(String lastEventId) {
+        BsonDocument resumeToken = lastEventId != null ? parseEventId(lastEventId) : null;
+        Flux<ReviewEvent> events = Flux.defer(() -> {
+            Long after = resumeToken != null ? history.get(lastEventId) : Long.valueOf(sequence.get());
+            if (after == null) {
+                // Older than the shared history, or from another instance; the oplog still has it
+                return catchUp(resumeToken)
+                        .onErrorResume(error -> {
+                            // Typically the token has left the oplog; carry on live rather than have the client retry it forever
+                            log.warn("Review change stream cannot resume after {}, streaming from now", lastEventId, error);
+                            return events(null);
+                        });
+            }
+            return sharedEventsAfter(after);
+        });
+        return events.onBackpressureBuffer(bufferSize,
+                event -> log.debug("Review stream subscriber is too slow, overflow of review {}", event.getReview().getReviewId()),
+                overflowStrategy);
+    }
+
+    /**
+     * Events after {@code resumeToken} from a change stream of its own, up to the first event the
+     * shared cursor has seen too, and from the shared cursor after that one.
+     */
+    private Flux<ReviewEvent> catchUp(BsonValue resumeToken) {
+        return Flux.defer(() -> {
+            AtomicReference<String> lastOwnEventId = new AtomicReference<>();
+            Flux<ChangeStreamEvent<Review>> ownCursor = watch(resumeToken);
+            // The shared cursor is kept watching meanwhile, so the two are sure to meet on the next save
+            Disposable sharedWatching = sharedEvents.subscribe();
+            Flux<ReviewEvent> ownEvents = ownCursor
+                    .map(ReviewFeedService::toReviewEvent)
+                    .doOnNext(event -> lastOwnEventId.set(event.getId()))
+                    .takeUntil(event -> history.containsKey(event.getId()))
+                    .doFinally(signal -> sharedWatching.dispose());
+            return ownEvents.concatWith(Flux.defer(() -> {
+                Long after = lastOwnEventId.get() != null ? history.get(lastOwnEventId.get()) : null;
+                // Without a meeting point, e.g. when the server closed the own cursor, carry on live
+                return sharedEventsAfter(after != null ? after : sequence.get());
+            }));
+        });
+    }
+
+    private Flux<ReviewEvent> sharedEventsAfter(long after) {
+        return sharedEvents
+                .filter(sequenced -> sequenced.sequence > after)
+                .map(sequenced -> sequenced.event);
+    }
+
+    /**
+     * Inserted, updated and replaced reviews, after {@code resumeAfter} if given.
+     */
+    Flux<ChangeStreamEvent<Review>> watch(BsonValue resumeAfter) {
+        return mongoTemplate.changeStream(Review.class)
+                .withOptions(options -> {
+                    options.returnFullDocumentOnUpdate();
+                    if (resumeAfter != null) {
+                        options.resumeAfter(resumeAfter);
+                    }
+                })
+                .watchCollection(Review.class)
+                .filter(Criteria.where("operationType").in("insert", "update", "replace"))
+                .listen();
+    }
+
+    /**
+     * Whether a failed change stream can be resumed after its last token: not when the token has
+     * left the oplog or the server marks the error non-resumable. Errors reach here translated, so
+     * the cause chain is searched for the server's.
+     */
+    static boolean isResumable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoServerException) {
+                MongoServerException serverError = (MongoServerException) cause;
+                return !NON_RESUMABLE_ERROR_CODES.contains(serverError.getCode())
+                        && !serverError.hasErrorLabel(NON_RESUMABLE_ERROR_LABEL);
+            }
+        }
+        return true;
+    }
+
+    static ReviewEvent toReviewEvent(ChangeStreamEvent<Review> event) {
+        return new ReviewEvent(event.getResumeToken().asDocument().toJson(), event.getBody());
+    }
+
+    private static BsonDocument parseEventId(String eventId) {
+        try {
+            return BsonDocument.parse(eventId);
+        } catch (JsonParseException | BsonInvalidOperationException e) {
+            throw new ReviewDataException("Last-Event-ID is not a review event id : " + eventId);
+        }
+    }
+
+    private static class SequencedEvent {
+
+        private final long sequence;
+        private final ReviewEvent event;
+
+        SequencedEvent(long sequence, ReviewEvent event) {
+            this.sequence = sequence;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.reactivespring.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewImportResult;
+import com.reactivespring.exception.ReviewDataException;
+import com.reactivespring.validator.ReviewValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Imports a stream of reviews in batches. The valid reviews of a batch are stored with one
+ * unordered bulk write and added to the per-movie stats with another, so a failing review only
+ * fails itself. The upload is read only as fast as batches are written, so memory stays bounded
+ * by a batch however large the upload is.
+ */
+@Slf4j
+@Service
+public class ReviewImportService {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ReviewStatsService reviewStatsService;
+    private final ReviewValidator reviewValidator;
+    private final int batchSize;
+
+    public ReviewImportService(ReactiveMongoTemplate mongoTemplate,
+                               ReviewStatsService reviewStatsService,
+                               ReviewValidator reviewValidator,
+                               @Value("${reviews.import.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.reviewStatsService = reviewStatsService;
+        this.reviewValidator = reviewValidator;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Validates and stores each review as a new review. One result is emitted per review, in upload
+     * order. A stream that cannot be read any further ends with a single FAILED result.
+     */
+    public Flux<ReviewImportResult> importReviews(Flux<Review> reviews) {
+        return reviews
+                .index((index, review) -> validate(index + 1, review))
+                // A broken upload becomes a last record, so the reviews read before it are still written
+                .onErrorResume(error -> {
+                    log.error("Review import stopped", error);
+                    return Mono.just(ImportRecord.stopped(error));
+                })
+                .buffer(batchSize)
+                // One batch in flight, so the upload is only read as fast as it is stored
+                .concatMap(this::insertBatch, 1);
+    }
+
+    private ImportRecord validate(long number, Review review) {
+        ImportRecord record = new ImportRecord(number, review);
+        try {
+            reviewValidator.validate(review);
+        } catch (ReviewDataException e) {
+            record.status = ReviewImportResult.Status.INVALID;
+            record.error = e.getMessage();
+            return record;
+        }
+        // Ids are assigned before writing, so the results of an unordered bulk write can be told apart
+        review.setReviewId(new ObjectId().toHexString());
+        return record;
+    }
+
+    private Flux<ReviewImportResult> insertBatch(List<ImportRecord> batch) {
+        List<ImportRecord> valid = batch.stream()
+                .filter(record -> record.status == null)
+                .collect(Collectors.toList());
+        if (valid.isEmpty()) {
+            return Flux.fromIterable(batch).map(ImportRecord::toResult);
+        }
+        List<InsertOneModel<Document>> writes = valid.stream()
+                .map(record -> new InsertOneModel<>(toDocument(record.review)))
+                .collect(Collectors.toList());
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Review.class))
+                .flatMap(collection -> Mono.from(collection.bulkWrite(writes, new BulkWriteOptions().ordered(false))))
+                .then(Mono.fromRunnable(() -> valid.forEach(ImportRecord::imported)))
+                .onErrorResume(MongoBulkWriteException.class, error -> {
+                    // Unordered: every write but the failed ones went through
+                    valid.forEach(ImportRecord::imported);
+                    for (BulkWriteError writeError : error.getWriteErrors()) {
+                        valid.get(writeError.getIndex()).failed(writeError.getMessage());
+                    }
+                    return Mono.empty();
+                })
+                .onErrorResume(error -> {
+                    log.warn("Bulk write of {} reviews failed", valid.size(), error);
+                    valid.forEach(record -> record.failed(error.getMessage()));
+                    return Mono.empty();
+                })
+                .then(Mono.defer(() -> addToStats(valid)))
+                .thenMany(Flux.fromIterable(batch))
+                .map(ImportRecord::toResult);
+    }
+
+    private Mono<Void> addToStats(List<ImportRecord> records) {
+        List<Review> imported = new ArrayList<>();
+        for (ImportRecord record : records) {
+            if (record.status == ReviewImportResult.Status.IMPORTED) {
+                imported.add(record.review);
+            }
+        }
+        return reviewStatsService.reviewsAdded(imported)
+                .onErrorResume(error -> {
+                    // The reviews are stored either way; only their movies' stats are behind
+                    log.error("Stats update for {} imported reviews failed", imported.size(), error);
+                    return Mono.empty();
+                });
+    }
+
+    private Document toDocument(Review review) {
+        Document document = new Document();
+        mongoTemplate.getConverter().write(review, document);
+        return document;
+    }
+
+    private static class ImportRecord {
+
+        private final Long number;
+        private final Review review;
+        private ReviewImportResult.Status status;
+        private String error;
+
+        ImportRecord(Long number, Review review) {
+            this.number = number;
+            this.review = review;
+        }
+
+        static ImportRecord stopped(Throwable error) {
+            ImportRecord record = new ImportRecord(null, null);
+            record.failed("Import stopped: " + error.getMessage());
+            return record;
+        }
+
+        void imported() {
+            status = ReviewImportResult.Status.IMPORTED;
+        }
+
+        void failed(String message) {
+            status = ReviewImportResult.Status.FAILED;
+            error = message;
+        }
+
+        ReviewImportResult toResult() {
+            String reviewId = status == ReviewImportResult.Status.IMPORTED ? review.getReviewId() : null;
+            return new ReviewImportResult(number, status, reviewId, error);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.reactivespring.service;
+
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewStats;
+import com.reactivespring.repository.ReviewStatsRepository;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the per-movie {@link ReviewStats}. Every review change is applied as a single
+ * upsert with $inc per movie it touches, so concurrent changes never lose updates and
+ * reading the stats of a movie is one document lookup however many reviews it has.
+ */
+@Service
+public class ReviewStatsService {
+
+    private static final int MAX_BUCKET = 10;
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ReviewStatsRepository reviewStatsRepository;
+
+    public ReviewStatsService(ReactiveMongoTemplate mongoTemplate, ReviewStatsRepository reviewStatsRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.reviewStatsRepository = reviewStatsRepository;
+    }
+
+    public Mono<Void> reviewAdded(Review review) {
+        return apply(updatesFor(null, review));
+    }
+
+    /**
+     * Adds a batch of new reviews with one unordered bulk write, a single upsert per movie
+     * however many of the batch's reviews belong to it.
+     */
+    public Mono<Void> reviewsAdded(List<Review> reviews) {
+        Map<Long, Map<String, Double>> increments = new LinkedHashMap<>();
+        reviews.forEach(review -> addIncrements(increments, review, 1));
+        Map<Long, Update> updates = toUpdates(increments);
+        if (updates.isEmpty()) {
+            return Mono.empty();
+        }
+        List<UpdateOneModel<Document>> writes = updates.entrySet().stream()
+                .map(entry -> new UpdateOneModel<Document>(new Document("_id", entry.getKey()),
+                        entry.getValue().getUpdateObject(), new UpdateOptions().upsert(true)))
+                .collect(Collectors.toList());
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(ReviewStats.class))
+                .flatMap(collection -> Mono.from(collection.bulkWrite(writes, new BulkWriteOptions().ordered(false))))
+                .then();
+    }
+
+    public Mono<Void> reviewUpdated(Review previous, Review updated) {
+        return apply(updatesFor(previous, updated));
+    }
+
+    public Mono<Void> reviewDeleted(Review review) {
+        return apply(updatesFor(review, null));
+    }
+
+    public Mono<ReviewStats> getStats(Long movieInfoId) {
+        return reviewStatsRepository.findById(movieInfoId)
+                .defaultIfEmpty(ReviewStats.empty(movieInfoId));
+    }
+
+    /**
+     * Stats of several movies in one query, in the order asked for; movies without rated
+     * reviews get empty stats.
+     */
+    public Flux<ReviewStats> getStats(List<Long> movieInfoIds) {
+        return reviewStatsRepository.findAllById(movieInfoIds)
+                .collectMap(ReviewStats::getMovieInfoId, Function.identity())
+                .flatMapIterable(statsById -> movieInfoIds.stream()
+                        .distinct()
+                        .map(movieInfoId -> statsById.getOrDefault(movieInfoId, ReviewStats.empty(movieInfoId)))
+                        .collect(Collectors.toList()));
+    }
+
+    private Mono<Void> apply(Map<Long, Update> updates) {
+        return Flux.fromIterable(updates.entrySet())
+                .concatMap(entry -> mongoTemplate.upsert(
+                        Query.query(Criteria.where("movieInfoId").is(entry.getKey())), entry.getValue(), ReviewStats.class))
+                .then();
+    }
+
+    /**
+     * The $inc updates that take {@code removed} out of its movie's stats and add {@code added}
+     * to its movie's, merged into one update when both belong to the same movie. Movies whose
+     * stats do not change, e.g. when only the comment was edited, get no update.
+     */
+    static Map<Long, Update> updatesFor(Review removed, Review added) {
+        Map<Long, Map<String, Double>> increments = new LinkedHashMap<>();
+        addIncrements(increments, removed, -1);
+        addIncrements(increments, added, 1);
+        return toUpdates(increments);
+    }
+
+    private static Map<Long, Update> toUpdates(Map<Long, Map<String, Double>> increments) {
+        Map<Long, Update> updates = new LinkedHashMap<>();
+        increments.forEach((movieInfoId, fields) -> {
+            Update update = new Update();
+            fields.forEach((field, increment) -> {
+                if (increment != 0) {
+                    // Counts stay integral in the document; only the rating sum is fractional
+                    update.inc(field, "ratingSum".equals(field) ? (Number) increment : (Number) increment.longValue());
+                }
+            });
+            if (!update.getUpdateObject().isEmpty()) {
+                updates.put(movieInfoId, update);
+            }
+        });
+        return updates;
+    }
+
+    private static void addIncrements(Map<Long, Map<String, Double>> increments, Review review, int sign) {
+        if (review == null || review.getMovieInfoId() == null || review.getRating() == null) {
+            return;
+        }
+        Map<String, Double> fields = increments.computeIfAbsent(review.getMovieInfoId(), movieInfoId -> new LinkedHashMap<>());
+        fields.merge("count", (double) sign, Double::sum);
+        fields.merge("ratingSum", sign * review.getRating(), Double::sum);
+        fields.merge("histogram." + bucketOf(review.getRating()), (double) sign, Double::sum);
+    }
+
+    static String bucketOf(double rating) {
+        return String.valueOf((int) Math.max(0, Math.min(Math.floor(rating), MAX_BUCKET)));
+    }
+}
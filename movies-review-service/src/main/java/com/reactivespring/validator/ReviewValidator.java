@@ -0,0 +1,38 @@
+package com.reactivespring.validator;
+
+import com.reactivespring.domain.Review;
+import com.reactivespring.exception.ReviewDataException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+public class ReviewValidator {
+
+    private final Validator validator;
+
+    public ReviewValidator(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Throws a {@link ReviewDataException} carrying the review's constraint violations, sorted
+     * and comma separated, if it has any.
+     */
+    public void validate(Review review) {
+        Set<ConstraintViolation<Review>> constraintViolations = validator.validate(review);
+        log.debug("constraintViolations : {}", constraintViolations);
+        if (!constraintViolations.isEmpty()) {
+            String errorMessage = constraintViolations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(","));
+            throw new ReviewDataException(errorMessage);
+        }
+    }
+}
@@ -1,4 +1,190 @@
 package com.reactivespring.routes;
 
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewImportResult;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.repository.ReviewStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.mongodb.embedded.version=3.5.5")
+@AutoConfigureWebTestClient
 public class ReviewsIntgTest {
+
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @Autowired
+    private ReviewStatsRepository reviewStatsRepository;
+
+    @BeforeEach
+    void setUp() {
+        List<Review> reviews = Arrays.asList(
+                new Review(null, 1L, "Awesome Movie", 9.0),
+                new Review(null, 1L, "Awesome Movie1", 9.0),
+                new Review("abc", 2L, "Excellent Movie", 8.0));
+        reviewReactiveRepository.saveAll(reviews).blockLast();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewReactiveRepository.deleteAll().block();
+        reviewStatsRepository.deleteAll().block();
+    }
+
+    @Test
+    void addReview() {
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(new Review(null, 1L, "Awesome Movie", 9.0))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Review.class)
+                .consumeWith(reviewResponse -> {
+                    Review savedReview = reviewResponse.getResponseBody();
+                    assertNotNull(savedReview);
+                    assertNotNull(savedReview.getReviewId());
+                });
+    }
+
+    @Test
+    void getReviewsByMovieInfoId() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(REVIEWS_URL).queryParam("movieInfoId", 1).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void getReviewsByMovieInfoId_newestFirstWhateverTheClientIds() {
+        for (String clientId : Arrays.asList("9", "10")) {
+            webTestClient.post()
+                    .uri(REVIEWS_URL)
+                    .bodyValue(new Review(clientId, 4L, "Review " + clientId, 8.0))
+                    .exchange()
+                    .expectStatus().isCreated();
+        }
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(REVIEWS_URL).queryParam("movieInfoId", 4).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .value(reviews -> assertEquals(Arrays.asList("Review 10", "Review 9"),
+                        reviews.stream().map(Review::getComment).collect(Collectors.toList())));
+    }
+
+    @Test
+    void getReviewsByMovieInfoId_pagedByRating() {
+        Review lowest = reviewReactiveRepository.save(new Review(null, 1L, "Good Movie", 7.0)).block();
+
+        List<Review> firstPage = webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(REVIEWS_URL)
+                        .queryParam("movieInfoId", 1)
+                        .queryParam("sort", "rating")
+                        .queryParam("fields", "rating")
+                        .queryParam("limit", 2)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .hasSize(2)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(firstPage);
+        Review last = firstPage.get(1);
+        assertEquals(9.0, last.getRating());
+        assertNull(last.getComment());
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(REVIEWS_URL)
+                        .queryParam("movieInfoId", 1)
+                        .queryParam("sort", "rating")
+                        .queryParam("after", last.getReviewId())
+                        .queryParam("afterRating", last.getRating())
+                        .queryParam("limit", 2)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .hasSize(1)
+                .contains(lowest);
+    }
+
+    @Test
+    void importReviews() {
+        webTestClient.post()
+                .uri(REVIEWS_URL + "/bulk")
+                .bodyValue(Arrays.asList(
+                        new Review(null, 3L, "Awesome Movie", 9.0),
+                        new Review(null, 3L, "Bad rating", -1.0),
+                        new Review(null, 3L, "Good Movie", 7.0)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ReviewImportResult.class)
+                .hasSize(3);
+
+        StepVerifier.create(reviewReactiveRepository.findReviewsPage(3L, false, null, null, Collections.emptySet(), 10))
+                .expectNextCount(2)
+                .verifyComplete();
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/stats/{movieInfoId}", 3)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.averageRating").isEqualTo(8.0);
+    }
+
+    @Test
+    void updateReview() {
+        webTestClient.put()
+                .uri(REVIEWS_URL + "/{id}", "abc")
+                .bodyValue(new Review(null, 2L, "Excellent Movie Update", 8.5))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Review.class)
+                .consumeWith(reviewResponse -> {
+                    Review updatedReview = reviewResponse.getResponseBody();
+                    assertNotNull(updatedReview);
+                    assertEquals("Excellent Movie Update", updatedReview.getComment());
+                    assertEquals(8.5, updatedReview.getRating());
+                });
+    }
+
+    @Test
+    void deleteReview() {
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", "abc")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", "abc")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
 }
@@ -0,0 +1,72 @@
+package com.reactivespring.service;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the feed against a real single-node replica set, the least a change stream needs.
+ * Skipped where Docker is not available, so the build still passes on the embedded mongod alone.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class ReviewFeedServiceIntgTest {
+
+    @Container
+    private static final MongoDBContainer MONGO = new MongoDBContainer("mongo:4.4");
+
+    private static MongoClient mongoClient;
+    private static ReactiveMongoTemplate mongoTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        mongoClient = MongoClients.create(MONGO.getReplicaSetUrl("moviesreview"));
+        mongoTemplate = new ReactiveMongoTemplate(mongoClient, "moviesreview");
+        // A change stream cannot be opened on a collection that does not exist yet
+        mongoTemplate.createCollection(Review.class).block();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    void watch_seesSavesAndResumesAfterToken() {
+        ReviewFeedService reviewFeedService = new ReviewFeedService(mongoTemplate, 16, BufferOverflowStrategy.DROP_OLDEST, 16);
+        AtomicReference<ReviewEvent> first = new AtomicReference<>();
+
+        StepVerifier.create(reviewFeedService.events(null))
+                .thenAwait(Duration.ofSeconds(1))
+                .then(() -> mongoTemplate.save(new Review(null, 1L, "Awesome Movie", 9.0)).block())
+                .assertNext(event -> {
+                    assertEquals("Awesome Movie", event.getReview().getComment());
+                    first.set(event);
+                })
+                .then(() -> mongoTemplate.save(new Review(null, 1L, "Good Movie", 7.0)).block())
+                .assertNext(event -> assertEquals("Good Movie", event.getReview().getComment()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(30));
+
+        // A cursor of its own, resumed after the first save, replays the second from the oplog
+        StepVerifier.create(reviewFeedService.watch(BsonDocument.parse(first.get().getId())))
+                .assertNext(event -> assertEquals("Good Movie", event.getBody().getComment()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(30));
+    }
+}
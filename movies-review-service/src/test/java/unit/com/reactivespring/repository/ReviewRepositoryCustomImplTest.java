@@ -0,0 +1,59 @@
+package com.reactivespring.repository;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReviewRepositoryCustomImplTest {
+
+    @Test
+    void pageQuery_newestFirstAfterCursor() {
+        Query query = ReviewRepositoryCustomImpl.pageQuery(1L, false, "64b7f0c2a1e4c3d2b1a09f8e", null,
+                Collections.emptySet(), 50);
+
+        Document filter = query.getQueryObject();
+        assertEquals(1L, filter.get("movieInfoId"));
+        assertEquals(new Document("$lt", "64b7f0c2a1e4c3d2b1a09f8e"), filter.get("reviewId"));
+        assertEquals(new Document("reviewId", -1), query.getSortObject());
+        assertEquals(50, query.getLimit());
+        assertTrue(query.getFieldsObject().isEmpty());
+    }
+
+    @Test
+    void pageQuery_byRatingAfterCursor() {
+        Query query = ReviewRepositoryCustomImpl.pageQuery(1L, true, "abc", 8.0, Collections.emptySet(), 50);
+
+        List<?> or = (List<?>) query.getQueryObject().get("$or");
+        assertEquals(3, or.size());
+        assertEquals(new Document("rating", new Document("$lt", 8.0)), or.get(0));
+        assertEquals(new Document("rating", null), or.get(2));
+        assertEquals(new Document("rating", -1).append("reviewId", -1), query.getSortObject());
+    }
+
+    @Test
+    void pageQuery_byRatingAfterUnratedReview() {
+        Document filter = ReviewRepositoryCustomImpl.pageQuery(1L, true, "abc", null, Collections.emptySet(), 50)
+                .getQueryObject();
+
+        assertFalse(filter.containsKey("$or"));
+        assertEquals(2, ((List<?>) filter.get("$and")).size());
+    }
+
+    @Test
+    void pageQuery_projectsRequestedFields() {
+        Document fields = ReviewRepositoryCustomImpl.pageQuery(null, false, null, null,
+                new LinkedHashSet<>(Arrays.asList("movieInfoId", "rating")), 50).getFieldsObject();
+
+        assertTrue(fields.containsKey("rating"));
+        assertFalse(fields.containsKey("comment"));
+    }
+}
@@ -1,4 +1,340 @@
 package com.reactivespring.routes;
 
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.domain.ReviewImportResult;
+import com.reactivespring.domain.ReviewStats;
+import com.reactivespring.exceptionhandler.GlobalErrorHandler;
+import com.reactivespring.handler.ReviewHandler;
+import com.reactivespring.repository.ReviewReactiveRepository;
+import com.reactivespring.router.ReviewRouter;
+import com.reactivespring.service.ReviewFeedService;
+import com.reactivespring.service.ReviewImportService;
+import com.reactivespring.service.ReviewStatsService;
+import com.reactivespring.validator.ReviewValidator;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isA;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest
+@ContextConfiguration(classes = {ReviewRouter.class, ReviewHandler.class, ReviewValidator.class, GlobalErrorHandler.class})
+@AutoConfigureWebTestClient
 public class ReviewsUnitTest {
+
+    private static final String REVIEWS_URL = "/v1/reviews";
+
+    @MockBean
+    private ReviewReactiveRepository reviewReactiveRepository;
+
+    @MockBean
+    private ReviewStatsService reviewStatsService;
+
+    @MockBean
+    private ReviewImportService reviewImportService;
+
+    @MockBean
+    private ReviewFeedService reviewFeedService;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        when(reviewStatsService.reviewAdded(any())).thenReturn(Mono.empty());
+        when(reviewStatsService.reviewUpdated(any(), any())).thenReturn(Mono.empty());
+        when(reviewStatsService.reviewDeleted(any())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void addReview() {
+        Review review = new Review(null, 1L, "Awesome Movie", 9.0);
+        when(reviewReactiveRepository.insert(isA(Review.class)))
+                .thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(Review.class)
+                .consumeWith(reviewResponse -> {
+                    Review savedReview = reviewResponse.getResponseBody();
+                    assertNotNull(savedReview);
+                    assertEquals("abc", savedReview.getReviewId());
+                });
+
+        verify(reviewStatsService).reviewAdded(isA(Review.class));
+    }
+
+    @Test
+    void addReview_assignsObjectIdOverClientReviewId() {
+        Review review = new Review("1", 1L, "Awesome Movie", 9.0);
+        when(reviewReactiveRepository.insert(isA(Review.class)))
+                .thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus().isCreated();
+
+        ArgumentCaptor<Review> inserted = ArgumentCaptor.forClass(Review.class);
+        verify(reviewReactiveRepository).insert(inserted.capture());
+        assertTrue(ObjectId.isValid(inserted.getValue().getReviewId()));
+    }
+
+    @Test
+    void addReview_idAlreadyTaken() {
+        Review review = new Review(null, 1L, "Awesome Movie", 9.0);
+        when(reviewReactiveRepository.insert(isA(Review.class)))
+                .thenReturn(Mono.error(new DuplicateKeyException("E11000 duplicate key error")));
+
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT)
+                .expectBody(String.class)
+                .value(message -> assertTrue(message.startsWith("Review already exists for the given Review id ")));
+
+        // The existing review was neither replaced nor counted again
+        verify(reviewReactiveRepository, never()).save(any(Review.class));
+        verify(reviewStatsService, never()).reviewAdded(any());
+    }
+
+    @Test
+    void addReview_validation() {
+        Review review = new Review(null, null, "Awesome Movie", -9.0);
+
+        webTestClient.post()
+                .uri(REVIEWS_URL)
+                .bodyValue(review)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("rating.negative : please pass a non-negative value,review.movieInfoId : must not be null");
+    }
+
+    @Test
+    void getReviewsByMovieInfoId() {
+        when(reviewReactiveRepository.findReviewsPage(1L, false, null, null, Collections.emptySet(), 50))
+                .thenReturn(Flux.just(
+                        new Review("abc", 1L, "Awesome Movie", 9.0),
+                        new Review("def", 1L, "Excellent Movie", 8.0)));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(REVIEWS_URL).queryParam("movieInfoId", 1).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .hasSize(2);
+    }
+
+    @Test
+    void getReviews_nextPageByRatingWithoutComments() {
+        when(reviewReactiveRepository.findReviewsPage(1L, true, "abc", 9.0,
+                new LinkedHashSet<>(Arrays.asList("movieInfoId", "rating")), 500))
+                .thenReturn(Flux.just(new Review("def", 1L, null, 8.0)));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(REVIEWS_URL)
+                        .queryParam("movieInfoId", 1)
+                        .queryParam("sort", "rating")
+                        .queryParam("after", "abc")
+                        .queryParam("afterRating", 9.0)
+                        .queryParam("fields", "reviewId,movieInfoId,rating")
+                        .queryParam("limit", 100000)
+                        .build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Review.class)
+                .hasSize(1);
+    }
+
+    @Test
+    void getReviews_byRatingNeedsMovieInfoId() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(REVIEWS_URL).queryParam("sort", "rating").build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("sort=rating needs a movieInfoId");
+    }
+
+    @Test
+    void getReviews_unknownField() {
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(REVIEWS_URL).queryParam("fields", "rating,author").build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody(String.class)
+                .isEqualTo("fields must be among [movieInfoId, comment, rating] : author");
+    }
+
+    @Test
+    void importReviews() {
+        when(reviewImportService.importReviews(any())).thenAnswer(invocation -> {
+            Flux<Review> reviews = invocation.getArgument(0);
+            return reviews.index((index, review) -> review.getMovieInfoId() != null
+                    ? new ReviewImportResult(index + 1, ReviewImportResult.Status.IMPORTED, "id" + index, null)
+                    : new ReviewImportResult(index + 1, ReviewImportResult.Status.INVALID, null, "review.movieInfoId : must not be null"));
+        });
+
+        webTestClient.post()
+                .uri(REVIEWS_URL + "/bulk")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"movieInfoId\":1,\"comment\":\"Awesome Movie\",\"rating\":9.0}\n"
+                        + "{\"comment\":\"No movie\",\"rating\":5.0}\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(ReviewImportResult.class)
+                .contains(new ReviewImportResult(1L, ReviewImportResult.Status.IMPORTED, "id0", null),
+                        new ReviewImportResult(2L, ReviewImportResult.Status.INVALID, null, "review.movieInfoId : must not be null"));
+    }
+
+    @Test
+    void updateReview_notFound() {
+        when(reviewReactiveRepository.findAndUpdateById(eq("abc"), isA(Review.class))).thenReturn(Mono.empty());
+
+        webTestClient.put()
+                .uri(REVIEWS_URL + "/{id}", "abc")
+                .bodyValue(new Review(null, 1L, "Not an Awesome Movie", 8.0))
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void deleteReview() {
+        when(reviewReactiveRepository.findAndRemoveById("abc")).thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", "abc")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        verify(reviewStatsService).reviewDeleted(new Review("abc", 1L, "Awesome Movie", 9.0));
+    }
+
+    @Test
+    void deleteReview_alreadyRemovedLeavesStats() {
+        when(reviewReactiveRepository.findAndRemoveById("abc")).thenReturn(Mono.empty());
+
+        webTestClient.delete()
+                .uri(REVIEWS_URL + "/{id}", "abc")
+                .exchange()
+                .expectStatus().isNotFound();
+
+        verify(reviewStatsService, never()).reviewDeleted(any());
+    }
+
+    @Test
+    void updateReview_updatesStatsFromPreviousRating() {
+        // The pre-image returned by the write, not an earlier read, is what the stats move from
+        when(reviewReactiveRepository.findAndUpdateById(eq("abc"), isA(Review.class)))
+                .thenReturn(Mono.just(new Review("abc", 1L, "Awesome Movie", 9.0)));
+
+        webTestClient.put()
+                .uri(REVIEWS_URL + "/{id}", "abc")
+                .bodyValue(new Review(null, 1L, "Not an Awesome Movie", 6.0))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Review.class)
+                .isEqualTo(new Review("abc", 1L, "Not an Awesome Movie", 6.0));
+
+        verify(reviewStatsService).reviewUpdated(
+                new Review("abc", 1L, "Awesome Movie", 9.0),
+                new Review("abc", 1L, "Not an Awesome Movie", 6.0));
+    }
+
+    @Test
+    void getReviewStats() {
+        when(reviewStatsService.getStats(1L))
+                .thenReturn(Mono.just(new ReviewStats(1L, 2, 17.0, Collections.singletonMap("8", 2L))));
+
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/stats/{movieInfoId}", 1)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(2)
+                .jsonPath("$.averageRating").isEqualTo(8.5)
+                .jsonPath("$.histogram.8").isEqualTo(2);
+    }
+
+    @Test
+    void getReviewStatsBatch() {
+        when(reviewStatsService.getStats(anyList())).thenReturn(Flux.just(
+                new ReviewStats(1L, 2, 17.0, Collections.singletonMap("8", 2L)),
+                ReviewStats.empty(2L)));
+
+        webTestClient.get()
+                .uri(uriBuilder -> uriBuilder.path(REVIEWS_URL + "/stats").queryParam("movieInfoIds", "1,2").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(ReviewStats.class)
+                .hasSize(2);
+
+        verify(reviewStatsService).getStats(Arrays.asList(1L, 2L));
+    }
+
+    @Test
+    void getReviewStats_invalidMovieInfoId() {
+        webTestClient.get()
+                .uri(REVIEWS_URL + "/stats/{movieInfoId}", "abc")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void getReviewsStream_eventIdsResumeTheStream() {
+        String lastEventId = "{\"_data\": \"8263\"}";
+        when(reviewFeedService.events(lastEventId)).thenReturn(Flux.just(
+                new ReviewEvent("{\"_data\": \"8264\"}", new Review("abc", 1L, "Awesome Movie", 9.0))));
+
+        StepVerifier.create(webTestClient.get()
+                        .uri(REVIEWS_URL + "/stream")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Last-Event-ID", lastEventId)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .returnResult(new ParameterizedTypeReference<ServerSentEvent<Review>>() {
+                        })
+                        .getResponseBody())
+                .assertNext(event -> {
+                    assertEquals("{\"_data\": \"8264\"}", event.id());
+                    assertEquals("abc", event.data().getReviewId());
+                })
+                .verifyComplete();
+    }
 }
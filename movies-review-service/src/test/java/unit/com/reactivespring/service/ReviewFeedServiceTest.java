@@ -0,0 +1,216 @@
+package com.reactivespring.service;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewEvent;
+import com.reactivespring.exception.ReviewDataException;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+public class ReviewFeedServiceTest {
+
+    private final List<BsonValue> watchedFrom = new CopyOnWriteArrayList<>();
+    private volatile Sinks.Many<ChangeStreamEvent<Review>> changes = Sinks.many().multicast().directBestEffort();
+
+    private final ReviewFeedService reviewFeedService = new ReviewFeedService(mock(ReactiveMongoTemplate.class),
+            2, BufferOverflowStrategy.DROP_OLDEST, 3) {
+        @Override
+        Flux<ChangeStreamEvent<Review>> watch(BsonValue resumeAfter) {
+            watchedFrom.add(resumeAfter);
+            // Every cursor after the first is a new one
+            if (watchedFrom.size() > 1) {
+                changes = Sinks.many().multicast().directBestEffort();
+            }
+            return changes.asFlux();
+        }
+    };
+
+    @Test
+    void events_subscribersShareOneCursorFromSubscriptionOn() {
+        StepVerifier.create(reviewFeedService.events(null))
+                .then(() -> changes.tryEmitNext(change("1")))
+                .assertNext(event -> {
+                    assertEquals(eventId("1"), event.getId());
+                    assertEquals("1", event.getReview().getReviewId());
+                })
+                .thenCancel()
+                .verify();
+
+        // The history of the shared cursor is only for resuming, not for new subscribers
+        StepVerifier.create(reviewFeedService.events(null))
+                .then(() -> changes.tryEmitNext(change("2")))
+                .assertNext(event -> assertEquals("2", event.getReview().getReviewId()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, watchedFrom.size());
+        assertNull(watchedFrom.get(0));
+    }
+
+    @Test
+    void events_resumeFromSharedHistory() {
+        StepVerifier.create(reviewFeedService.events(null))
+                .then(() -> {
+                    changes.tryEmitNext(change("1"));
+                    changes.tryEmitNext(change("2"));
+                    changes.tryEmitNext(change("3"));
+                })
+                .expectNextCount(3)
+                .thenCancel()
+                .verify();
+
+        StepVerifier.create(reviewFeedService.events(eventId("1")))
+                .assertNext(event -> assertEquals("2", event.getReview().getReviewId()))
+                .assertNext(event -> assertEquals("3", event.getReview().getReviewId()))
+                .then(() -> changes.tryEmitNext(change("4")))
+                .assertNext(event -> assertEquals("4", event.getReview().getReviewId()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(1, watchedFrom.size());
+    }
+
+    @Test
+    void events_resumeBeyondSharedHistoryFromOwnCursorUntilItMeetsTheSharedOne() {
+        // Every cursor reads the same saves, as change streams on one collection do
+        Map<BsonValue, Sinks.Many<ChangeStreamEvent<Review>>> cursors = new ConcurrentHashMap<>();
+        ReviewFeedService feed = new ReviewFeedService(mock(ReactiveMongoTemplate.class),
+                2, BufferOverflowStrategy.DROP_OLDEST, 3) {
+            @Override
+            Flux<ChangeStreamEvent<Review>> watch(BsonValue resumeAfter) {
+                Sinks.Many<ChangeStreamEvent<Review>> cursor = Sinks.many().multicast().directBestEffort();
+                cursors.put(resumeAfter != null ? resumeAfter : new BsonDocument(), cursor);
+                return cursor.asFlux();
+            }
+        };
+        BsonValue resumeToken = BsonDocument.parse(eventId("0"));
+
+        StepVerifier.create(feed.events(eventId("0")))
+                // Saved before this instance watched, so only the own cursor has it
+                .then(() -> cursors.get(resumeToken).tryEmitNext(change("1")))
+                .assertNext(event -> assertEquals("1", event.getReview().getReviewId()))
+                .then(() -> {
+                    cursors.get(new BsonDocument()).tryEmitNext(change("2"));
+                    cursors.get(resumeToken).tryEmitNext(change("2"));
+                })
+                .assertNext(event -> assertEquals("2", event.getReview().getReviewId()))
+                // Met on review 2: the own cursor is closed and the shared one carries on
+                .then(() -> assertEquals(0, cursors.get(resumeToken).currentSubscriberCount()))
+                .then(() -> cursors.get(new BsonDocument()).tryEmitNext(change("3")))
+                .assertNext(event -> assertEquals("3", event.getReview().getReviewId()))
+                .thenCancel()
+                .verify();
+
+        assertEquals(2, cursors.size());
+    }
+
+    @Test
+    void events_slowSubscriberKeepsLatestReviews() {
+        // Nothing is requested while three reviews are saved, so the buffer of two drops the oldest
+        StepVerifier.create(reviewFeedService.events(null), 0)
+                .then(() -> {
+                    changes.tryEmitNext(change("1"));
+                    changes.tryEmitNext(change("2"));
+                    changes.tryEmitNext(change("3"));
+                })
+                .thenRequest(3)
+                .assertNext(event -> assertEquals("2", event.getReview().getReviewId()))
+                .assertNext(event -> assertEquals("3", event.getReview().getReviewId()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    void events_sharedCursorResumesAfterLastEvent() {
+        StepVerifier.create(reviewFeedService.events(null))
+                .then(() -> changes.tryEmitNext(change("1")))
+                .expectNextCount(1)
+                .then(() -> changes.tryEmitError(new MongoCommandException(
+                        new BsonDocument("code", new BsonInt32(6)), new ServerAddress())))
+                .then(() -> await(2))
+                .then(() -> changes.tryEmitNext(change("2")))
+                .assertNext(event -> assertEquals("2", event.getReview().getReviewId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+
+        assertEquals(BsonDocument.parse(eventId("1")), watchedFrom.get(1));
+    }
+
+    @Test
+    void events_sharedCursorWatchesFromNowOnceHistoryIsLost() {
+        StepVerifier.create(reviewFeedService.events(null))
+                .then(() -> changes.tryEmitNext(change("1")))
+                .expectNextCount(1)
+                .then(() -> changes.tryEmitError(new UncategorizedMongoDbException("history lost",
+                        new MongoCommandException(new BsonDocument("code", new BsonInt32(286)), new ServerAddress()))))
+                .then(() -> await(2))
+                .then(() -> changes.tryEmitNext(change("2")))
+                .assertNext(event -> assertEquals("2", event.getReview().getReviewId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+
+        assertNull(watchedFrom.get(1));
+    }
+
+    @Test
+    void events_sharedCursorWatchesFromNowWhenClosedByServer() {
+        StepVerifier.create(reviewFeedService.events(null))
+                .then(() -> changes.tryEmitNext(change("1")))
+                .expectNextCount(1)
+                .then(() -> changes.tryEmitComplete())
+                .then(() -> await(2))
+                .then(() -> changes.tryEmitNext(change("2")))
+                .assertNext(event -> assertEquals("2", event.getReview().getReviewId()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(10));
+
+        assertNull(watchedFrom.get(1));
+    }
+
+    @Test
+    void events_invalidLastEventId() {
+        assertThrows(ReviewDataException.class, () -> reviewFeedService.events("not an id"));
+    }
+
+    private void await(int cursors) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while ((watchedFrom.size() < cursors || changes.currentSubscriberCount() == 0) && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+    }
+
+    private static ChangeStreamEvent<Review> change(String reviewId) {
+        ChangeStreamEvent<Review> event = mock(ChangeStreamEvent.class);
+        when(event.getResumeToken()).thenReturn(new BsonDocument("_data", new BsonString(reviewId)));
+        when(event.getBody()).thenReturn(new Review(reviewId, 1L, "Review " + reviewId, 8.0));
+        return event;
+    }
+
+    private static String eventId(String reviewId) {
+        return ReviewFeedService.toReviewEvent(change(reviewId)).getId();
+    }
+}
@@ -0,0 +1,125 @@
+package com.reactivespring.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.reactivespring.domain.Review;
+import com.reactivespring.domain.ReviewImportResult;
+import com.reactivespring.validator.ReviewValidator;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.validation.Validation;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+public class ReviewImportServiceTest {
+
+    private final ReactiveMongoTemplate mongoTemplate = mock(ReactiveMongoTemplate.class);
+    private final ReviewStatsService reviewStatsService = mock(ReviewStatsService.class);
+    private final MongoCollection<Document> collection = mock(MongoCollection.class);
+
+    private final ReviewImportService reviewImportService = new ReviewImportService(mongoTemplate, reviewStatsService,
+            new ReviewValidator(Validation.buildDefaultValidatorFactory().getValidator()), 2);
+
+    @BeforeEach
+    void setUp() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        when(mongoTemplate.getCollectionName(Review.class)).thenReturn("review");
+        when(mongoTemplate.getCollection("review")).thenReturn(Mono.just(collection));
+        when(reviewStatsService.reviewsAdded(anyList())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void importReviews_batchesValidReviewsIntoUnorderedBulkWrites() {
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(Mono.just(BulkWriteResult.acknowledged(2, 0, 0, 0, Collections.emptyList(), Collections.emptyList())));
+
+        StepVerifier.create(reviewImportService.importReviews(Flux.just(
+                        new Review(null, 1L, "Awesome Movie", 9.0),
+                        new Review(null, null, "No movie", 5.0),
+                        new Review(null, 1L, "Good Movie", 7.0),
+                        new Review(null, 2L, "Excellent Movie", 8.0))))
+                .assertNext(result -> assertEquals(ReviewImportResult.Status.IMPORTED, result.getStatus()))
+                .assertNext(result -> {
+                    assertEquals(2L, result.getRecord());
+                    assertEquals(ReviewImportResult.Status.INVALID, result.getStatus());
+                    assertEquals("review.movieInfoId : must not be null", result.getError());
+                })
+                .assertNext(result -> assertEquals(ReviewImportResult.Status.IMPORTED, result.getStatus()))
+                .assertNext(result -> assertEquals(ReviewImportResult.Status.IMPORTED, result.getStatus()))
+                .verifyComplete();
+
+        ArgumentCaptor<BulkWriteOptions> options = ArgumentCaptor.forClass(BulkWriteOptions.class);
+        verify(collection, times(2)).bulkWrite(anyList(), options.capture());
+        assertFalse(options.getValue().isOrdered());
+        ArgumentCaptor<List<Review>> added = ArgumentCaptor.forClass(List.class);
+        verify(reviewStatsService, times(2)).reviewsAdded(added.capture());
+        assertEquals(1, added.getAllValues().get(0).size());
+        assertEquals(2, added.getAllValues().get(1).size());
+    }
+
+    @Test
+    void importReviews_failedWriteOnlyFailsItsReview() {
+        BulkWriteError duplicate = new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0);
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(Mono.error(new MongoBulkWriteException(
+                        BulkWriteResult.acknowledged(1, 0, 0, 0, Collections.emptyList(), Collections.emptyList()),
+                        Collections.singletonList(duplicate), null, new ServerAddress())));
+
+        StepVerifier.create(reviewImportService.importReviews(Flux.just(
+                        new Review(null, 1L, "Awesome Movie", 9.0),
+                        new Review(null, 1L, "Good Movie", 7.0))))
+                .assertNext(result -> {
+                    assertEquals(ReviewImportResult.Status.FAILED, result.getStatus());
+                    assertEquals("duplicate key", result.getError());
+                })
+                .assertNext(result -> assertEquals(ReviewImportResult.Status.IMPORTED, result.getStatus()))
+                .verifyComplete();
+
+        ArgumentCaptor<List<Review>> added = ArgumentCaptor.forClass(List.class);
+        verify(reviewStatsService).reviewsAdded(added.capture());
+        assertEquals("Good Movie", added.getValue().get(0).getComment());
+    }
+
+    @Test
+    void importReviews_brokenUploadEndsWithFailedResult() {
+        when(collection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(Mono.just(BulkWriteResult.acknowledged(1, 0, 0, 0, Collections.emptyList(), Collections.emptyList())));
+
+        StepVerifier.create(reviewImportService.importReviews(Flux.concat(
+                        Flux.just(new Review(null, 1L, "Awesome Movie", 9.0)),
+                        Flux.error(new IllegalStateException("unexpected end of input")))))
+                .assertNext(result -> assertEquals(ReviewImportResult.Status.IMPORTED, result.getStatus()))
+                .assertNext(result -> {
+                    assertEquals(ReviewImportResult.Status.FAILED, result.getStatus());
+                    assertEquals("Import stopped: unexpected end of input", result.getError());
+                })
+                .verifyComplete();
+    }
+}
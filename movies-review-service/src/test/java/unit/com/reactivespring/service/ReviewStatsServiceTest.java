@@ -0,0 +1,63 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.Review;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReviewStatsServiceTest {
+
+    @Test
+    void updatesFor_addedReview() {
+        Map<Long, Update> updates = ReviewStatsService.updatesFor(null, new Review("abc", 1L, "Awesome Movie", 8.5));
+
+        Document inc = (Document) updates.get(1L).getUpdateObject().get("$inc");
+        assertEquals(1L, inc.get("count"));
+        assertEquals(8.5, inc.get("ratingSum"));
+        assertEquals(1L, inc.get("histogram.8"));
+    }
+
+    @Test
+    void updatesFor_ratingChangeWithinMovieIsOneUpdate() {
+        Map<Long, Update> updates = ReviewStatsService.updatesFor(
+                new Review("abc", 1L, "Awesome Movie", 9.0),
+                new Review("abc", 1L, "Good Movie", 7.5));
+
+        assertEquals(1, updates.size());
+        Document inc = (Document) updates.get(1L).getUpdateObject().get("$inc");
+        assertEquals(-1.5, inc.get("ratingSum"));
+        assertEquals(-1L, inc.get("histogram.9"));
+        assertEquals(1L, inc.get("histogram.7"));
+        assertTrue(!inc.containsKey("count"));
+    }
+
+    @Test
+    void updatesFor_reviewMovedToAnotherMovie() {
+        Map<Long, Update> updates = ReviewStatsService.updatesFor(
+                new Review("abc", 1L, "Awesome Movie", 9.0),
+                new Review("abc", 2L, "Awesome Movie", 9.0));
+
+        assertEquals(-1L, ((Document) updates.get(1L).getUpdateObject().get("$inc")).get("count"));
+        assertEquals(1L, ((Document) updates.get(2L).getUpdateObject().get("$inc")).get("count"));
+    }
+
+    @Test
+    void updatesFor_commentOnlyChangeHasNoUpdate() {
+        Map<Long, Update> updates = ReviewStatsService.updatesFor(
+                new Review("abc", 1L, "Awesome Movie", 9.0),
+                new Review("abc", 1L, "Awesome Movie!", 9.0));
+
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    void bucketOf_clampsToScale() {
+        assertEquals("0", ReviewStatsService.bucketOf(0.4));
+        assertEquals("10", ReviewStatsService.bucketOf(12.0));
+    }
+}
@@ -0,0 +1,110 @@
+package com.reactivespring.benchmark;
+
+import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.SurveyTranslationRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates surveys of a given size with the shape of a real customer survey: sections of
+ * five categories, categories of ten questions, and five choices on every rating question.
+ */
+public final class SurveyFixtures {
+    
+    private static final int QUESTIONS_PER_CATEGORY = 10;
+    private static final int CATEGORIES_PER_SECTION = 5;
+    
+    private SurveyFixtures() {
+    }
+    
+    public static SurveyTranslationRequest request(int questionCount) {
+        return SurveyTranslationRequest.builder()
+                .survey(survey(questionCount))
+                .sourceLanguage("en")
+                .targetLanguage("es")
+                .options(SurveyTranslationRequest.TranslationOptions.builder()
+                        .tone("professional")
+                        .context("Customer satisfaction survey for a retail bank")
+                        .build())
+                .build();
+    }
+    
+    public static Survey survey(int questionCount) {
+        List<Survey.Section> sections = new ArrayList<>();
+        List<Survey.Category> categories = new ArrayList<>();
+        List<Survey.Question> questions = new ArrayList<>();
+        
+        for (int q = 0; q < questionCount; q++) {
+            questions.add(question(q));
+            if (questions.size() == QUESTIONS_PER_CATEGORY || q == questionCount - 1) {
+                categories.add(Survey.Category.builder()
+                        .name("Category " + (categories.size() + 1) + " of section " + (sections.size() + 1))
+                        .description("Questions about how our service met your expectations")
+                        .order(categories.size() + 1)
+                        .questions(questions)
+                        .build());
+                questions = new ArrayList<>();
+            }
+            if (categories.size() == CATEGORIES_PER_SECTION || (q == questionCount - 1 && !categories.isEmpty())) {
+                sections.add(Survey.Section.builder()
+                        .title("Section " + (sections.size() + 1))
+                        .description("Tell us about your recent experience with our branches and online services")
+                        .order(sections.size() + 1)
+                        .categories(categories)
+                        .build());
+                categories = new ArrayList<>();
+            }
+        }
+        
+        return Survey.builder()
+                .id("benchmark-" + questionCount)
+                .title("Customer Satisfaction Survey")
+                .language("en")
+                .introductionBlock(Survey.IntroductionBlock.builder()
+                        .title("Welcome to Our Survey")
+                        .description("We value your feedback and use it to improve our services")
+                        .welcomeMessage("Thank you for taking the time to participate")
+                        .instructions(Arrays.asList(
+                                "Please answer all questions honestly",
+                                "There are no right or wrong answers"))
+                        .build())
+                .contentBlock(Survey.ContentBlock.builder().sections(sections).build())
+                .footerBlock(Survey.FooterBlock.builder()
+                        .thankYouMessage("Thank you for your valuable feedback!")
+                        .submitButtonText("Submit Survey")
+                        .contactInformation("For questions, contact support@example.com")
+                        .build())
+                .build();
+    }
+    
+    private static Survey.Question question(int index) {
+        boolean rating = index % 2 == 0;
+        Survey.Question.QuestionBuilder question = Survey.Question.builder()
+                .questionText("Question " + (index + 1) + ": how satisfied are you with the speed and friendliness of our staff?")
+                .description("Please consider your most recent visit")
+                .order(index + 1)
+                .required(true)
+                .type(rating ? Survey.QuestionType.SINGLE_CHOICE : Survey.QuestionType.TEXT);
+        
+        if (rating) {
+            question.choices(Arrays.asList(
+                    choice("Very Satisfied", "5"),
+                    choice("Satisfied", "4"),
+                    choice("Neutral", "3"),
+                    choice("Dissatisfied", "2"),
+                    choice("Very Dissatisfied", "1")));
+        } else {
+            question.validationRules(Survey.ValidationRules.builder()
+                    .maxLength(500)
+                    .errorMessage("Please keep your answer under 500 characters")
+                    .build());
+        }
+        return question.build();
+    }
+    
+    private static Survey.Choice choice(String text, String value) {
+        return Survey.Choice.builder().text(text).value(value).order(Integer.parseInt(value)).build();
+    }
+}
@@ -0,0 +1,109 @@
+package com.reactivespring.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.converter.SurveySegmentExtractor;
+import com.reactivespring.converter.SurveyTranslationMessageConverter;
+import com.reactivespring.converter.TranslationResponseParser;
+import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.CustomMessage;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request CPU work around a model call, for surveys of 10, 100 and 1000 questions.
+ * Run with {@code ./gradlew :movies-service:jmh}; the gc profiler reports allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TranslationHotPathBenchmark {
+    
+    @Param({"10", "100", "1000"})
+    private int questions;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final SurveySegmentExtractor segmentExtractor = new SurveySegmentExtractor(objectMapper);
+    private final SurveyTranslationMessageConverter messageConverter = new SurveyTranslationMessageConverter(objectMapper);
+    private final TranslationResponseParser responseParser = new TranslationResponseParser(objectMapper);
+    
+    private SurveyTranslationRequest request;
+    private List<TextSegment> segments;
+    private Map<String, String> translatedByPath;
+    private String surveyJson;
+    private String modelResponse;
+    private List<String> modelResponseTokens;
+    
+    @Setup
+    public void setUp() throws IOException {
+        request = SurveyFixtures.request(questions);
+        segments = segmentExtractor.extractSegments(request.getSurvey(), request.getOptions());
+        surveyJson = objectMapper.writeValueAsString(request.getSurvey());
+        
+        // A reply shaped like the model's: a fenced JSON object keyed by segment index
+        Map<String, String> translatedByKey = new LinkedHashMap<>();
+        translatedByPath = new LinkedHashMap<>();
+        for (int i = 0; i < segments.size(); i++) {
+            String translated = "ES " + segments.get(i).getText();
+            translatedByKey.put(String.valueOf(i), translated);
+            translatedByPath.put(segments.get(i).getPath(), translated);
+        }
+        modelResponse = "```json\n" + objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(translatedByKey) + "\n```";
+        
+        // Streamed replies arrive in chunks of a few characters
+        modelResponseTokens = new ArrayList<>();
+        for (int i = 0; i < modelResponse.length(); i += 4) {
+            modelResponseTokens.add(modelResponse.substring(i, Math.min(modelResponse.length(), i + 4)));
+        }
+    }
+    
+    @Benchmark
+    public List<TextSegment> extractSegments() {
+        return segmentExtractor.extractSegments(request.getSurvey(), request.getOptions());
+    }
+    
+    @Benchmark
+    public CustomMessage buildPrompt() {
+        return messageConverter.convertToMessage(request, segments);
+    }
+    
+    @Benchmark
+    public String serializeSurvey() throws IOException {
+        return objectMapper.writeValueAsString(request.getSurvey());
+    }
+    
+    @Benchmark
+    public Survey deserializeSurvey() throws IOException {
+        return objectMapper.readValue(surveyJson, Survey.class);
+    }
+    
+    @Benchmark
+    public TranslationResponseParser.ParsedReply parseResponse() {
+        return responseParser.parse(Flux.just(modelResponse)).block();
+    }
+    
+    @Benchmark
+    public TranslationResponseParser.ParsedReply parseStreamedResponse() {
+        return responseParser.parse(Flux.fromIterable(modelResponseTokens)).block();
+    }
+    
+    @Benchmark
+    public Survey mergeSegments() {
+        return segmentExtractor.mergeSegments(request.getSurvey(), translatedByPath);
+    }
+}
@@ -0,0 +1,138 @@
+package com.reactivespring.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.benchmark.SurveyFixtures;
+import com.reactivespring.converter.SurveySegmentExtractor;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Closed-loop load generator for {@code POST /translate}: keeps {@code concurrency} requests
+ * in flight until {@code requests} have completed, then prints throughput, latency
+ * percentiles and status counts. Meant to run against the {@code mock-model} profile.
+ *
+ * <pre>
+ * ./gradlew :movies-service:loadTest -PloadTestArgs="--requests=1000 --concurrency=64 --questions=50"
+ * </pre>
+ *
+ * Options: {@code --url}, {@code --requests}, {@code --concurrency}, {@code --questions},
+ * {@code --distinct} (number of distinct surveys; lower values exercise the translation memory
+ * and request coalescing) and {@code --target} (target language).
+ */
+public class TranslationLoadTest {
+    
+    public static void main(String[] args) {
+        Map<String, String> options = parseOptions(args);
+        String url = options.getOrDefault("url", "http://localhost:8080/api/v1/surveys/translate");
+        int requests = Integer.parseInt(options.getOrDefault("requests", "500"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "32"));
+        int questions = Integer.parseInt(options.getOrDefault("questions", "50"));
+        int distinct = Integer.parseInt(options.getOrDefault("distinct", String.valueOf(requests)));
+        String target = options.getOrDefault("target", "es");
+        
+        List<SurveyTranslationRequest> bodies = distinctRequests(questions, distinct, target);
+        
+        WebClient client = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(
+                        ConnectionProvider.builder("load-test").maxConnections(concurrency).build())))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build();
+        
+        System.out.printf("POST %s: %d requests, concurrency %d, %d questions, %d distinct surveys%n",
+                url, requests, concurrency, questions, bodies.size());
+        
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(requests));
+        Map<String, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        
+        Flux.range(0, requests)
+                .flatMap(i -> {
+                    long sent = System.nanoTime();
+                    return client.post()
+                            .uri(url)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(bodies.get(i % bodies.size()))
+                            .exchangeToMono(response -> response.releaseBody()
+                                    .thenReturn(String.valueOf(response.rawStatusCode())))
+                            .onErrorResume(error -> Mono.just(error.getClass().getSimpleName()))
+                            .doOnNext(outcome -> {
+                                latencies.add(System.nanoTime() - sent);
+                                outcomes.computeIfAbsent(outcome, key -> new AtomicInteger()).incrementAndGet();
+                            });
+                }, concurrency)
+                .blockLast();
+        
+        report(latencies, outcomes, Duration.ofNanos(System.nanoTime() - start));
+    }
+    
+    /**
+     * The generated survey, with every text suffixed per copy so copies do not share translations.
+     */
+    private static List<SurveyTranslationRequest> distinctRequests(int questions, int distinct, String target) {
+        SurveyTranslationRequest template = SurveyFixtures.request(questions);
+        template.setTargetLanguage(target);
+        
+        SurveySegmentExtractor extractor = new SurveySegmentExtractor(new ObjectMapper().findAndRegisterModules());
+        List<TextSegment> segments = extractor.extractSegments(template.getSurvey(), template.getOptions());
+        
+        List<SurveyTranslationRequest> requests = new ArrayList<>();
+        for (int copy = 0; copy < Math.max(1, distinct); copy++) {
+            Map<String, String> variant = new HashMap<>();
+            for (TextSegment segment : segments) {
+                variant.put(segment.getPath(), segment.getText() + " #" + copy);
+            }
+            requests.add(SurveyTranslationRequest.builder()
+                    .survey(extractor.mergeSegments(template.getSurvey(), variant))
+                    .sourceLanguage(template.getSourceLanguage())
+                    .targetLanguage(target)
+                    .options(template.getOptions())
+                    .build());
+        }
+        return requests;
+    }
+    
+    private static void report(List<Long> latencies, Map<String, AtomicInteger> outcomes, Duration elapsed) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        
+        System.out.printf("Completed %d requests in %.1f s (%.1f req/s)%n",
+                sorted.size(), elapsed.toMillis() / 1000.0, sorted.size() * 1000.0 / Math.max(1, elapsed.toMillis()));
+        System.out.printf("Latency ms: p50 %d, p90 %d, p95 %d, p99 %d, max %d%n",
+                percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 95),
+                percentile(sorted, 99), percentile(sorted, 100));
+        System.out.println("Outcomes: " + new TreeMap<>(outcomes));
+    }
+    
+    private static long percentile(List<Long> sorted, double percentile) {
+        if (sorted.isEmpty()) return 0;
+        int index = (int) Math.ceil(percentile / 100 * sorted.size()) - 1;
+        return Duration.ofNanos(sorted.get(Math.max(0, index))).toMillis();
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,44 @@
+package com.reactivespring.config;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.stream.Collectors;
+
+/**
+ * Text of a chat message by its type, in place of the deprecated {@link ChatMessage#text()}.
+ */
+final class ChatMessages {
+    
+    private ChatMessages() {
+    }
+    
+    static String text(ChatMessage message) {
+        if (message instanceof UserMessage) {
+            UserMessage userMessage = (UserMessage) message;
+            if (userMessage.hasSingleText()) {
+                return userMessage.singleText();
+            }
+            // Images and other non-text contents carry no prompt text
+            return userMessage.contents().stream()
+                    .filter(TextContent.class::isInstance)
+                    .map(content -> ((TextContent) content).text())
+                    .collect(Collectors.joining("\n"));
+        }
+        if (message instanceof AiMessage) {
+            String text = ((AiMessage) message).text();
+            return text != null ? text : "";
+        }
+        if (message instanceof SystemMessage) {
+            return ((SystemMessage) message).text();
+        }
+        if (message instanceof ToolExecutionResultMessage) {
+            return ((ToolExecutionResultMessage) message).text();
+        }
+        return "";
+    }
+}
@@ -1,18 +1,34 @@
 package com.reactivespring.config;
 
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import dev.langchain4j.model.output.Response;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
+@Profile("!mock-model")
+@EnableConfigurationProperties(ModelBackendProperties.class)
 @Slf4j
 public class LangChain4jConfig {
     
+    private final ModelBackendProperties backendProperties;
+    
     @Value("${openai.api.key:#{null}}")
     private String openAiApiKey;
     
@@ -28,8 +44,19 @@ public class LangChain4jConfig {
     @Value("${openai.temperature:0.3}")
     private double temperature;
     
+    @Value("${openai.streaming.enabled:false}")
+    private boolean streamingEnabled;
+    
+    public LangChain4jConfig(ModelBackendProperties backendProperties) {
+        this.backendProperties = backendProperties;
+    }
+    
     @Bean
     public ChatLanguageModel chatLanguageModel() {
+        if (!backendProperties.getBackends().isEmpty()) {
+            return routingChatLanguageModel();
+        }
+        
         if (openAiApiKey == null || openAiApiKey.trim().isEmpty()) {
             log.warn("OpenAI API key is not configured. Using mock implementation.");
             return new MockChatLanguageModel();
@@ -47,55 +74,129 @@ public class LangChain4jConfig {
     }
     
     /**
-     * Mock implementation for development/testing when OpenAI API key is not available
+     * Non-blocking alternative to {@link #chatLanguageModel()}: tokens are pushed to a callback
+     * from the HTTP client, so no thread is parked while the model is generating.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "openai.streaming.enabled", havingValue = "true")
+    public StreamingChatLanguageModel streamingChatLanguageModel(ChatLanguageModel chatLanguageModel) {
+        if (chatLanguageModel instanceof RoutingChatLanguageModel) {
+            return ((RoutingChatLanguageModel) chatLanguageModel).streaming();
+        }
+        
+        if (openAiApiKey == null || openAiApiKey.trim().isEmpty()) {
+            log.warn("OpenAI API key is not configured. Using mock streaming implementation.");
+            return new MockStreamingChatLanguageModel(new MockChatLanguageModel());
+        }
+        
+        log.info("Initializing OpenAI Streaming Chat Model with model: {}", modelName);
+        
+        return OpenAiStreamingChatModel.builder()
+                .apiKey(openAiApiKey)
+                .modelName(modelName)
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .maxTokens(maxTokens)
+                .temperature(temperature)
+                .build();
+    }
+    
+    /**
+     * Router over the backends listed under {@code openai.backends}; each backend gets its own
+     * blocking and, when streaming is enabled, streaming client.
+     */
+    private RoutingChatLanguageModel routingChatLanguageModel() {
+        List<ModelBackend> backends = new ArrayList<>();
+        for (ModelBackendProperties.Backend backend : backendProperties.getBackends()) {
+            log.info("Adding model backend {}: {} at {}, up to {} prompt tokens", backend.getName(), backend.getModelName(),
+                    backend.getBaseUrl() != null ? backend.getBaseUrl() : "OpenAI", backend.getMaxPromptTokens());
+            
+            ChatLanguageModel chatModel;
+            StreamingChatLanguageModel streamingModel = null;
+            if (isBlank(backend.getApiKey()) && isBlank(backend.getBaseUrl())) {
+                log.warn("Model backend {} has no API key or base URL. Using mock implementation.", backend.getName());
+                chatModel = new MockChatLanguageModel();
+                if (streamingEnabled) {
+                    streamingModel = new MockStreamingChatLanguageModel(chatModel);
+                }
+            } else {
+                // Local OpenAI-compatible servers usually accept any key
+                String apiKey = isBlank(backend.getApiKey()) ? "none" : backend.getApiKey();
+                chatModel = OpenAiChatModel.builder()
+                        .baseUrl(backend.getBaseUrl())
+                        .apiKey(apiKey)
+                        .modelName(backend.getModelName())
+                        .timeout(Duration.ofSeconds(timeoutSeconds))
+                        .maxTokens(backend.getMaxTokens())
+                        .temperature(temperature)
+                        .build();
+                if (streamingEnabled) {
+                    streamingModel = OpenAiStreamingChatModel.builder()
+                            .baseUrl(backend.getBaseUrl())
+                            .apiKey(apiKey)
+                            .modelName(backend.getModelName())
+                            .timeout(Duration.ofSeconds(timeoutSeconds))
+                            .maxTokens(backend.getMaxTokens())
+                            .temperature(temperature)
+                            .build();
+                }
+            }
+            
+            backends.add(new ModelBackend(backend.getName(), chatModel, streamingModel,
+                    backend.getMaxPromptTokens(), backend.getRequestsPerMinute(), backend.getExpectedLatencyMs()));
+        }
+        return new RoutingChatLanguageModel(backends,
+                TimeUnit.MILLISECONDS.toNanos(backendProperties.getRateLimitCooldownMs()));
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+    
+    /**
+     * Mock implementation for development/testing when OpenAI API key is not available.
+     * Echoes the segment object of the prompt back unchanged.
      */
     private static class MockChatLanguageModel implements ChatLanguageModel {
         
+        @Override
+        public Response<AiMessage> generate(List<ChatMessage> messages) {
+            return Response.from(AiMessage.from(generate(ChatMessages.text(messages.get(messages.size() - 1)))));
+        }
+        
         @Override
         public String generate(String message) {
             log.info("Mock translation service called with message length: {}", message.length());
             
-            // Return a mock translated survey JSON
-            return "{\n" +
-                   "  \"title\": \"Translated Survey Title\",\n" +
-                   "  \"language\": \"es\",\n" +
-                   "  \"introductionBlock\": {\n" +
-                   "    \"title\": \"Título de Introducción\",\n" +
-                   "    \"description\": \"Descripción traducida\",\n" +
-                   "    \"welcomeMessage\": \"Mensaje de bienvenida traducido\"\n" +
-                   "  },\n" +
-                   "  \"contentBlock\": {\n" +
-                   "    \"sections\": [\n" +
-                   "      {\n" +
-                   "        \"title\": \"Sección Traducida\",\n" +
-                   "        \"description\": \"Descripción de la sección\",\n" +
-                   "        \"categories\": [\n" +
-                   "          {\n" +
-                   "            \"name\": \"Categoría Traducida\",\n" +
-                   "            \"questions\": [\n" +
-                   "              {\n" +
-                   "                \"questionText\": \"¿Pregunta traducida?\",\n" +
-                   "                \"type\": \"SINGLE_CHOICE\",\n" +
-                   "                \"choices\": [\n" +
-                   "                  {\n" +
-                   "                    \"text\": \"Opción 1 traducida\"\n" +
-                   "                  },\n" +
-                   "                  {\n" +
-                   "                    \"text\": \"Opción 2 traducida\"\n" +
-                   "                  }\n" +
-                   "                ]\n" +
-                   "              }\n" +
-                   "            ]\n" +
-                   "          }\n" +
-                   "        ]\n" +
-                   "      }\n" +
-                   "    ]\n" +
-                   "  },\n" +
-                   "  \"footerBlock\": {\n" +
-                   "    \"thankYouMessage\": \"Mensaje de agradecimiento\",\n" +
-                   "    \"submitButtonText\": \"Enviar\"\n" +
-                   "  }\n" +
-                   "}";
+            // The segment object is serialized on the last line of the prompt
+            String segments = message.substring(message.lastIndexOf('\n') + 1);
+            return segments.startsWith("{") ? segments : "{}";
+        }
+    }
+    
+    /**
+     * Streams the mock reply in small chunks to exercise the token-streaming path.
+     */
+    private static class MockStreamingChatLanguageModel implements StreamingChatLanguageModel {
+        
+        private static final int CHUNK_SIZE = 16;
+        
+        private final ChatLanguageModel delegate;
+        
+        MockStreamingChatLanguageModel(ChatLanguageModel delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+            try {
+                String reply = delegate.generate(messages).content().text();
+                for (int i = 0; i < reply.length(); i += CHUNK_SIZE) {
+                    handler.onNext(reply.substring(i, Math.min(reply.length(), i + CHUNK_SIZE)));
+                }
+                handler.onComplete(Response.from(AiMessage.from(reply)));
+            } catch (Exception e) {
+                handler.onError(e);
+            }
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+package com.reactivespring.config;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One configured chat model backend and the live statistics the router selects by: an EWMA
+ * of its whole-call latency, an EWMA of its error rate that decays while it is not called, the calls
+ * left in its per-minute budget, and a cool-down after it answered HTTP 429.
+ */
+class ModelBackend {
+    
+    private static final double ALPHA = 0.2;
+    private static final long ERROR_HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final long BUDGET_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    
+    private final String name;
+    private final ChatLanguageModel chatModel;
+    private final StreamingChatLanguageModel streamingModel;
+    private final int maxPromptTokens;
+    private final int requestsPerMinute;
+    
+    private final Deque<Long> recentCalls = new ArrayDeque<>();
+    private double latencyMs;
+    private double errorRate;
+    private long errorRateUpdatedAt = System.nanoTime();
+    private long cooldownUntil = System.nanoTime();
+    
+    ModelBackend(String name, ChatLanguageModel chatModel, StreamingChatLanguageModel streamingModel,
+                 int maxPromptTokens, int requestsPerMinute, long expectedLatencyMs) {
+        this.name = name;
+        this.chatModel = chatModel;
+        this.streamingModel = streamingModel;
+        this.maxPromptTokens = maxPromptTokens;
+        this.requestsPerMinute = requestsPerMinute;
+        this.latencyMs = expectedLatencyMs;
+    }
+    
+    String getName() {
+        return name;
+    }
+    
+    ChatLanguageModel getChatModel() {
+        return chatModel;
+    }
+    
+    StreamingChatLanguageModel getStreamingModel() {
+        return streamingModel;
+    }
+    
+    int getMaxPromptTokens() {
+        return maxPromptTokens;
+    }
+    
+    boolean fits(int promptTokens) {
+        return promptTokens <= maxPromptTokens;
+    }
+    
+    /**
+     * Whether the backend is out of its cool-down and has budget left this minute.
+     */
+    synchronized boolean isAvailable(long now) {
+        return now - cooldownUntil >= 0 && (requestsPerMinute <= 0 || callsInWindow(now) < requestsPerMinute);
+    }
+    
+    /**
+     * Expected latency, inflated by the recent error rate and by how much of the budget is used,
+     * so calls spread across backends of the same class before any of them runs dry.
+     */
+    synchronized double score(long now) {
+        double budgetUsed = requestsPerMinute <= 0 ? 0 : (double) callsInWindow(now) / requestsPerMinute;
+        return latencyMs * (1 + 4 * errorRate(now)) * (1 + budgetUsed);
+    }
+    
+    synchronized double errorRate(long now) {
+        return errorRate * Math.pow(0.5, (double) (now - errorRateUpdatedAt) / ERROR_HALF_LIFE_NANOS);
+    }
+    
+    synchronized void callStarted(long now) {
+        if (requestsPerMinute > 0) {
+            recentCalls.addLast(now);
+        }
+    }
+    
+    synchronized void recordSuccess(long latencyNanos, long now) {
+        latencyMs = ALPHA * TimeUnit.NANOSECONDS.toMillis(latencyNanos) + (1 - ALPHA) * latencyMs;
+        updateErrorRate(0, now);
+    }
+    
+    synchronized void recordFailure(boolean rateLimited, long cooldownNanos, long now) {
+        updateErrorRate(1, now);
+        if (rateLimited) {
+            cooldownUntil = now + cooldownNanos;
+        }
+    }
+    
+    private void updateErrorRate(double sample, long now) {
+        errorRate = ALPHA * sample + (1 - ALPHA) * errorRate(now);
+        errorRateUpdatedAt = now;
+    }
+    
+    private int callsInWindow(long now) {
+        while (!recentCalls.isEmpty() && now - recentCalls.peekFirst() >= BUDGET_WINDOW_NANOS) {
+            recentCalls.pollFirst();
+        }
+        return recentCalls.size();
+    }
+}
@@ -0,0 +1,42 @@
+package com.reactivespring.config;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chat model backends to route between, bound from {@code openai.backends}. When the list is
+ * empty the single model configured by {@code openai.api.key} and {@code openai.model.name} is used.
+ */
+@Data
+@NoArgsConstructor
+@ConfigurationProperties(prefix = "openai")
+public class ModelBackendProperties {
+    
+    private List<Backend> backends = new ArrayList<>();
+    
+    /**
+     * How long a backend is skipped after it answered HTTP 429.
+     */
+    private long rateLimitCooldownMs = 30000;
+    
+    @Data
+    @NoArgsConstructor
+    public static class Backend {
+        private String name;
+        private String apiKey;
+        /** OpenAI-compatible endpoint, e.g. a local model server; the OpenAI API when unset. */
+        private String baseUrl;
+        private String modelName = "gpt-3.5-turbo";
+        /** Largest prompt routed to this backend; small prompts prefer the backend with the smallest limit that fits. */
+        private int maxPromptTokens = 4000;
+        private int maxTokens = 4000;
+        /** Requests per minute allowed by the backend's rate limit; 0 for no limit. */
+        private int requestsPerMinute;
+        /** Latency assumed until the first calls have been measured. */
+        private long expectedLatencyMs = 1000;
+    }
+}
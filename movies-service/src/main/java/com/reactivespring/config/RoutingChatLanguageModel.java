@@ -0,0 +1,148 @@
+package com.reactivespring.config;
+
+import dev.ai4j.openai4j.OpenAiHttpException;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Spreads chat model calls over a pool of backends. Each call goes to the backend with the
+ * smallest {@code max-prompt-tokens} that fits the prompt, so small surveys reach the fast,
+ * cheap models and large ones the long-context models; within that size class the backend
+ * with the best score (latency, error rate, budget used) is chosen. Backends cooling down
+ * after HTTP 429, out of budget or mostly failing are passed over for the next class up.
+ */
+@Slf4j
+class RoutingChatLanguageModel implements ChatLanguageModel {
+    
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final double MAX_ERROR_RATE = 0.5;
+    
+    private final List<ModelBackend> backends;
+    private final long cooldownNanos;
+    
+    RoutingChatLanguageModel(List<ModelBackend> backends, long cooldownNanos) {
+        this.backends = new ArrayList<>(backends);
+        this.backends.sort(Comparator.comparingInt(ModelBackend::getMaxPromptTokens));
+        this.cooldownNanos = cooldownNanos;
+    }
+    
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        long start = System.nanoTime();
+        ModelBackend backend = select(promptTokens(messages), start);
+        backend.callStarted(start);
+        try {
+            Response<AiMessage> response = backend.getChatModel().generate(messages);
+            backend.recordSuccess(System.nanoTime() - start, System.nanoTime());
+            return response;
+        } catch (RuntimeException e) {
+            recordFailure(backend, e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Streaming counterpart sharing this router's backends and statistics. Latency is measured
+     * to the last token, as for blocking calls, so both kinds of call feed the same average.
+     */
+    StreamingChatLanguageModel streaming() {
+        return this::generateStreaming;
+    }
+    
+    ModelBackend select(int promptTokens, long now) {
+        ModelBackend best = null;
+        ModelBackend fallback = null;
+        for (ModelBackend backend : backends) {
+            if (!backend.fits(promptTokens)) {
+                continue;
+            }
+            if (fallback == null || backend.score(now) < fallback.score(now)) {
+                fallback = backend;
+            }
+            if (!backend.isAvailable(now) || backend.errorRate(now) > MAX_ERROR_RATE) {
+                continue;
+            }
+            if (best == null) {
+                best = backend;
+            } else if (backend.getMaxPromptTokens() == best.getMaxPromptTokens() && backend.score(now) < best.score(now)) {
+                best = backend;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        if (fallback != null) {
+            // Every fitting backend is unhealthy or out of budget; the least bad one still beats failing
+            return fallback;
+        }
+        // Larger than every backend's limit: the largest may still accept it
+        return backends.get(backends.size() - 1);
+    }
+    
+    private void generateStreaming(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+        long start = System.nanoTime();
+        ModelBackend backend = select(promptTokens(messages), start);
+        backend.callStarted(start);
+        
+        try {
+            backend.getStreamingModel().generate(messages, new StreamingResponseHandler<AiMessage>() {
+                
+                @Override
+                public void onNext(String token) {
+                    handler.onNext(token);
+                }
+                
+                @Override
+                public void onComplete(Response<AiMessage> response) {
+                    backend.recordSuccess(System.nanoTime() - start, System.nanoTime());
+                    handler.onComplete(response);
+                }
+                
+                @Override
+                public void onError(Throwable error) {
+                    recordFailure(backend, error);
+                    handler.onError(error);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Failing before the call is even sent, e.g. on a rejected request, counts like failing later
+            recordFailure(backend, e);
+            throw e;
+        }
+    }
+    
+    private void recordFailure(ModelBackend backend, Throwable error) {
+        boolean rateLimited = isRateLimited(error);
+        if (rateLimited) {
+            log.warn("Model backend {} is rate limited, routing around it", backend.getName());
+        }
+        backend.recordFailure(rateLimited, cooldownNanos, System.nanoTime());
+    }
+    
+    private static boolean isRateLimited(Throwable error) {
+        // The HTTP error often reaches here wrapped, e.g. by the streaming client
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OpenAiHttpException) {
+                return ((OpenAiHttpException) cause).code() == 429;
+            }
+        }
+        return false;
+    }
+    
+    private static int promptTokens(List<ChatMessage> messages) {
+        int chars = 0;
+        for (ChatMessage message : messages) {
+            chars += ChatMessages.text(message).length();
+        }
+        return chars / CHARS_PER_TOKEN;
+    }
+}
@@ -0,0 +1,240 @@
+package com.reactivespring.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.ai4j.openai4j.OpenAiHttpException;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stand-in for the chat model under load tests. It answers segment prompts with a
+ * deterministic pseudo-translation of every segment, after a simulated latency, and fails
+ * or truncates a configurable share of the replies. Like a provider's rate limit, calls beyond
+ * {@code maxConcurrentCalls} are refused with HTTP 429.
+ */
+@Slf4j
+class SimulatedChatModel implements ChatLanguageModel {
+    
+    enum LatencyDistribution { FIXED, NORMAL, LONG_TAIL }
+    
+    private static final Pattern LANGUAGE_PAIR = Pattern.compile("from (\\S+) to (\\S+?)\\.");
+    private static final int CHARS_PER_TOKEN = 4;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyDistribution distribution;
+    private final long meanMs;
+    private final long stddevMs;
+    private final double tailSigma;
+    private final double tokensPerSecond;
+    private final double errorRate;
+    private final double truncationRate;
+    private final int maxConcurrentCalls;
+    private final Random random;
+    private final AtomicInteger activeCalls = new AtomicInteger();
+    
+    SimulatedChatModel(LatencyDistribution distribution, long meanMs, long stddevMs, double tailSigma,
+                       double tokensPerSecond, double errorRate, double truncationRate, int maxConcurrentCalls, long seed) {
+        this.distribution = distribution;
+        this.meanMs = meanMs;
+        this.stddevMs = stddevMs;
+        this.tailSigma = tailSigma;
+        this.tokensPerSecond = tokensPerSecond;
+        this.errorRate = errorRate;
+        this.truncationRate = truncationRate;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.random = new Random(seed);
+    }
+    
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        return Response.from(AiMessage.from(generate(ChatMessages.text(messages.get(messages.size() - 1)))));
+    }
+    
+    @Override
+    public String generate(String prompt) {
+        admit();
+        try {
+            Reply reply = plan(prompt);
+            Thread.sleep(reply.firstTokenMs + reply.tokens.size() * reply.msPerToken);
+            if (reply.failure != null) {
+                throw reply.failure;
+            }
+            return String.join("", reply.tokens);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating model latency", e);
+        } finally {
+            activeCalls.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Counts the call as active, or refuses it when {@code maxConcurrentCalls} are already running.
+     */
+    void admit() {
+        if (activeCalls.incrementAndGet() > maxConcurrentCalls && maxConcurrentCalls > 0) {
+            activeCalls.decrementAndGet();
+            throw new OpenAiHttpException(429, "Simulated rate limit: more than " + maxConcurrentCalls + " concurrent calls");
+        }
+    }
+    
+    /**
+     * Decides up front how the reply to this prompt behaves: its text split into tokens,
+     * its latency, and whether it fails part-way.
+     */
+    Reply plan(String prompt) {
+        String text = truncate(pseudoTranslate(prompt));
+        
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += CHARS_PER_TOKEN) {
+            tokens.add(text.substring(i, Math.min(text.length(), i + CHARS_PER_TOKEN)));
+        }
+        
+        RuntimeException failure = null;
+        if (chance(errorRate)) {
+            failure = new OpenAiHttpException(503, "Simulated model failure");
+            tokens = tokens.subList(0, nextInt(tokens.size() + 1));
+        }
+        
+        long msPerToken = tokensPerSecond <= 0 ? 0 : Math.round(1000 / tokensPerSecond);
+        return new Reply(tokens, firstTokenLatencyMs(), msPerToken, failure);
+    }
+    
+    private String pseudoTranslate(String prompt) {
+        Matcher languages = LANGUAGE_PAIR.matcher(prompt);
+        String target = languages.find() ? languages.group(2) : "xx";
+        
+        // The segment object is serialized on the last line of the prompt
+        String segments = prompt.substring(prompt.lastIndexOf('\n') + 1);
+        Map<String, String> translated = new LinkedHashMap<>();
+        try {
+            Map<String, String> source = objectMapper.readValue(segments, new TypeReference<Map<String, String>>() {});
+            source.forEach((key, value) -> translated.put(key, "[" + target + "] " + accent(value)));
+            return "```json\n" + objectMapper.writeValueAsString(translated) + "\n```";
+        } catch (Exception e) {
+            log.warn("Simulated model received a prompt without a segment object");
+            return "{}";
+        }
+    }
+    
+    private String truncate(String text) {
+        if (!chance(truncationRate) || text.length() < 2) {
+            return text;
+        }
+        // Stop somewhere in the middle, as a reply cut off by the token limit would
+        return text.substring(0, text.length() / 4 + nextInt(text.length() / 2));
+    }
+    
+    private long firstTokenLatencyMs() {
+        switch (distribution) {
+            case NORMAL:
+                return Math.max(0, Math.round(meanMs + nextGaussian() * stddevMs));
+            case LONG_TAIL:
+                // Log-normal with the configured mean; tailSigma sets how heavy the tail is
+                return Math.round(meanMs * Math.exp(tailSigma * nextGaussian() - tailSigma * tailSigma / 2));
+            default:
+                return meanMs;
+        }
+    }
+    
+    private static String accent(String text) {
+        StringBuilder accented = new StringBuilder(text.length());
+        for (char c : text.toCharArray()) {
+            switch (c) {
+                case 'a': accented.append('\u00e1'); break;
+                case 'e': accented.append('\u00e9'); break;
+                case 'i': accented.append('\u00ed'); break;
+                case 'o': accented.append('\u00f3'); break;
+                case 'u': accented.append('\u00fa'); break;
+                default: accented.append(c);
+            }
+        }
+        return accented.toString();
+    }
+    
+    private boolean chance(double rate) {
+        synchronized (random) {
+            return rate > 0 && random.nextDouble() < rate;
+        }
+    }
+    
+    private int nextInt(int bound) {
+        synchronized (random) {
+            return bound <= 0 ? 0 : random.nextInt(bound);
+        }
+    }
+    
+    private double nextGaussian() {
+        synchronized (random) {
+            return random.nextGaussian();
+        }
+    }
+    
+    static class Reply {
+        final List<String> tokens;
+        final long firstTokenMs;
+        final long msPerToken;
+        final RuntimeException failure;
+        
+        Reply(List<String> tokens, long firstTokenMs, long msPerToken, RuntimeException failure) {
+            this.tokens = tokens;
+            this.firstTokenMs = firstTokenMs;
+            this.msPerToken = msPerToken;
+            this.failure = failure;
+        }
+    }
+    
+    /**
+     * Streams the simulated reply token by token at the configured token rate, on timers
+     * rather than a parked thread, like the real streaming client.
+     */
+    static class Streaming implements StreamingChatLanguageModel {
+        
+        private final SimulatedChatModel model;
+        
+        Streaming(SimulatedChatModel model) {
+            this.model = model;
+        }
+        
+        @Override
+        public void generate(List<ChatMessage> messages, StreamingResponseHandler<AiMessage> handler) {
+            try {
+                model.admit();
+            } catch (OpenAiHttpException e) {
+                handler.onError(e);
+                return;
+            }
+            Reply reply = model.plan(ChatMessages.text(messages.get(messages.size() - 1)));
+            
+            Flux<String> tokens = Flux.fromIterable(reply.tokens);
+            if (reply.msPerToken > 0) {
+                tokens = tokens.delayElements(Duration.ofMillis(reply.msPerToken));
+            }
+            Flux<String> stream = reply.failure == null ? tokens : tokens.concatWith(Mono.error(reply.failure));
+            
+            Mono.delay(Duration.ofMillis(reply.firstTokenMs))
+                    .thenMany(stream)
+                    .doFinally(signal -> model.activeCalls.decrementAndGet())
+                    .subscribe(handler::onNext,
+                            handler::onError,
+                            () -> handler.onComplete(Response.from(AiMessage.from(String.join("", reply.tokens)))));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.reactivespring.config;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Replaces the OpenAI models with {@link SimulatedChatModel} under the {@code mock-model}
+ * profile, so the whole pipeline can be load-tested offline. See {@code application-mock-model.yml}.
+ */
+@Configuration
+@Profile("mock-model")
+@Slf4j
+public class SimulatedModelConfig {
+    
+    @Value("${translation.mock.latency.distribution:long-tail}")
+    private String latencyDistribution;
+    
+    @Value("${translation.mock.latency.mean-ms:800}")
+    private long meanMs;
+    
+    @Value("${translation.mock.latency.stddev-ms:200}")
+    private long stddevMs;
+    
+    @Value("${translation.mock.latency.tail-sigma:1.0}")
+    private double tailSigma;
+    
+    @Value("${translation.mock.tokens-per-second:60}")
+    private double tokensPerSecond;
+    
+    @Value("${translation.mock.error-rate:0.0}")
+    private double errorRate;
+    
+    @Value("${translation.mock.truncation-rate:0.0}")
+    private double truncationRate;
+    
+    @Value("${translation.mock.max-concurrent-calls:0}")
+    private int maxConcurrentCalls;
+    
+    @Value("${translation.mock.seed:42}")
+    private long seed;
+    
+    @Bean
+    public SimulatedChatModel chatLanguageModel() {
+        log.warn("Using simulated chat model: {} latency, mean {} ms, {} tokens/s, error rate {}, truncation rate {}, max {} concurrent calls",
+                latencyDistribution, meanMs, tokensPerSecond, errorRate, truncationRate, maxConcurrentCalls);
+        
+        return new SimulatedChatModel(
+                SimulatedChatModel.LatencyDistribution.valueOf(latencyDistribution.toUpperCase().replace('-', '_')),
+                meanMs, stddevMs, tailSigma, tokensPerSecond, errorRate, truncationRate, maxConcurrentCalls, seed);
+    }
+    
+    @Bean
+    @ConditionalOnProperty(name = "openai.streaming.enabled", havingValue = "true")
+    public StreamingChatLanguageModel streamingChatLanguageModel(SimulatedChatModel chatLanguageModel) {
+        return new SimulatedChatModel.Streaming(chatLanguageModel);
+    }
+}
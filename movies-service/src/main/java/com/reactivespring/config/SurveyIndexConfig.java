@@ -0,0 +1,40 @@
+package com.reactivespring.config;
+
+import com.reactivespring.domain.Survey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+
+/**
+ * Creates the text index that survey title search runs on. It is not declared with
+ * {@code @TextIndexed}: MongoDB would then read each survey's {@code language} field as the
+ * language to stem its title in, and reject surveys in languages it has no stemmer for.
+ * Titles are indexed word by word without stemming instead, whatever their language.
+ */
+@Slf4j
+@Configuration
+public class SurveyIndexConfig {
+    
+    private final ReactiveMongoTemplate mongoTemplate;
+    
+    public SurveyIndexConfig(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void createTitleTextIndex() {
+        TextIndexDefinition index = new TextIndexDefinition.TextIndexDefinitionBuilder()
+                .named("title_text")
+                .onField("title")
+                .withDefaultLanguage("none")
+                .withLanguageOverride("textLanguage")
+                .build();
+        mongoTemplate.indexOps(Survey.class)
+                .ensureIndex(index)
+                .subscribe(name -> log.info("Survey title index {} is in place", name),
+                        error -> log.error("Failed to create the survey title index", error));
+    }
+}
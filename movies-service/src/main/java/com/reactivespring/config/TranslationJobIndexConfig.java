@@ -0,0 +1,46 @@
+package com.reactivespring.config;
+
+import com.reactivespring.domain.TranslationJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+import java.time.Duration;
+
+/**
+ * Creates the TTL index that removes finished translation jobs, request survey and result
+ * included, {@code translation.jobs.retention-minutes} after they completed; jobs still queued or
+ * running have no {@code completedAt} and are kept. It is created here rather than with
+ * {@code @Indexed(expireAfter)} so that it follows the same retention setting as the in-memory
+ * copy of each job. Changing the setting needs the old {@code completedAt_ttl} index dropped first.
+ */
+@Slf4j
+@Configuration
+public class TranslationJobIndexConfig {
+    
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final Duration retention;
+    
+    public TranslationJobIndexConfig(ReactiveMongoTemplate mongoTemplate,
+                                     @Value("${translation.jobs.retention-minutes:60}") long retentionMinutes) {
+        this.mongoTemplate = mongoTemplate;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void createCompletedAtTtlIndex() {
+        Index index = new Index()
+                .named("completedAt_ttl")
+                .on("completedAt", Sort.Direction.ASC)
+                .expire(retention);
+        mongoTemplate.indexOps(TranslationJob.class)
+                .ensureIndex(index)
+                .subscribe(name -> log.info("Translation job TTL index {} is in place", name),
+                        error -> log.error("Failed to create the translation job TTL index", error));
+    }
+}
@@ -0,0 +1,128 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.SurveyImportResult;
+import com.reactivespring.dto.SurveySummary;
+import com.reactivespring.dto.SurveyUpdateResponse;
+import com.reactivespring.dto.TranslationVariantRequest;
+import com.reactivespring.repository.SurveyRepository;
+import com.reactivespring.service.StoredTranslationService;
+import com.reactivespring.service.SurveyImportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/surveys")
+@Validated
+@Slf4j
+public class SurveyController {
+    
+    private static final int MAX_PAGE_SIZE = 100;
+    
+    private final SurveyRepository surveyRepository;
+    private final StoredTranslationService storedTranslationService;
+    private final SurveyImportService surveyImportService;
+    
+    public SurveyController(SurveyRepository surveyRepository,
+                            StoredTranslationService storedTranslationService,
+                            SurveyImportService surveyImportService) {
+        this.surveyRepository = surveyRepository;
+        this.storedTranslationService = storedTranslationService;
+        this.surveyImportService = surveyImportService;
+    }
+    
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Survey> createSurvey(@Valid @RequestBody Survey survey) {
+        survey.setId(null);
+        survey.setSourceSurveyId(null);
+        survey.setTranslationOptions(null);
+        survey.setCreatedAt(LocalDateTime.now());
+        return surveyRepository.save(survey);
+    }
+    
+    /**
+     * Imports surveys uploaded as NDJSON, one survey per line, and streams back one result per
+     * survey as it is stored. Each survey is optionally translated into {@code translateTo}.
+     */
+    @PostMapping(value = "/import",
+                 consumes = MediaType.APPLICATION_NDJSON_VALUE,
+                 produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<SurveyImportResult> importSurveys(@RequestBody Flux<Survey> surveys,
+                                                  @RequestParam(required = false) List<String> translateTo) {
+        log.info("Received survey import{}", translateTo != null ? " with translation to " + translateTo : "");
+        return surveyImportService.importSurveys(surveys, translateTo);
+    }
+    
+    /**
+     * Lists survey summaries newest first, a page at a time. The next page starts after the id
+     * of the last summary of this one.
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<SurveySummary> listSurveys(@RequestParam(required = false) String language,
+                                           @RequestParam(required = false) String createdBy,
+                                           @RequestParam(required = false) String search,
+                                           @RequestParam(required = false) String after,
+                                           @RequestParam(defaultValue = "20") int size) {
+        return surveyRepository.findSummaries(language, createdBy, search, after,
+                Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+    }
+    
+    @GetMapping(value = "/{surveyId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<Survey>> getSurvey(@PathVariable String surveyId) {
+        return surveyRepository.findById(surveyId)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Replaces the source survey and re-translates only the changed text of its stored translations.
+     */
+    @PutMapping(value = "/{surveyId}",
+                consumes = MediaType.APPLICATION_JSON_VALUE,
+                produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<SurveyUpdateResponse> updateSurvey(@PathVariable String surveyId,
+                                                   @Valid @RequestBody Survey survey) {
+        log.info("Received update for survey {}", surveyId);
+        return storedTranslationService.updateSource(surveyId, survey);
+    }
+    
+    /**
+     * Deletes a source survey together with its stored translations.
+     */
+    @DeleteMapping("/{surveyId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public Mono<Void> deleteSurvey(@PathVariable String surveyId) {
+        log.info("Received delete for survey {}", surveyId);
+        return storedTranslationService.deleteSource(surveyId);
+    }
+    
+    @PostMapping(value = "/{surveyId}/translations",
+                 consumes = MediaType.APPLICATION_JSON_VALUE,
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Survey> translateStoredSurvey(@PathVariable String surveyId,
+                                              @Valid @RequestBody TranslationVariantRequest request) {
+        log.info("Received stored translation request for survey {} to {}", surveyId, request.getTargetLanguage());
+        return storedTranslationService.translateAndStore(surveyId, request);
+    }
+    
+    @GetMapping(value = "/{surveyId}/translations", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<Survey> getTranslations(@PathVariable String surveyId) {
+        return storedTranslationService.findTranslations(surveyId);
+    }
+    
+    @GetMapping(value = "/{surveyId}/translations/{language}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Survey> getTranslation(@PathVariable String surveyId, @PathVariable String language) {
+        return storedTranslationService.findTranslation(surveyId, language);
+    }
+}
@@ -1,17 +1,29 @@
 package com.reactivespring.controller;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.reactivespring.domain.TranslationJob;
+import com.reactivespring.dto.BatchTranslationRequest;
+import com.reactivespring.dto.BatchTranslationResponse;
+import com.reactivespring.dto.SurveyTranslationEvent;
 import com.reactivespring.dto.SurveyTranslationRequest;
 import com.reactivespring.dto.SurveyTranslationResponse;
+import com.reactivespring.dto.SupportedLanguages;
+import com.reactivespring.exception.ModelCallRejectedException;
 import com.reactivespring.service.SurveyTranslationService;
+import com.reactivespring.service.TranslationJobService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
+import java.net.URI;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/surveys")
@@ -20,9 +32,12 @@ import javax.validation.Valid;
 public class SurveyTranslationController {
     
     private final SurveyTranslationService translationService;
+    private final TranslationJobService jobService;
     
-    public SurveyTranslationController(SurveyTranslationService translationService) {
+    public SurveyTranslationController(SurveyTranslationService translationService,
+                                       TranslationJobService jobService) {
         this.translationService = translationService;
+        this.jobService = jobService;
     }
     
     @PostMapping(value = "/translate", 
@@ -38,13 +53,56 @@ public class SurveyTranslationController {
                 .map(response -> ResponseEntity.ok()
                         .contentType(MediaType.APPLICATION_JSON)
                         .body(response))
-                .onErrorResume(exception -> {
+                // Rejections are left to the exception handler, which adds a Retry-After header
+                .onErrorResume(exception -> !(exception instanceof ModelCallRejectedException), exception -> {
                     log.error("Translation failed", exception);
                     return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                             .build());
                 });
     }
     
+    @PostMapping(value = "/translate/batch",
+                 consumes = MediaType.APPLICATION_JSON_VALUE,
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<BatchTranslationResponse>> translateSurveyBatch(
+            @Valid @RequestBody BatchTranslationRequest request) {
+        
+        log.info("Received batch translation request from {} to {}", 
+                request.getSourceLanguage(), request.getTargetLanguages());
+        
+        return translationService.translateSurveyBatch(request)
+                .map(ResponseEntity::ok)
+                .onErrorResume(exception -> {
+                    log.error("Batch translation failed", exception);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                            .build());
+                });
+    }
+    
+    @PostMapping(value = "/translate/stream",
+                 consumes = MediaType.APPLICATION_JSON_VALUE,
+                 produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<SurveyTranslationEvent>> translateSurveyStream(
+            @Valid @RequestBody SurveyTranslationRequest request) {
+        
+        log.info("Received streaming translation request from {} to {}", 
+                request.getSourceLanguage(), request.getTargetLanguage());
+        
+        return translationService.translateSurveyStream(request)
+                .map(event -> ServerSentEvent.builder(event)
+                        .event(event.getType())
+                        .build())
+                .onErrorResume(exception -> {
+                    log.error("Streaming translation failed", exception);
+                    return Mono.just(ServerSentEvent.builder(SurveyTranslationEvent.builder()
+                                    .type(SurveyTranslationEvent.ERROR)
+                                    .message("Translation failed")
+                                    .build())
+                            .event(SurveyTranslationEvent.ERROR)
+                            .build());
+                });
+    }
+    
     @PostMapping(value = "/translate/async",
                  consumes = MediaType.APPLICATION_JSON_VALUE,
                  produces = MediaType.APPLICATION_JSON_VALUE)
@@ -54,64 +112,58 @@ public class SurveyTranslationController {
         log.info("Received async translation request from {} to {}", 
                 request.getSourceLanguage(), request.getTargetLanguage());
         
-        // For async processing, you would typically return a job ID
-        // and process the translation in the background
-        String jobId = generateJobId();
-        
-        // Start async processing (fire and forget)
-        translationService.translateSurvey(request)
-                .doOnSuccess(result -> log.info("Async translation completed for job: {}", jobId))
-                .doOnError(error -> log.error("Async translation failed for job: {}", jobId, error))
-                .subscribe();
-        
-        TranslationJobResponse jobResponse = TranslationJobResponse.builder()
-                .jobId(jobId)
-                .status("PROCESSING")
-                .estimatedCompletionTimeMs(30000L) // 30 seconds estimate
-                .build();
-        
-        return Mono.just(ResponseEntity.accepted().body(jobResponse));
+        // Queue the translation; the result is retrieved through /translate/jobs/{jobId}
+        return jobService.submit(request)
+                .map(job -> ResponseEntity.accepted()
+                        .location(URI.create("/api/v1/surveys/translate/jobs/" + job.getId()))
+                        .body(toJobResponse(job)));
+    }
+    
+    @GetMapping(value = "/translate/jobs/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<TranslationJobResponse>> getTranslationJob(@PathVariable String jobId) {
+        return jobService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(toJobResponse(job)))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/translate/languages")
     public Mono<ResponseEntity<SupportedLanguagesResponse>> getSupportedLanguages() {
         SupportedLanguagesResponse response = SupportedLanguagesResponse.builder()
-                .supportedLanguages(java.util.Arrays.asList(
-                        new LanguageInfo("en", "English"),
-                        new LanguageInfo("es", "Spanish"),
-                        new LanguageInfo("fr", "French"),
-                        new LanguageInfo("de", "German"),
-                        new LanguageInfo("it", "Italian"),
-                        new LanguageInfo("pt", "Portuguese"),
-                        new LanguageInfo("ru", "Russian"),
-                        new LanguageInfo("ja", "Japanese"),
-                        new LanguageInfo("ko", "Korean"),
-                        new LanguageInfo("zh", "Chinese"),
-                        new LanguageInfo("ar", "Arabic"),
-                        new LanguageInfo("hi", "Hindi"),
-                        new LanguageInfo("nl", "Dutch"),
-                        new LanguageInfo("sv", "Swedish"),
-                        new LanguageInfo("no", "Norwegian"),
-                        new LanguageInfo("da", "Danish"),
-                        new LanguageInfo("fi", "Finnish")
-                ))
+                .supportedLanguages(SupportedLanguages.NAMES_BY_CODE.entrySet().stream()
+                        .map(language -> new LanguageInfo(language.getKey(), language.getValue()))
+                        .collect(Collectors.toList()))
                 .build();
         
         return Mono.just(ResponseEntity.ok(response));
     }
     
-    private String generateJobId() {
-        return "job_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
+    private TranslationJobResponse toJobResponse(TranslationJob job) {
+        return TranslationJobResponse.builder()
+                .jobId(job.getId())
+                .status(job.getStatus().name())
+                .estimatedCompletionTimeMs(job.getEstimatedCompletionTimeMs())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .result(job.getResult())
+                .error(job.getError())
+                .build();
     }
     
     @lombok.Data
     @lombok.NoArgsConstructor
     @lombok.AllArgsConstructor
     @lombok.Builder
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     public static class TranslationJobResponse {
         private String jobId;
         private String status;
         private Long estimatedCompletionTimeMs;
+        private java.time.LocalDateTime createdAt;
+        private java.time.LocalDateTime startedAt;
+        private java.time.LocalDateTime completedAt;
+        private SurveyTranslationResponse result;
+        private String error;
     }
     
     @lombok.Data
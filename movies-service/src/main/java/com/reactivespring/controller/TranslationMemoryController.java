@@ -0,0 +1,25 @@
+package com.reactivespring.controller;
+
+import com.reactivespring.dto.TranslationMemoryStats;
+import com.reactivespring.service.TranslationMemoryService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("/api/v1/surveys/translate/memory")
+public class TranslationMemoryController {
+    
+    private final TranslationMemoryService translationMemory;
+    
+    public TranslationMemoryController(TranslationMemoryService translationMemory) {
+        this.translationMemory = translationMemory;
+    }
+    
+    @GetMapping("/stats")
+    public Mono<ResponseEntity<TranslationMemoryStats>> getStats() {
+        return Mono.just(ResponseEntity.ok(translationMemory.getStats()));
+    }
+}
@@ -0,0 +1,113 @@
+package com.reactivespring.converter;
+
+import com.reactivespring.dto.TextSegment;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits survey segments into chunks that fit the model's token budget. Chunks are cut at
+ * category (or, outside the content block, block) boundaries where possible; a single category
+ * larger than the budget is cut between its segments.
+ */
+@Component
+public class SurveyChunker {
+    
+    /**
+     * Rough per-segment cost of the JSON key, quotes and separators around each text.
+     */
+    private static final int SEGMENT_OVERHEAD_TOKENS = 6;
+    
+    private final int maxChunkTokens;
+    
+    public SurveyChunker(@Value("${translation.chunk.max-tokens:1500}") int maxChunkTokens) {
+        this.maxChunkTokens = maxChunkTokens;
+    }
+    
+    public List<List<TextSegment>> chunk(List<TextSegment> segments) {
+        List<List<TextSegment>> chunks = new ArrayList<>();
+        List<TextSegment> current = new ArrayList<>();
+        int currentTokens = 0;
+        
+        for (List<TextSegment> unit : splitIntoUnits(segments)) {
+            int unitTokens = estimateTokens(unit);
+            
+            if (currentTokens + unitTokens > maxChunkTokens && !current.isEmpty()) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            
+            if (unitTokens <= maxChunkTokens) {
+                current.addAll(unit);
+                currentTokens += unitTokens;
+                continue;
+            }
+            
+            // Oversized category: fall back to cutting between its segments
+            for (TextSegment segment : unit) {
+                int segmentTokens = estimateTokens(segment);
+                if (currentTokens + segmentTokens > maxChunkTokens && !current.isEmpty()) {
+                    chunks.add(current);
+                    current = new ArrayList<>();
+                    currentTokens = 0;
+                }
+                current.add(segment);
+                currentTokens += segmentTokens;
+            }
+        }
+        
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+    
+    /**
+     * Roughly four characters per token for Latin scripts, plus the JSON framing.
+     */
+    public static int estimateTokens(TextSegment segment) {
+        return segment.getText().length() / 4 + 1 + SEGMENT_OVERHEAD_TOKENS;
+    }
+    
+    public static int estimateTokens(List<TextSegment> segments) {
+        int tokens = 0;
+        for (TextSegment segment : segments) {
+            tokens += estimateTokens(segment);
+        }
+        return tokens;
+    }
+    
+    /**
+     * Groups consecutive segments that share a boundary key (category, section header or block).
+     */
+    private List<List<TextSegment>> splitIntoUnits(List<TextSegment> segments) {
+        List<List<TextSegment>> units = new ArrayList<>();
+        String currentKey = null;
+        
+        for (TextSegment segment : segments) {
+            String key = boundaryKey(segment.getPath());
+            if (!key.equals(currentKey)) {
+                units.add(new ArrayList<>());
+                currentKey = key;
+            }
+            units.get(units.size() - 1).add(segment);
+        }
+        return units;
+    }
+    
+    private static String boundaryKey(String path) {
+        int categories = path.indexOf(".categories[");
+        if (categories != -1) {
+            return path.substring(0, path.indexOf(']', categories) + 1);
+        }
+        if (path.startsWith("contentBlock.sections[")) {
+            return path.substring(0, path.indexOf(']') + 1);
+        }
+        // The survey title travels with the introduction block
+        int blockEnd = path.indexOf('.');
+        return blockEnd == -1 ? "introductionBlock" : path.substring(0, blockEnd);
+    }
+}
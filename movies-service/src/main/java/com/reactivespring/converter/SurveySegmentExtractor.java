@@ -0,0 +1,190 @@
+package com.reactivespring.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Flattens a {@link Survey} into addressable text segments and merges translated
+ * segments back into a copy of the original tree by path.
+ */
+@Component
+public class SurveySegmentExtractor {
+    
+    private static final String SECTIONS_PATH = "contentBlock.sections";
+    
+    private final ObjectMapper objectMapper;
+    
+    public SurveySegmentExtractor(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+    
+    public List<TextSegment> extractSegments(Survey survey, SurveyTranslationRequest.TranslationOptions options) {
+        boolean translateChoiceValues = options != null
+                && Boolean.TRUE.equals(options.getTranslateChoiceValues());
+        boolean translateValidationMessages = options == null
+                || !Boolean.FALSE.equals(options.getTranslateValidationMessages());
+        
+        List<TextSegment> segments = new ArrayList<>();
+        walk(survey, translateChoiceValues, translateValidationMessages, (path, text) -> {
+            segments.add(new TextSegment(path, text));
+            return text;
+        });
+        return segments;
+    }
+    
+    /**
+     * Returns a deep copy of the original survey with every segment found in
+     * {@code translatedByPath} replaced; segments without a translation keep their source text.
+     */
+    public Survey mergeSegments(Survey original, Map<String, String> translatedByPath) {
+        Survey copy = objectMapper.convertValue(original, Survey.class);
+        walk(copy, true, true, (path, text) -> translatedByPath.getOrDefault(path, text));
+        return copy;
+    }
+    
+    /**
+     * Translated copy of the survey title and introduction block only.
+     */
+    public Survey mergeIntroduction(Survey original, Map<String, String> translatedByPath) {
+        Survey header = Survey.builder()
+                .title(original.getTitle())
+                .introductionBlock(objectMapper.convertValue(original.getIntroductionBlock(), Survey.IntroductionBlock.class))
+                .build();
+        header.setTitle(visit("title", header.getTitle(), (path, text) -> translatedByPath.getOrDefault(path, text)));
+        walkIntroduction(header.getIntroductionBlock(), (path, text) -> translatedByPath.getOrDefault(path, text));
+        return header;
+    }
+    
+    /**
+     * Translated copy of a single section, addressed by its index in the content block.
+     */
+    public Survey.Section mergeSection(Survey original, int sectionIndex, Map<String, String> translatedByPath) {
+        Survey.Section section = objectMapper.convertValue(
+                original.getContentBlock().getSections().get(sectionIndex), Survey.Section.class);
+        walkSection(section, sectionPath(sectionIndex), true, true,
+                (path, text) -> translatedByPath.getOrDefault(path, text));
+        return section;
+    }
+    
+    /**
+     * Translated copy of the footer block only.
+     */
+    public Survey.FooterBlock mergeFooter(Survey original, Map<String, String> translatedByPath) {
+        Survey.FooterBlock footer = objectMapper.convertValue(original.getFooterBlock(), Survey.FooterBlock.class);
+        walkFooter(footer, (path, text) -> translatedByPath.getOrDefault(path, text));
+        return footer;
+    }
+    
+    /**
+     * Index of the section a segment path belongs to, or -1 for the title, introduction and footer.
+     */
+    public static int sectionIndexOf(String path) {
+        if (!path.startsWith(SECTIONS_PATH + "[")) return -1;
+        return Integer.parseInt(path.substring(SECTIONS_PATH.length() + 1, path.indexOf(']')));
+    }
+    
+    private static String sectionPath(int sectionIndex) {
+        return SECTIONS_PATH + "[" + sectionIndex + "]";
+    }
+    
+    private void walk(Survey survey,
+                      boolean translateChoiceValues,
+                      boolean translateValidationMessages,
+                      BiFunction<String, String, String> visitor) {
+        
+        survey.setTitle(visit("title", survey.getTitle(), visitor));
+        walkIntroduction(survey.getIntroductionBlock(), visitor);
+        
+        if (survey.getContentBlock() != null && survey.getContentBlock().getSections() != null) {
+            List<Survey.Section> sections = survey.getContentBlock().getSections();
+            for (int s = 0; s < sections.size(); s++) {
+                walkSection(sections.get(s), sectionPath(s), translateChoiceValues, translateValidationMessages, visitor);
+            }
+        }
+        
+        walkFooter(survey.getFooterBlock(), visitor);
+    }
+    
+    private void walkIntroduction(Survey.IntroductionBlock intro, BiFunction<String, String, String> visitor) {
+        if (intro == null) return;
+        intro.setTitle(visit("introductionBlock.title", intro.getTitle(), visitor));
+        intro.setDescription(visit("introductionBlock.description", intro.getDescription(), visitor));
+        intro.setWelcomeMessage(visit("introductionBlock.welcomeMessage", intro.getWelcomeMessage(), visitor));
+        visitAll("introductionBlock.instructions", intro.getInstructions(), visitor);
+    }
+    
+    private void walkSection(Survey.Section section,
+                             String sectionPath,
+                             boolean translateChoiceValues,
+                             boolean translateValidationMessages,
+                             BiFunction<String, String, String> visitor) {
+        
+        section.setTitle(visit(sectionPath + ".title", section.getTitle(), visitor));
+        section.setDescription(visit(sectionPath + ".description", section.getDescription(), visitor));
+        
+        if (section.getCategories() == null) return;
+        for (int c = 0; c < section.getCategories().size(); c++) {
+            Survey.Category category = section.getCategories().get(c);
+            String categoryPath = sectionPath + ".categories[" + c + "]";
+            category.setName(visit(categoryPath + ".name", category.getName(), visitor));
+            category.setDescription(visit(categoryPath + ".description", category.getDescription(), visitor));
+            
+            if (category.getQuestions() == null) continue;
+            for (int q = 0; q < category.getQuestions().size(); q++) {
+                Survey.Question question = category.getQuestions().get(q);
+                String questionPath = categoryPath + ".questions[" + q + "]";
+                question.setQuestionText(visit(questionPath + ".questionText", question.getQuestionText(), visitor));
+                question.setDescription(visit(questionPath + ".description", question.getDescription(), visitor));
+                
+                if (question.getChoices() != null) {
+                    for (int ch = 0; ch < question.getChoices().size(); ch++) {
+                        Survey.Choice choice = question.getChoices().get(ch);
+                        String choicePath = questionPath + ".choices[" + ch + "]";
+                        choice.setText(visit(choicePath + ".text", choice.getText(), visitor));
+                        if (translateChoiceValues) {
+                            choice.setValue(visit(choicePath + ".value", choice.getValue(), visitor));
+                        }
+                    }
+                }
+                
+                if (translateValidationMessages && question.getValidationRules() != null) {
+                    Survey.ValidationRules rules = question.getValidationRules();
+                    rules.setErrorMessage(visit(questionPath + ".validationRules.errorMessage",
+                            rules.getErrorMessage(), visitor));
+                }
+            }
+        }
+    }
+    
+    private void walkFooter(Survey.FooterBlock footer, BiFunction<String, String, String> visitor) {
+        if (footer == null) return;
+        footer.setThankYouMessage(visit("footerBlock.thankYouMessage", footer.getThankYouMessage(), visitor));
+        footer.setSubmitButtonText(visit("footerBlock.submitButtonText", footer.getSubmitButtonText(), visitor));
+        footer.setContactInformation(visit("footerBlock.contactInformation", footer.getContactInformation(), visitor));
+        visitAll("footerBlock.additionalInstructions", footer.getAdditionalInstructions(), visitor);
+    }
+    
+    private String visit(String path, String text, BiFunction<String, String, String> visitor) {
+        return text == null ? null : visitor.apply(path, text);
+    }
+    
+    private void visitAll(String path, List<String> texts, BiFunction<String, String, String> visitor) {
+        if (texts == null) return;
+        for (int i = 0; i < texts.size(); i++) {
+            String text = texts.get(i);
+            String visited = visit(path + "[" + i + "]", text, visitor);
+            // Only write back on change so extraction never touches immutable source lists
+            if (visited != text) {
+                texts.set(i, visited);
+            }
+        }
+    }
+}
@@ -1,73 +1,169 @@
 package com.reactivespring.converter;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.reactivespring.dto.CustomMessage;
 import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Builds translation prompts from precompiled templates. The guidelines shared by every prompt
+ * come first so providers can cache that prefix; the language pair and options follow, compiled
+ * once per combination, and the segments are serialized straight into the prompt buffer.
+ */
 @Slf4j
+@Component
 public class SurveyTranslationMessageConverter {
     
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String GUIDELINES =
+            "You are a professional translator specializing in survey localization. "
+            + "Your task is to translate the text segments of a survey.\n"
+            + "\nThe segments are given as a JSON object mapping a segment key to its text. "
+            + "Segments include survey and section titles, descriptions, instructions, "
+            + "question texts, choice texts and footer messages.\n"
+            + "\nTranslation Guidelines:\n"
+            + "1. Translate every segment value independently\n"
+            + "2. Keep every key unchanged and do not add, merge or drop keys\n"
+            + "\nDO NOT translate:\n"
+            + "- Segment keys\n"
+            + "- Technical values (codes, e-mail addresses, URLs, placeholders)\n"
+            + "\nReturn ONLY a JSON object with the same keys and the translated texts as values.\n";
+    
+    private static final String SEGMENTS_HEADER = "\nSegments to translate:\n";
+    
+    /**
+     * Rough per-segment cost of the key, quotes and separators in the serialized segments.
+     */
+    private static final int SEGMENT_OVERHEAD_CHARS = 12;
+    
+    private static final int MAX_TEMPLATES = 1000;
+    
+    private final ObjectWriter segmentsWriter;
+    private final Cache<TemplateKey, String> templates = Caffeine.newBuilder()
+            .maximumSize(MAX_TEMPLATES)
+            .build();
     
-    public static CustomMessage convertToMessage(SurveyTranslationRequest request) {
+    public SurveyTranslationMessageConverter(ObjectMapper objectMapper) {
+        this.segmentsWriter = objectMapper.writer();
+    }
+    
+    /**
+     * Builds a prompt carrying only the given text segments, keyed by their index in
+     * {@code segments}. The model is expected to answer with a JSON object using the same keys.
+     */
+    public CustomMessage convertToMessage(SurveyTranslationRequest request, List<TextSegment> segments) {
         try {
-            String systemPrompt = buildSystemPrompt(request);
-            String userContent = buildUserContent(request);
+            String template = templates.get(TemplateKey.of(request), SurveyTranslationMessageConverter::compile);
             
-            return CustomMessage.userMessage(systemPrompt + "\n\n" + userContent);
+            StringBuilder prompt = new StringBuilder(template.length() + estimateLength(segments));
+            prompt.append(template);
+            writeSegments(segments, prompt);
             
+            return CustomMessage.userMessage(prompt.toString());
+        
         } catch (Exception e) {
             log.error("Error converting request to message", e);
             throw new RuntimeException("Failed to convert request to message", e);
         }
     }
     
-    private static String buildSystemPrompt(SurveyTranslationRequest request) {
-        StringBuilder prompt = new StringBuilder();
-        prompt.append("You are a professional translator specializing in survey localization. ");
-        prompt.append("Your task is to translate all text content in the provided survey from ");
-        prompt.append(request.getSourceLanguage()).append(" to ").append(request.getTargetLanguage()).append(". ");
+    /**
+     * Everything before the segments: the shared guidelines, then the parts specific to
+     * the language pair and options.
+     */
+    private static String compile(TemplateKey key) {
+        StringBuilder template = new StringBuilder(GUIDELINES.length() + 128);
+        template.append(GUIDELINES);
         
-        prompt.append("\nTranslation Guidelines:\n");
-        prompt.append("1. Maintain the exact JSON structure and field names\n");
-        prompt.append("2. Translate all human-readable text content including:\n");
-        prompt.append("   - Survey title\n");
-        prompt.append("   - Introduction block (title, description, welcome message, instructions)\n");
-        prompt.append("   - Section titles and descriptions\n");
-        prompt.append("   - Category names and descriptions\n");
-        prompt.append("   - Question texts and descriptions\n");
-        prompt.append("   - Choice texts\n");
-        prompt.append("   - Footer content (thank you message, button text, contact info, additional instructions)\n");
+        template.append("\nTranslate from ").append(key.getSourceLanguage())
+                .append(" to ").append(key.getTargetLanguage()).append(".\n");
+        if (key.getTone() != null) {
+            template.append("Use a ").append(key.getTone()).append(" tone.\n");
+        }
+        if (key.getContext() != null) {
+            template.append("Context: ").append(key.getContext()).append("\n");
+        }
         
-        if (request.getOptions() != null) {
-            if (request.getOptions().getTranslateChoiceValues() != null && request.getOptions().getTranslateChoiceValues()) {
-                prompt.append("   - Choice values (when they are human-readable)\n");
-            }
-            if (request.getOptions().getTranslateValidationMessages() != null && request.getOptions().getTranslateValidationMessages()) {
-                prompt.append("   - Validation error messages\n");
-            }
-            if (request.getOptions().getTone() != null) {
-                prompt.append("3. Use a ").append(request.getOptions().getTone()).append(" tone\n");
-            }
-            if (request.getOptions().getContext() != null) {
-                prompt.append("4. Context: ").append(request.getOptions().getContext()).append("\n");
+        template.append(SEGMENTS_HEADER);
+        return template.toString();
+    }
+    
+    private void writeSegments(List<TextSegment> segments, StringBuilder prompt) throws IOException {
+        try (JsonGenerator generator = segmentsWriter.createGenerator(new StringBuilderWriter(prompt))) {
+            generator.writeStartObject();
+            for (int i = 0; i < segments.size(); i++) {
+                generator.writeStringField(String.valueOf(i), segments.get(i).getText());
             }
+            generator.writeEndObject();
         }
+    }
+    
+    private static int estimateLength(List<TextSegment> segments) {
+        int length = 2;
+        for (TextSegment segment : segments) {
+            length += segment.getText().length() + SEGMENT_OVERHEAD_CHARS;
+        }
+        return length;
+    }
+    
+    @lombok.Value
+    private static class TemplateKey {
+        String sourceLanguage;
+        String targetLanguage;
+        String tone;
+        String context;
         
-        prompt.append("\nDO NOT translate:\n");
-        prompt.append("- Field names/keys\n");
-        prompt.append("- Technical values (IDs, enum values, etc.)\n");
-        prompt.append("- Timestamps or metadata\n");
-        prompt.append("- Choice values that are technical codes\n");
-        
-        prompt.append("\nReturn ONLY the translated JSON object with the same structure.");
-        
-        return prompt.toString();
+        static TemplateKey of(SurveyTranslationRequest request) {
+            SurveyTranslationRequest.TranslationOptions options = request.getOptions();
+            return new TemplateKey(
+                    request.getSourceLanguage(),
+                    request.getTargetLanguage(),
+                    options != null ? options.getTone() : null,
+                    options != null ? options.getContext() : null);
+        }
     }
     
-    private static String buildUserContent(SurveyTranslationRequest request) throws JsonProcessingException {
-        return "Survey to translate:\n" + objectMapper.writeValueAsString(request.getSurvey());
+    /**
+     * Unsynchronized writer that appends to the prompt buffer, unlike {@link java.io.StringWriter}.
+     */
+    private static class StringBuilderWriter extends Writer {
+        
+        private final StringBuilder buffer;
+        
+        StringBuilderWriter(StringBuilder buffer) {
+            this.buffer = buffer;
+        }
+        
+        @Override
+        public void write(char[] chars, int offset, int length) {
+            buffer.append(chars, offset, length);
+        }
+        
+        @Override
+        public void write(String text, int offset, int length) {
+            buffer.append(text, offset, offset + length);
+        }
+        
+        @Override
+        public void write(int c) {
+            buffer.append((char) c);
+        }
+        
+        @Override
+        public void flush() {
+        }
+        
+        @Override
+        public void close() {
+        }
     }
-}
\ No newline at end of file
+}
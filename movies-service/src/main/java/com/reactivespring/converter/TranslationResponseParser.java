@@ -0,0 +1,169 @@
+package com.reactivespring.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the model's reply to a segment prompt: a JSON object mapping segment keys to
+ * translated texts, possibly wrapped in a markdown code block or surrounded by prose.
+ * The reply is tokenized from its first {@code '{'} and reading stops at the end of that
+ * object, so fences and trailing text are skipped. A reply cut off mid-object still yields
+ * every segment that was complete; non-text values are skipped.
+ */
+@Component
+public class TranslationResponseParser {
+    
+    private final JsonFactory jsonFactory;
+    
+    public TranslationResponseParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+    
+    /**
+     * Parses a reply while it is being streamed: each chunk is fed to a non-blocking parser as it
+     * arrives, so the reply is fully parsed as soon as its last token is received.
+     */
+    public Mono<ParsedReply> parse(Flux<String> chunks) {
+        return Mono.defer(() -> {
+            IncrementalReader reader;
+            try {
+                reader = new IncrementalReader(jsonFactory.createNonBlockingByteArrayParser());
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+            return chunks.doOnNext(reader::feed)
+                    .then(Mono.fromSupplier(reader::finish))
+                    .doFinally(signal -> reader.close());
+        });
+    }
+    
+    @Getter
+    @AllArgsConstructor
+    public static class ParsedReply {
+        private final Map<String, String> translations;
+        /** Whether the reply held a whole JSON object; otherwise the translations are partial. */
+        private final boolean complete;
+        private final long parseNanos;
+    }
+    
+    /**
+     * Collects the string members of the top-level object from a token stream.
+     */
+    private static class SegmentReader {
+        
+        final Map<String, String> translations = new HashMap<>();
+        boolean complete;
+        private int depth;
+        
+        void accept(JsonParser parser, JsonToken token) throws IOException {
+            switch (token) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    complete = --depth == 0;
+                    break;
+                case VALUE_STRING:
+                    if (depth == 1) {
+                        translations.put(parser.getCurrentName(), parser.getText());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+    
+    private static class IncrementalReader {
+        
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final SegmentReader reader = new SegmentReader();
+        private boolean started;
+        private boolean failed;
+        private char pendingHighSurrogate;
+        private long parseNanos;
+        
+        IncrementalReader(JsonParser parser) {
+            this.parser = parser;
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        }
+        
+        void feed(String chunk) {
+            if (reader.complete || failed) return;
+            long start = System.nanoTime();
+            
+            if (pendingHighSurrogate != 0) {
+                chunk = pendingHighSurrogate + chunk;
+                pendingHighSurrogate = 0;
+            }
+            if (!started) {
+                // Skip code fences and prose in front of the object
+                int objectStart = chunk.indexOf('{');
+                if (objectStart == -1) return;
+                chunk = chunk.substring(objectStart);
+                started = true;
+            }
+            // A surrogate pair split across chunks is encoded once both halves have arrived
+            if (!chunk.isEmpty() && Character.isHighSurrogate(chunk.charAt(chunk.length() - 1))) {
+                pendingHighSurrogate = chunk.charAt(chunk.length() - 1);
+                chunk = chunk.substring(0, chunk.length() - 1);
+            }
+            
+            byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+            try {
+                feeder.feedInput(bytes, 0, bytes.length);
+                drain();
+            } catch (IOException e) {
+                failed = true;
+            }
+            parseNanos += System.nanoTime() - start;
+        }
+        
+        ParsedReply finish() {
+            long start = System.nanoTime();
+            if (started && !reader.complete && !failed) {
+                feeder.endOfInput();
+                try {
+                    drain();
+                } catch (IOException e) {
+                    failed = true;
+                }
+            }
+            parseNanos += System.nanoTime() - start;
+            return new ParsedReply(reader.translations, reader.complete, parseNanos);
+        }
+        
+        void close() {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // Nothing is held open beyond the parser's own buffers
+            }
+        }
+        
+        private void drain() throws IOException {
+            JsonToken token;
+            while (!reader.complete
+                    && (token = parser.nextToken()) != null
+                    && token != JsonToken.NOT_AVAILABLE) {
+                reader.accept(parser, token);
+            }
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package com.reactivespring.domain;
 
+import com.reactivespring.dto.SurveyTranslationRequest;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.Valid;
@@ -18,6 +22,12 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 @Document(collection = "surveys")
+// Listing pages newest first by _id, optionally filtered by language and author; see SurveyRepositoryCustom
+@CompoundIndexes({
+        @CompoundIndex(name = "language_createdBy_id", def = "{ 'language': 1, 'createdBy': 1, '_id': -1 }"),
+        @CompoundIndex(name = "language_id", def = "{ 'language': 1, '_id': -1 }"),
+        @CompoundIndex(name = "createdBy_id", def = "{ 'createdBy': 1, '_id': -1 }")
+})
 public class Survey {
     
     @Id
@@ -44,6 +54,12 @@ public class Survey {
     private LocalDateTime updatedAt;
     private String createdBy;
     
+    // Set on full-copy translations from before SurveyTranslation overlays only; they are
+    // migrated to overlays at startup, see StoredTranslationService#migrateFullCopyTranslations
+    @Indexed
+    private String sourceSurveyId;
+    private SurveyTranslationRequest.TranslationOptions translationOptions;
+    
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
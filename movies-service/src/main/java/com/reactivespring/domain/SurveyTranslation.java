@@ -0,0 +1,42 @@
+package com.reactivespring.domain;
+
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A stored translation of a source survey, kept as an overlay: only the translated text of the
+ * segments that differ from the source, by path. The full translated survey is the source with
+ * these segments merged in, see {@code StoredTranslationService#materialize}. Segments the model
+ * failed to translate are listed in {@code untranslatedPaths}; they read through to the source
+ * until a later patch or read translates them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "survey_translations")
+@CompoundIndex(name = "sourceSurveyId_language", def = "{ 'sourceSurveyId': 1, 'language': 1 }", unique = true)
+public class SurveyTranslation {
+    
+    @Id
+    private String id;
+    
+    private String sourceSurveyId;
+    private String language;
+    private SurveyTranslationRequest.TranslationOptions translationOptions;
+    private List<TextSegment> segments;
+    private List<String> untranslatedPaths;
+    
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,49 @@
+package com.reactivespring.domain;
+
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.SurveyTranslationResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "translation_jobs")
+public class TranslationJob {
+    
+    @Id
+    private String id;
+    
+    @Indexed
+    private JobStatus status;
+    
+    private SurveyTranslationRequest request;
+    private SurveyTranslationResponse result;
+    private String error;
+    
+    // The instance running the job, and when it last renewed its lease on it
+    private String owner;
+    private LocalDateTime heartbeatAt;
+    
+    private Integer totalTextBlocks;
+    private Long estimatedCompletionTimeMs;
+    
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    
+    public enum JobStatus {
+        QUEUED,
+        PROCESSING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,35 @@
+package com.reactivespring.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A previously translated text segment. The id is built from the language pair and a
+ * content hash of the source text, see {@code TranslationMemoryService#memoryKey}.
+ * Entries expire 90 days after they were translated, so texts no survey uses any more do not
+ * pile up and remembered segments are translated afresh, by the current model, now and then.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Document(collection = "translation_memory")
+public class TranslationMemoryEntry {
+    
+    @Id
+    private String id;
+    
+    private String sourceLanguage;
+    private String targetLanguage;
+    private String sourceText;
+    private String translatedText;
+    @Indexed(expireAfter = "90d")
+    private LocalDateTime createdAt;
+}
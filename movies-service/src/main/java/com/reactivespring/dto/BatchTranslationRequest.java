@@ -0,0 +1,44 @@
+package com.reactivespring.dto;
+
+import com.reactivespring.domain.Survey;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import java.util.List;
+
+/**
+ * Translates one source survey into several target languages in a single request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchTranslationRequest {
+    
+    @Valid
+    @NotNull(message = "Survey data is required")
+    private Survey survey;
+    
+    @NotEmpty(message = "At least one target language is required")
+    private List<@NotBlank String> targetLanguages;
+    
+    @NotBlank(message = "Source language is required")
+    private String sourceLanguage;
+    
+    private SurveyTranslationRequest.TranslationOptions options;
+    
+    public SurveyTranslationRequest forTargetLanguage(String targetLanguage) {
+        return SurveyTranslationRequest.builder()
+                .survey(survey)
+                .sourceLanguage(sourceLanguage)
+                .targetLanguage(targetLanguage)
+                .options(options)
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package com.reactivespring.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Per-language results of a batch translation. A language that failed is listed in
+ * {@code errors} instead of {@code translations}; the other languages are still returned.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class BatchTranslationResponse {
+    
+    private String sourceLanguage;
+    private Map<String, SurveyTranslationResponse> translations;
+    private Map<String, String> errors;
+    private Long processingTimeMs;
+}
@@ -0,0 +1,42 @@
+package com.reactivespring.dto;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The languages surveys are offered in, by code, as listed by {@code GET /translate/languages}.
+ */
+public final class SupportedLanguages {
+    
+    public static final Map<String, String> NAMES_BY_CODE;
+    
+    static {
+        Map<String, String> names = new LinkedHashMap<>();
+        names.put("en", "English");
+        names.put("es", "Spanish");
+        names.put("fr", "French");
+        names.put("de", "German");
+        names.put("it", "Italian");
+        names.put("pt", "Portuguese");
+        names.put("ru", "Russian");
+        names.put("ja", "Japanese");
+        names.put("ko", "Korean");
+        names.put("zh", "Chinese");
+        names.put("ar", "Arabic");
+        names.put("hi", "Hindi");
+        names.put("nl", "Dutch");
+        names.put("sv", "Swedish");
+        names.put("no", "Norwegian");
+        names.put("da", "Danish");
+        names.put("fi", "Finnish");
+        NAMES_BY_CODE = Collections.unmodifiableMap(names);
+    }
+    
+    private SupportedLanguages() {
+    }
+    
+    public static boolean isSupported(String code) {
+        return NAMES_BY_CODE.containsKey(code);
+    }
+}
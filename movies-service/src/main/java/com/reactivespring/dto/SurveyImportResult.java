@@ -0,0 +1,37 @@
+package com.reactivespring.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one survey of an NDJSON import, streamed back in upload order. {@code record} is
+ * the 1-based position of the survey in the upload.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class SurveyImportResult {
+    
+    private Long record;
+    private Status status;
+    private String id;
+    private String title;
+    private List<String> errors;
+    // Stored translation ids by language, and why any requested language failed
+    private Map<String, String> translations;
+    private Map<String, String> translationErrors;
+    
+    public enum Status {
+        IMPORTED,
+        INVALID,
+        FAILED
+    }
+}
@@ -0,0 +1,25 @@
+package com.reactivespring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A survey as listed: its identifying fields without the introduction, content and footer blocks.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SurveySummary {
+    
+    private String id;
+    private String title;
+    private String language;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
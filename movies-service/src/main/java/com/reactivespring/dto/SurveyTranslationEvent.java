@@ -0,0 +1,35 @@
+package com.reactivespring.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.reactivespring.domain.Survey;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A part of a survey translation streamed as soon as it is ready. Sections may arrive
+ * out of order and are identified by {@code sectionIndex}; {@code metadata} is always last.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SurveyTranslationEvent {
+    
+    public static final String INTRODUCTION = "introduction";
+    public static final String SECTION = "section";
+    public static final String FOOTER = "footer";
+    public static final String METADATA = "metadata";
+    public static final String ERROR = "error";
+    
+    private String type;
+    private String title;
+    private Survey.IntroductionBlock introductionBlock;
+    private Integer sectionIndex;
+    private Survey.Section section;
+    private Survey.FooterBlock footerBlock;
+    private SurveyTranslationResponse.TranslationMetadata metadata;
+    private String message;
+}
@@ -0,0 +1,27 @@
+package com.reactivespring.dto;
+
+import com.reactivespring.domain.Survey;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of updating a source survey: its stored translations are patched in place, and
+ * only the text segments that changed (or had no translation yet) are sent to the model.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SurveyUpdateResponse {
+    
+    private Survey survey;
+    private Integer totalTextBlocks;
+    private Integer changedTextBlocks;
+    private Integer retranslatedTextBlocks;
+    private List<String> updatedLanguages;
+    private Long processingTimeMs;
+}
@@ -0,0 +1,20 @@
+package com.reactivespring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single translatable string of a survey, addressed by its path in the survey tree
+ * (e.g. {@code contentBlock.sections[0].categories[1].questions[2].choices[0].text}).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TextSegment {
+    
+    private String path;
+    private String text;
+}
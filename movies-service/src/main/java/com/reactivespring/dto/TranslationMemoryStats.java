@@ -0,0 +1,21 @@
+package com.reactivespring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TranslationMemoryStats {
+    
+    private long lookups;
+    private long localHits;
+    private long storeHits;
+    private long misses;
+    private double hitRatio;
+    private long cachedEntries;
+    private long evictions;
+}
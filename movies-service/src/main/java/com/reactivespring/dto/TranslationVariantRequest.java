@@ -0,0 +1,23 @@
+package com.reactivespring.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * Requests a stored translation of a stored survey.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TranslationVariantRequest {
+    
+    @NotBlank(message = "Target language is required")
+    private String targetLanguage;
+    
+    private SurveyTranslationRequest.TranslationOptions options;
+}
@@ -0,0 +1,17 @@
+package com.reactivespring.exception;
+
+import java.time.Duration;
+
+public class ModelCallRejectedException extends RuntimeException {
+    
+    private final Duration retryAfter;
+    
+    public ModelCallRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,8 @@
+package com.reactivespring.exception;
+
+public class ModelUnavailableException extends RuntimeException {
+    
+    public ModelUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.reactivespring.exception;
+
+public class SurveyNotFoundException extends RuntimeException {
+    
+    public SurveyNotFoundException(String message) {
+        super(message);
+    }
+}
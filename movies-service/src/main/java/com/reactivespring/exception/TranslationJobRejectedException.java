@@ -0,0 +1,8 @@
+package com.reactivespring.exception;
+
+public class TranslationJobRejectedException extends RuntimeException {
+    
+    public TranslationJobRejectedException(String message) {
+        super(message);
+    }
+}
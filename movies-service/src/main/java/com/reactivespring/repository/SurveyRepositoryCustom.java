@@ -0,0 +1,19 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.dto.SurveySummary;
+import reactor.core.publisher.Flux;
+
+public interface SurveyRepositoryCustom {
+    
+    /**
+     * One page of survey summaries, newest first. Pages are keyed by the last id of the previous
+     * page rather than skipped over, so every page costs the same however deep it is.
+     *
+     * @param language  only surveys in this language, or {@code null}
+     * @param createdBy only surveys by this author, or {@code null}
+     * @param search    words to look for in the title through the text index, or {@code null}
+     * @param after     the last id of the previous page, or {@code null} for the first page
+     * @param size      the maximum number of summaries
+     */
+    Flux<SurveySummary> findSummaries(String language, String createdBy, String search, String after, int size);
+}
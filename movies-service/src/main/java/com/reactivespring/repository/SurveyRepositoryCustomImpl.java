@@ -0,0 +1,46 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.SurveySummary;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import reactor.core.publisher.Flux;
+
+public class SurveyRepositoryCustomImpl implements SurveyRepositoryCustom {
+    
+    private final ReactiveMongoTemplate mongoTemplate;
+    
+    public SurveyRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+    
+    @Override
+    public Flux<SurveySummary> findSummaries(String language, String createdBy, String search, String after, int size) {
+        return mongoTemplate.query(Survey.class)
+                .as(SurveySummary.class)
+                .matching(summaryQuery(language, createdBy, search, after, size))
+                .all();
+    }
+    
+    static Query summaryQuery(String language, String createdBy, String search, String after, int size) {
+        Query query = search != null
+                ? TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(search))
+                : new Query();
+        if (language != null) {
+            query.addCriteria(Criteria.where("language").is(language));
+        }
+        if (createdBy != null) {
+            query.addCriteria(Criteria.where("createdBy").is(createdBy));
+        }
+        if (after != null) {
+            query.addCriteria(Criteria.where("id").lt(after));
+        }
+        // Only the summary fields are read, so the deep content block never leaves the server
+        query.fields().include("title", "language", "createdBy", "createdAt", "updatedAt");
+        return query.with(Sort.by(Sort.Direction.DESC, "id")).limit(size);
+    }
+}
@@ -0,0 +1,17 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.SurveyTranslation;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface SurveyTranslationRepository extends ReactiveMongoRepository<SurveyTranslation, String> {
+    
+    Flux<SurveyTranslation> findBySourceSurveyId(String sourceSurveyId);
+    
+    Mono<SurveyTranslation> findBySourceSurveyIdAndLanguage(String sourceSurveyId, String language);
+    
+    Mono<Long> deleteBySourceSurveyId(String sourceSurveyId);
+}
\ No newline at end of file
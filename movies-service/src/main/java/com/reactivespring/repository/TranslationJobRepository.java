@@ -0,0 +1,9 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.TranslationJob;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TranslationJobRepository extends ReactiveMongoRepository<TranslationJob, String>, TranslationJobRepositoryCustom {
+}
@@ -0,0 +1,30 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.TranslationJob;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface TranslationJobRepositoryCustom {
+    
+    /**
+     * Atomically takes over the oldest unfinished job whose lease expired: one never leased, or
+     * whose owner has not renewed its lease since {@code expiredBefore}. The job is handed to
+     * {@code owner} as queued, so no other instance can claim it while the lease is renewed.
+     *
+     * @return the claimed job, or empty when no lease has expired
+     */
+    Mono<TranslationJob> claimExpired(String owner, LocalDateTime expiredBefore, LocalDateTime now);
+    
+    /**
+     * Renews the lease on every unfinished job held by {@code owner}.
+     *
+     * @return the number of jobs renewed
+     */
+    Mono<Long> renewLeases(String owner, LocalDateTime now);
+    
+    /**
+     * Gives up a job held by {@code owner}, so another instance can claim it at once.
+     */
+    Mono<Void> release(String jobId, String owner);
+}
@@ -0,0 +1,67 @@
+package com.reactivespring.repository;
+
+import com.mongodb.client.result.UpdateResult;
+import com.reactivespring.domain.TranslationJob;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+public class TranslationJobRepositoryCustomImpl implements TranslationJobRepositoryCustom {
+    
+    private static final List<TranslationJob.JobStatus> UNFINISHED = Arrays.asList(
+            TranslationJob.JobStatus.QUEUED,
+            TranslationJob.JobStatus.PROCESSING);
+    
+    private final ReactiveMongoTemplate mongoTemplate;
+    
+    public TranslationJobRepositoryCustomImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+    
+    @Override
+    public Mono<TranslationJob> claimExpired(String owner, LocalDateTime expiredBefore, LocalDateTime now) {
+        return mongoTemplate.findAndModify(claimQuery(expiredBefore), claimUpdate(owner, now),
+                FindAndModifyOptions.options().returnNew(true), TranslationJob.class);
+    }
+    
+    @Override
+    public Mono<Long> renewLeases(String owner, LocalDateTime now) {
+        Query query = new Query(Criteria.where("owner").is(owner).and("status").in(UNFINISHED));
+        return mongoTemplate.updateMulti(query, new Update().set("heartbeatAt", now), TranslationJob.class)
+                .map(UpdateResult::getModifiedCount);
+    }
+    
+    @Override
+    public Mono<Void> release(String jobId, String owner) {
+        Query query = new Query(Criteria.where("id").is(jobId).and("owner").is(owner));
+        return mongoTemplate.updateFirst(query, new Update().unset("owner").unset("heartbeatAt"), TranslationJob.class)
+                .then();
+    }
+    
+    static Query claimQuery(LocalDateTime expiredBefore) {
+        // A missing heartbeat also matches null: jobs released, or stored before leases existed
+        return new Query(new Criteria().andOperator(
+                        Criteria.where("status").in(UNFINISHED),
+                        new Criteria().orOperator(
+                                Criteria.where("heartbeatAt").is(null),
+                                Criteria.where("heartbeatAt").lt(expiredBefore))))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"));
+    }
+    
+    static Update claimUpdate(String owner, LocalDateTime now) {
+        // A job that was running when its owner died starts over
+        return new Update()
+                .set("owner", owner)
+                .set("heartbeatAt", now)
+                .set("status", TranslationJob.JobStatus.QUEUED)
+                .unset("startedAt");
+    }
+}
@@ -0,0 +1,112 @@
+package com.reactivespring.service;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Non-blocking bound on calls running at once, shared by every caller of one instance. Calls
+ * over the bound wait in arrival order, without holding a thread, and a call keeps its permit
+ * until it terminates or is cancelled.
+ */
+public class ConcurrencyGate {
+    
+    private final int permits;
+    private final Deque<Waiter> waiting = new ArrayDeque<>();
+    private int inUse;
+    
+    public ConcurrencyGate(int permits) {
+        this.permits = permits;
+    }
+    
+    public <T> Mono<T> withPermit(Mono<T> call) {
+        return Mono.usingWhen(acquire(),
+                permit -> call,
+                permit -> release(),
+                (permit, error) -> release(),
+                permit -> release());
+    }
+    
+    public synchronized int getInUse() {
+        return inUse;
+    }
+    
+    public synchronized int getWaiting() {
+        return waiting.size();
+    }
+    
+    private Mono<Boolean> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            sink.onCancel(() -> cancelWaiting(waiter));
+            boolean admitted = false;
+            synchronized (this) {
+                if (inUse < permits) {
+                    inUse++;
+                    waiter.granted = true;
+                    admitted = true;
+                } else {
+                    waiting.add(waiter);
+                }
+            }
+            if (admitted) {
+                waiter.grant();
+            }
+        });
+    }
+    
+    private void cancelWaiting(Waiter waiter) {
+        Waiter next;
+        synchronized (this) {
+            if (waiting.remove(waiter) || !waiter.granted) {
+                return;
+            }
+            // Granted a permit concurrently with the cancellation: the permit never reached the caller
+            next = handOff();
+        }
+        if (next != null) {
+            next.grant();
+        }
+    }
+    
+    private Mono<Void> release() {
+        return Mono.fromRunnable(() -> {
+            Waiter next;
+            synchronized (this) {
+                next = handOff();
+            }
+            if (next != null) {
+                next.grant();
+            }
+        });
+    }
+    
+    /**
+     * Passes a freed permit on to the longest waiting caller, if any.
+     */
+    private Waiter handOff() {
+        Waiter next = waiting.poll();
+        if (next == null) {
+            inUse--;
+        } else {
+            next.granted = true;
+        }
+        return next;
+    }
+    
+    private static class Waiter {
+        
+        final MonoSink<Boolean> sink;
+        boolean granted;
+        
+        Waiter(MonoSink<Boolean> sink) {
+            this.sink = sink;
+        }
+        
+        void grant() {
+            sink.success(true);
+        }
+    }
+}
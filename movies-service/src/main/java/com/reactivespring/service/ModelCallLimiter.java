@@ -0,0 +1,327 @@
+package com.reactivespring.service;
+
+import com.reactivespring.exception.ModelCallRejectedException;
+import dev.ai4j.openai4j.OpenAiHttpException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive (AIMD) bound on concurrent chat model calls. The limit grows by one call per
+ * limit's worth of healthy calls while callers are waiting, and is cut by {@code backoff-ratio}
+ * when the provider rate-limits, times out or is slow: slow to produce its first token for a
+ * streamed call, slow to answer at all for a blocking one. Callers over the limit wait in a
+ * queue, interactive callers ahead of background jobs; interactive callers are rejected with a
+ * retry hint once {@code queue-capacity} of them are waiting.
+ */
+@Slf4j
+@Component
+public class ModelCallLimiter {
+    
+    public enum Priority { INTERACTIVE, BACKGROUND }
+    
+    private static final String PRIORITY_KEY = ModelCallLimiter.class.getName() + ".priority";
+    private static final double ALPHA = 0.2;
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueCapacity;
+    private final long maxFirstTokenNanos;
+    private final long maxBlockingCallNanos;
+    private final double backoffRatio;
+    
+    private final Deque<Waiter> interactive = new ArrayDeque<>();
+    private final Deque<Waiter> background = new ArrayDeque<>();
+    private final AtomicLong rejected = new AtomicLong();
+    
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+    private double callNanos = Duration.ofSeconds(1).toNanos();
+    
+    public ModelCallLimiter(
+            @Value("${translation.model.limiter.initial-limit:8}") int initialLimit,
+            @Value("${translation.model.limiter.min-limit:1}") int minLimit,
+            @Value("${translation.model.limiter.max-limit:64}") int maxLimit,
+            @Value("${translation.model.limiter.queue-capacity:100}") int queueCapacity,
+            @Value("${translation.model.limiter.max-first-token-ms:5000}") long maxFirstTokenMs,
+            @Value("${translation.model.limiter.max-blocking-call-ms:60000}") long maxBlockingCallMs,
+            @Value("${translation.model.limiter.backoff-ratio:0.7}") double backoffRatio,
+            TranslationMetrics metrics) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueCapacity = queueCapacity;
+        this.maxFirstTokenNanos = Duration.ofMillis(maxFirstTokenMs).toNanos();
+        this.maxBlockingCallNanos = Duration.ofMillis(maxBlockingCallMs).toNanos();
+        this.backoffRatio = backoffRatio;
+        this.lastDecreaseNanos = System.nanoTime();
+        
+        metrics.registerGauge("survey.translation.model.limit", "Current adaptive limit on concurrent model calls",
+                this, ModelCallLimiter::getLimit);
+        metrics.registerGauge("survey.translation.model.in.flight", "Model calls currently running",
+                this, ModelCallLimiter::getInFlight);
+        metrics.registerGauge("survey.translation.model.queued", "Model calls waiting for the limiter",
+                this, ModelCallLimiter::getQueued);
+        metrics.registerCounter("survey.translation.model.rejected",
+                "Model calls rejected because the wait queue was full", rejected, AtomicLong::get);
+    }
+    
+    /**
+     * Marks model calls made under the returned context as {@link Priority#BACKGROUND}; calls
+     * default to {@link Priority#INTERACTIVE}.
+     */
+    public static Context withPriority(Priority priority) {
+        return Context.of(PRIORITY_KEY, priority);
+    }
+    
+    /**
+     * The priority model calls made under {@code context} run at.
+     */
+    public static Priority priorityOf(ContextView context) {
+        return context.getOrDefault(PRIORITY_KEY, Priority.INTERACTIVE);
+    }
+    
+    /**
+     * Runs the streamed {@code call} once a slot is free, holding the slot until it terminates or
+     * is cancelled. A first element later than {@code max-first-token-ms} counts as overload.
+     */
+    public <T> Flux<T> limit(Flux<T> call) {
+        return limit(call, Mono.empty());
+    }
+    
+    /**
+     * Like {@link #limit(Flux)} for a call that keeps running at the provider after it is
+     * cancelled or fails downstream, e.g. on a timeout: such a call holds its slot until
+     * {@code providerDone} completes, so the slot count stays the number of calls the provider is
+     * actually working on.
+     */
+    public <T> Flux<T> limit(Flux<T> call, Mono<Void> providerDone) {
+        return limit(call, false, providerDone);
+    }
+    
+    /**
+     * Like {@link #limit(Flux)} for a blocking call, whose single element only arrives when the
+     * whole reply is done; overload is a call longer than {@code max-blocking-call-ms} instead.
+     */
+    public <T> Flux<T> limitBlocking(Flux<T> call) {
+        return limitBlocking(call, Mono.empty());
+    }
+    
+    /**
+     * Like {@link #limitBlocking(Flux)}, holding the slot of a cancelled or failed call until {@code providerDone}.
+     */
+    public <T> Flux<T> limitBlocking(Flux<T> call, Mono<Void> providerDone) {
+        return limit(call, true, providerDone);
+    }
+    
+    private <T> Flux<T> limit(Flux<T> call, boolean blocking, Mono<Void> providerDone) {
+        return Flux.deferContextual(context -> {
+            return Flux.usingWhen(acquire(priorityOf(context), blocking),
+                    permit -> call.doOnNext(value -> permit.firstElement()),
+                    permit -> release(permit, null, true),
+                    (permit, error) -> {
+                        // A call that failed here, e.g. timed out, may still be generating at the provider:
+                        // the error goes on at once, the slot is only freed once the provider is done
+                        providerDone.onErrorResume(e -> Mono.empty())
+                                .then(release(permit, error, true))
+                                .subscribe();
+                        return Mono.empty();
+                    },
+                    permit -> providerDone.onErrorResume(error -> Mono.empty())
+                            .then(release(permit, null, false)));
+        });
+    }
+    
+    public synchronized double getLimit() {
+        return limit;
+    }
+    
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+    
+    public synchronized int getQueued() {
+        return interactive.size() + background.size();
+    }
+    
+    /**
+     * Whether a call made now would get a slot at once instead of waiting for one.
+     */
+    public synchronized boolean hasFreeSlot() {
+        return inFlight < (int) limit && interactive.isEmpty() && background.isEmpty();
+    }
+    
+    public long getRejected() {
+        return rejected.get();
+    }
+    
+    private Mono<Permit> acquire(Priority priority, boolean blocking) {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink, blocking);
+            sink.onCancel(() -> cancelWaiting(waiter));
+            boolean admitted = false;
+            Duration retryAfter = null;
+            
+            synchronized (this) {
+                if (hasFreeSlot()) {
+                    inFlight++;
+                    waiter.granted = true;
+                    admitted = true;
+                } else if (priority == Priority.BACKGROUND) {
+                    // Background jobs are already bounded by the job workers, so they wait rather than fail
+                    background.add(waiter);
+                } else if (interactive.size() < queueCapacity) {
+                    interactive.add(waiter);
+                } else {
+                    retryAfter = estimateWait();
+                }
+            }
+            
+            if (retryAfter != null) {
+                rejected.incrementAndGet();
+                sink.error(new ModelCallRejectedException(
+                        "Too many concurrent translations, please retry later", retryAfter));
+            } else if (admitted) {
+                waiter.grant();
+            }
+        });
+    }
+    
+    private void cancelWaiting(Waiter waiter) {
+        List<Waiter> granted;
+        synchronized (this) {
+            if (interactive.remove(waiter) || background.remove(waiter) || !waiter.granted) {
+                return;
+            }
+            // Granted a slot concurrently with the cancellation: the permit never reached the caller
+            inFlight--;
+            granted = grantWaiting();
+        }
+        granted.forEach(Waiter::grant);
+    }
+    
+    private Mono<Void> release(Permit permit, Throwable error, boolean completed) {
+        return Mono.fromRunnable(() -> {
+            List<Waiter> granted;
+            synchronized (this) {
+                inFlight--;
+                if (completed) {
+                    adjustLimit(permit, error);
+                }
+                granted = grantWaiting();
+            }
+            granted.forEach(Waiter::grant);
+        });
+    }
+    
+    private void adjustLimit(Permit permit, Throwable error) {
+        long now = System.nanoTime();
+        boolean overloaded = error != null ? isOverload(error) : isSlow(permit, now);
+        
+        if (overloaded) {
+            // Calls started before the last cut saw the old limit; one burst of failures cuts once
+            if (permit.startNanos > lastDecreaseNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+                String cause = error != null ? error.getMessage()
+                        : permit.blocking ? "slow call" : "slow first token";
+                log.warn("Model overloaded ({}), concurrency limit lowered to {}", cause, (int) limit);
+            }
+            return;
+        }
+        
+        if (error == null) {
+            callNanos = ALPHA * (now - permit.startNanos) + (1 - ALPHA) * callNanos;
+            // Only probe upwards while the limit is actually holding callers back
+            if (!interactive.isEmpty() || !background.isEmpty()) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+        }
+    }
+    
+    private boolean isSlow(Permit permit, long now) {
+        return permit.blocking
+                ? now - permit.startNanos > maxBlockingCallNanos
+                : permit.firstElementNanos - permit.startNanos > maxFirstTokenNanos;
+    }
+    
+    private List<Waiter> grantWaiting() {
+        List<Waiter> granted = new ArrayList<>();
+        while (inFlight < (int) limit && (!interactive.isEmpty() || !background.isEmpty())) {
+            Waiter next = !interactive.isEmpty() ? interactive.poll() : background.poll();
+            inFlight++;
+            next.granted = true;
+            granted.add(next);
+        }
+        return granted;
+    }
+    
+    /**
+     * Time for the interactive calls already waiting to drain at the current limit, rounded up to a second.
+     */
+    private Duration estimateWait() {
+        double waves = (double) (interactive.size() + 1) / Math.max(1, (int) limit);
+        return Duration.ofSeconds(Math.max(1, (long) Math.ceil(waves * callNanos / 1e9)));
+    }
+    
+    private static boolean isOverload(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OpenAiHttpException) {
+                int code = ((OpenAiHttpException) cause).code();
+                return code == 429 || code == 503;
+            }
+            if (cause instanceof TimeoutException || cause instanceof InterruptedIOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static class Permit {
+        
+        final long startNanos = System.nanoTime();
+        final boolean blocking;
+        volatile long firstElementNanos;
+        
+        Permit(boolean blocking) {
+            this.blocking = blocking;
+        }
+        
+        void firstElement() {
+            if (firstElementNanos == 0) {
+                firstElementNanos = System.nanoTime();
+            }
+        }
+    }
+    
+    private static class Waiter {
+        
+        final MonoSink<Permit> sink;
+        final boolean blocking;
+        boolean granted;
+        
+        Waiter(MonoSink<Permit> sink, boolean blocking) {
+            this.sink = sink;
+            this.blocking = blocking;
+        }
+        
+        void grant() {
+            sink.success(new Permit(blocking));
+        }
+    }
+}
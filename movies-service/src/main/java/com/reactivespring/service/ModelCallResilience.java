@@ -0,0 +1,328 @@
+package com.reactivespring.service;
+
+import com.reactivespring.exception.ModelCallRejectedException;
+import com.reactivespring.exception.ModelUnavailableException;
+import dev.ai4j.openai4j.OpenAiHttpException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Resilience around chat model calls: per-call timeouts, retries of transient failures with
+ * jittered exponential backoff, an optional hedged second call once the first is slower than
+ * the recent p95 time to first token, and a circuit breaker that fails fast while the
+ * provider keeps failing.
+ */
+@Slf4j
+@Component
+public class ModelCallResilience {
+    
+    private static final int LATENCY_SAMPLES = 200;
+    private static final int MIN_HEDGE_SAMPLES = 20;
+    
+    private final ModelCallLimiter limiter;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration firstTokenTimeout;
+    private final Duration idleTimeout;
+    private final boolean hedgingEnabled;
+    private final double hedgePercentile;
+    private final CircuitBreaker circuitBreaker;
+    
+    private final long[] firstTokenNanos = new long[LATENCY_SAMPLES];
+    private int sampleCount;
+    
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    
+    public ModelCallResilience(
+            ModelCallLimiter limiter,
+            TranslationMetrics metrics,
+            @Value("${translation.model.retry.max-attempts:3}") int maxAttempts,
+            @Value("${translation.model.retry.initial-backoff-ms:500}") long initialBackoffMs,
+            @Value("${translation.model.retry.max-backoff-ms:5000}") long maxBackoffMs,
+            @Value("${translation.model.timeout.first-token-ms:30000}") long firstTokenTimeoutMs,
+            @Value("${translation.model.timeout.idle-ms:15000}") long idleTimeoutMs,
+            @Value("${translation.model.hedging.enabled:false}") boolean hedgingEnabled,
+            @Value("${translation.model.hedging.percentile:0.95}") double hedgePercentile,
+            @Value("${translation.model.circuit-breaker.window-size:20}") int windowSize,
+            @Value("${translation.model.circuit-breaker.min-calls:10}") int minCalls,
+            @Value("${translation.model.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${translation.model.circuit-breaker.open-ms:30000}") long openMs) {
+        this.limiter = limiter;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.maxBackoff = Duration.ofMillis(maxBackoffMs);
+        this.firstTokenTimeout = Duration.ofMillis(firstTokenTimeoutMs);
+        this.idleTimeout = Duration.ofMillis(idleTimeoutMs);
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.circuitBreaker = new CircuitBreaker(windowSize, minCalls, failureRateThreshold, Duration.ofMillis(openMs));
+        
+        metrics.registerCounter("survey.translation.model.retries", "Model calls retried after a transient failure",
+                retries, AtomicLong::get);
+        metrics.registerCounter("survey.translation.model.hedges", "Hedged second model calls started",
+                hedges, AtomicLong::get);
+        metrics.registerCounter("survey.translation.model.hedges.won", "Hedged model calls that answered first",
+                hedgeWins, AtomicLong::get);
+        metrics.registerGauge("survey.translation.model.circuit.open", "1 while the model circuit breaker is open",
+                circuitBreaker, breaker -> breaker.isOpen() ? 1 : 0);
+    }
+    
+    /**
+     * Runs {@code attempt} behind the circuit breaker, retrying transient failures. Each retry
+     * re-subscribes to a fresh attempt, so a reply that failed part-way is read again from the start.
+     */
+    public <T> Mono<T> execute(Supplier<Mono<T>> attempt) {
+        return Mono.defer(() -> {
+                    if (!circuitBreaker.tryAcquire()) {
+                        return Mono.error(new ModelUnavailableException(
+                                "Translation model is unavailable, calls are suspended after repeated failures"));
+                    }
+                    return attempt.get()
+                            .doOnSuccess(value -> circuitBreaker.onSuccess())
+                            .doOnError(error -> circuitBreaker.onError(countsAsFailure(error)))
+                            .doOnCancel(circuitBreaker::onCancel);
+                })
+                .retryWhen(Retry.backoff(maxAttempts - 1, initialBackoff)
+                        .maxBackoff(maxBackoff)
+                        .jitter(0.5)
+                        .filter(ModelCallResilience::isRetryable)
+                        .doBeforeRetry(signal -> {
+                            retries.incrementAndGet();
+                            log.warn("Model call failed ({}), retry {} of {}", signal.failure().getMessage(),
+                                    signal.totalRetries() + 1, maxAttempts - 1);
+                        })
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+    
+    /**
+     * Streams a model reply under the first-token and idle timeouts. {@code call} is handed the
+     * timeouts to apply once the {@link ModelCallLimiter} admits it, so time spent waiting for a
+     * slot never times out, nor counts against the circuit or the limit. With hedging enabled, a
+     * second identical call is started if no token arrived within the recent p95 time to first
+     * token, and whichever call answers first is kept. Dropping the other does not stop it at the
+     * provider: it is generated and billed in full, and keeps its limiter slot until it ends.
+     */
+    public Flux<String> stream(Function<UnaryOperator<Flux<String>>, Flux<String>> call) {
+        return Flux.defer(() -> {
+            long startNanos = System.nanoTime();
+            Flux<String> primary = call.apply(this::withTimeouts);
+            
+            Duration hedgeDelay = hedgingEnabled ? hedgeDelay() : null;
+            Flux<String> reply = primary;
+            if (hedgeDelay != null) {
+                // Only hedge when the limiter has a free slot, so hedges never queue ahead of fresh
+                // calls; a skipped hedge must stay silent, or its completion would win the race
+                Flux<String> hedge = Mono.delay(hedgeDelay)
+                        .flatMapMany(tick -> {
+                            if (!limiter.hasFreeSlot()) {
+                                return Flux.never();
+                            }
+                            hedges.incrementAndGet();
+                            return call.apply(this::withTimeouts);
+                        });
+                // Only the first call to answer is read from; the loser runs on at the provider
+                AtomicBoolean hedgeWon = new AtomicBoolean();
+                reply = Flux.firstWithSignal(primary, hedge.doOnNext(token -> {
+                    if (hedgeWon.compareAndSet(false, true)) {
+                        hedgeWins.incrementAndGet();
+                    }
+                }));
+            }
+            
+            return reply.doOnNext(new FirstToken(startNanos)::record);
+        });
+    }
+    
+    private Flux<String> withTimeouts(Flux<String> reply) {
+        return reply.timeout(Mono.delay(firstTokenTimeout), token -> Mono.delay(idleTimeout));
+    }
+    
+    private synchronized void recordFirstToken(long nanos) {
+        firstTokenNanos[sampleCount % LATENCY_SAMPLES] = nanos;
+        sampleCount++;
+    }
+    
+    private synchronized Duration hedgeDelay() {
+        int samples = Math.min(sampleCount, LATENCY_SAMPLES);
+        if (samples < MIN_HEDGE_SAMPLES) {
+            return null;
+        }
+        long[] sorted = Arrays.copyOf(firstTokenNanos, samples);
+        Arrays.sort(sorted);
+        return Duration.ofNanos(sorted[(int) Math.min(samples - 1, Math.ceil(hedgePercentile * samples) - 1)]);
+    }
+    
+    static boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ModelCallRejectedException || cause instanceof ModelUnavailableException) {
+                return false;
+            }
+            if (cause instanceof OpenAiHttpException) {
+                int code = ((OpenAiHttpException) cause).code();
+                return code == 408 || code == 429 || code >= 500;
+            }
+            if (cause instanceof TimeoutException || cause instanceof IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Transient provider failures count against the circuit; rate limiting is left to the
+     * {@link ModelCallLimiter} and client errors say nothing about the provider's health.
+     */
+    private static boolean countsAsFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OpenAiHttpException && ((OpenAiHttpException) cause).code() == 429) {
+                return false;
+            }
+        }
+        return isRetryable(error);
+    }
+    
+    private class FirstToken {
+        
+        private final long startNanos;
+        private boolean seen;
+        
+        FirstToken(long startNanos) {
+            this.startNanos = startNanos;
+        }
+        
+        void record(String token) {
+            if (!seen) {
+                seen = true;
+                recordFirstToken(System.nanoTime() - startNanos);
+            }
+        }
+    }
+    
+    /**
+     * Count-based circuit breaker: opens when at least {@code failureRateThreshold} of the last
+     * {@code windowSize} calls failed, stays open for {@code openDuration}, then lets a single
+     * trial call through and closes again if it succeeds.
+     */
+    static class CircuitBreaker {
+        
+        private enum State { CLOSED, OPEN, HALF_OPEN }
+        
+        private final boolean[] failures;
+        private final int minCalls;
+        private final double failureRateThreshold;
+        private final long openNanos;
+        
+        private State state = State.CLOSED;
+        private int calls;
+        private int failureCount;
+        private long openedAt;
+        private boolean trialInFlight;
+        
+        CircuitBreaker(int windowSize, int minCalls, double failureRateThreshold, Duration openDuration) {
+            this.failures = new boolean[windowSize];
+            this.minCalls = minCalls;
+            this.failureRateThreshold = failureRateThreshold;
+            this.openNanos = openDuration.toNanos();
+        }
+        
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                state = State.HALF_OPEN;
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+            }
+            return state == State.CLOSED;
+        }
+        
+        synchronized void onSuccess() {
+            if (state == State.HALF_OPEN) {
+                log.info("Model circuit closed after a successful trial call");
+                reset(State.CLOSED);
+                return;
+            }
+            record(false);
+        }
+        
+        synchronized void onError(boolean failure) {
+            if (state == State.HALF_OPEN) {
+                if (failure) {
+                    open();
+                } else {
+                    trialInFlight = false;
+                }
+                return;
+            }
+            if (failure) {
+                record(true);
+            }
+        }
+        
+        synchronized void onCancel() {
+            trialInFlight = false;
+        }
+        
+        synchronized boolean isOpen() {
+            return state != State.CLOSED;
+        }
+        
+        private void record(boolean failure) {
+            if (state != State.CLOSED) {
+                return;
+            }
+            int slot = calls % failures.length;
+            if (calls >= failures.length && failures[slot]) {
+                failureCount--;
+            }
+            failures[slot] = failure;
+            if (failure) {
+                failureCount++;
+            }
+            calls++;
+            
+            int windowCalls = Math.min(calls, failures.length);
+            if (windowCalls >= minCalls && failureCount >= failureRateThreshold * windowCalls) {
+                open();
+            }
+        }
+        
+        private void open() {
+            if (state == State.HALF_OPEN) {
+                log.warn("Model circuit re-opened after a failed trial call");
+            } else {
+                log.warn("Model circuit opened: {} of the last {} calls failed", failureCount, Math.min(calls, failures.length));
+            }
+            reset(State.OPEN);
+            openedAt = System.nanoTime();
+        }
+        
+        private void reset(State next) {
+            state = next;
+            calls = 0;
+            failureCount = 0;
+            trialInFlight = false;
+            Arrays.fill(failures, false);
+        }
+    }
+}
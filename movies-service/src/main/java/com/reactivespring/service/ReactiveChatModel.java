@@ -0,0 +1,141 @@
+package com.reactivespring.service;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reactive facade over the configured chat model. When a {@link StreamingChatLanguageModel}
+ * is available its token callbacks are bridged into a {@link Flux}, so a translation holds no
+ * thread while waiting for the provider; otherwise the blocking model is offloaded to
+ * {@link Schedulers#boundedElastic()}. Either way calls go through the {@link ModelCallLimiter}.
+ * <p>
+ * Cancelling a reply, or timing it out, does not stop the call upstream: neither model can abort
+ * a request in flight, so the provider generates, and bills, the whole reply anyway. Tokens after
+ * the cancel are dropped, and the call keeps its limiter slot until the provider is done.
+ */
+@Slf4j
+@Component
+public class ReactiveChatModel {
+    
+    private final ChatLanguageModel chatLanguageModel;
+    private final StreamingChatLanguageModel streamingChatLanguageModel;
+    private final ModelCallLimiter limiter;
+    
+    public ReactiveChatModel(ChatLanguageModel chatLanguageModel,
+                             ObjectProvider<StreamingChatLanguageModel> streamingChatLanguageModel,
+                             ModelCallLimiter limiter) {
+        this.chatLanguageModel = chatLanguageModel;
+        this.streamingChatLanguageModel = streamingChatLanguageModel.getIfAvailable();
+        this.limiter = limiter;
+        log.info("Using {} chat model", this.streamingChatLanguageModel != null ? "streaming" : "blocking");
+    }
+    
+    public Flux<String> stream(String prompt) {
+        return stream(prompt, UnaryOperator.identity());
+    }
+    
+    /**
+     * Like {@link #stream(String)}, applying {@code admitted} to the reply only once the limiter
+     * has granted the call a slot, so timeouts added there leave out the wait for the slot.
+     */
+    public Flux<String> stream(String prompt, UnaryOperator<Flux<String>> admitted) {
+        if (streamingChatLanguageModel == null) {
+            return generateBlocking(prompt, admitted).flux();
+        }
+        
+        return Flux.defer(() -> {
+            ProviderCall providerCall = new ProviderCall();
+            Flux<String> reply = Flux.create(sink -> {
+                providerCall.started();
+                sink.onCancel(() -> log.debug("Model reply cancelled, the provider call runs to its end"));
+                try {
+                    streamingChatLanguageModel.generate(prompt, new StreamingResponseHandler<AiMessage>() {
+                        
+                        @Override
+                        public void onNext(String token) {
+                            sink.next(token);
+                        }
+                        
+                        @Override
+                        public void onComplete(Response<AiMessage> response) {
+                            providerCall.done();
+                            sink.complete();
+                        }
+                        
+                        @Override
+                        public void onError(Throwable error) {
+                            providerCall.done();
+                            sink.error(error);
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    providerCall.done();
+                    sink.error(e);
+                }
+            });
+            return limiter.limit(admitted.apply(reply), providerCall.finished());
+        });
+    }
+    
+    public Mono<String> generate(String prompt) {
+        if (streamingChatLanguageModel == null) {
+            return generateBlocking(prompt, UnaryOperator.identity());
+        }
+        
+        return stream(prompt)
+                .collect(StringBuilder::new, StringBuilder::append)
+                .map(StringBuilder::toString);
+    }
+    
+    private Mono<String> generateBlocking(String prompt, UnaryOperator<Flux<String>> admitted) {
+        return Mono.defer(() -> {
+            ProviderCall providerCall = new ProviderCall();
+            return limiter.limitBlocking(admitted.apply(Mono.fromCallable(() -> {
+                                        providerCall.started();
+                                        try {
+                                            return chatLanguageModel.generate(prompt);
+                                        } finally {
+                                            providerCall.done();
+                                        }
+                                    })
+                                    .subscribeOn(Schedulers.boundedElastic())
+                                    .flux()), providerCall.finished())
+                    .next();
+        });
+    }
+    
+    /**
+     * Tracks one provider call, which cancelling the reply does not stop: it completes
+     * {@link #finished()} once the provider is done, or at once if the call never started.
+     */
+    private static class ProviderCall {
+        
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final Sinks.Empty<Void> done = Sinks.empty();
+        
+        void started() {
+            started.set(true);
+        }
+        
+        void done() {
+            done.tryEmitEmpty();
+        }
+        
+        Mono<Void> finished() {
+            return Mono.defer(() -> started.get() ? done.asMono() : Mono.empty());
+        }
+    }
+}
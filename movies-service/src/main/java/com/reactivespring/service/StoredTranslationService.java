@@ -0,0 +1,394 @@
+package com.reactivespring.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivespring.converter.SurveySegmentExtractor;
+import com.reactivespring.domain.Survey;
+import com.reactivespring.domain.SurveyTranslation;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.SurveyUpdateResponse;
+import com.reactivespring.dto.TextSegment;
+import com.reactivespring.dto.TranslationVariantRequest;
+import com.reactivespring.exception.SurveyNotFoundException;
+import com.reactivespring.repository.SurveyRepository;
+import com.reactivespring.repository.SurveyTranslationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps translations of stored surveys in the {@code survey_translations} collection as
+ * overlays on their source: only the translated text of each segment, by path. A translated
+ * survey is materialized from its source and overlay when read, and recently read ones are
+ * cached. When a source survey is edited its translations are patched by path: only segments
+ * whose source text changed are translated again. Segments the model failed to translate are
+ * recorded as such and sent again on the next patch or read.
+ */
+@Slf4j
+@Service
+public class StoredTranslationService {
+    
+    private final SurveyRepository surveyRepository;
+    private final SurveyTranslationRepository translationRepository;
+    private final SurveyTranslationService translationService;
+    private final SurveySegmentExtractor segmentExtractor;
+    private final int concurrency;
+    // Materialized translations by source survey id and language
+    private final Cache<String, Survey> materialized;
+    
+    public StoredTranslationService(
+            SurveyRepository surveyRepository,
+            SurveyTranslationRepository translationRepository,
+            SurveyTranslationService translationService,
+            SurveySegmentExtractor segmentExtractor,
+            @Value("${translation.batch.concurrency:4}") int concurrency,
+            @Value("${translation.stored.cache.max-size:1000}") long cacheMaxSize,
+            @Value("${translation.stored.cache.ttl-minutes:10}") long cacheTtlMinutes) {
+        this.surveyRepository = surveyRepository;
+        this.translationRepository = translationRepository;
+        this.translationService = translationService;
+        this.segmentExtractor = segmentExtractor;
+        this.concurrency = concurrency;
+        this.materialized = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .build();
+    }
+    
+    /**
+     * Translates a stored survey and stores the result, replacing any previous translation
+     * into the same language. Segments left untranslated are stored as such, see
+     * {@link SurveyTranslation#getUntranslatedPaths()}.
+     */
+    public Mono<Survey> translateAndStore(String surveyId, TranslationVariantRequest variantRequest) {
+        return findSource(surveyId).flatMap(source -> translateAndStore(source, variantRequest));
+    }
+    
+    /**
+     * Same as {@link #translateAndStore(String, TranslationVariantRequest)} for a source survey
+     * the caller has just read or saved.
+     */
+    public Mono<Survey> translateAndStore(Survey source, TranslationVariantRequest variantRequest) {
+        String language = variantRequest.getTargetLanguage();
+        SurveyTranslationRequest.TranslationOptions options = variantRequest.getOptions();
+        List<TextSegment> segments = segmentExtractor.extractSegments(source, options);
+        return translationService.translateSegments(toRequest(source, language, options), segments)
+                .flatMap(translated -> store(source, language, options, translated)
+                        // A concurrent first translation into the language inserted it first: replace that one
+                        .onErrorResume(DuplicateKeyException.class, e -> store(source, language, options, translated)))
+                .map(translation -> {
+                    Survey survey = materialize(source, translation);
+                    // An incomplete translation is not cached, so the next read translates the rest
+                    if (isComplete(translation)) {
+                        materialized.put(cacheKey(source.getId(), language), survey);
+                    } else {
+                        materialized.invalidate(cacheKey(source.getId(), language));
+                    }
+                    return survey;
+                });
+    }
+    
+    public Flux<Survey> findTranslations(String surveyId) {
+        return surveyRepository.findById(surveyId)
+                .flatMapMany(source -> translationRepository.findBySourceSurveyId(surveyId)
+                        .flatMapSequential(translation -> completeAndMaterialize(source, translation), concurrency));
+    }
+    
+    /**
+     * The stored translation of a survey into one language. Recently read translations are
+     * served from the cache without reading the source or the overlay.
+     */
+    public Mono<Survey> findTranslation(String surveyId, String language) {
+        Survey cached = materialized.getIfPresent(cacheKey(surveyId, language));
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return findSource(surveyId)
+                .flatMap(source -> translationRepository.findBySourceSurveyIdAndLanguage(surveyId, language)
+                        .flatMap(translation -> completeAndMaterialize(source, translation)))
+                .switchIfEmpty(Mono.error(new SurveyNotFoundException(
+                        "No " + language + " translation of survey " + surveyId)));
+    }
+    
+    /**
+     * Replaces a stored source survey and brings each of its stored translations up to date.
+     * Translations are saved before the source, so a failure part-way leaves the previous
+     * source in place and the next update diffs against it again.
+     */
+    public Mono<SurveyUpdateResponse> updateSource(String surveyId, Survey edited) {
+        return findSource(surveyId).flatMap(previous -> {
+            long startTime = System.currentTimeMillis();
+            AtomicInteger retranslated = new AtomicInteger();
+            
+            edited.setId(surveyId);
+            edited.setSourceSurveyId(null);
+            edited.setTranslationOptions(null);
+            edited.setCreatedAt(previous.getCreatedAt());
+            edited.setUpdatedAt(LocalDateTime.now());
+            
+            List<TextSegment> segments = segmentExtractor.extractSegments(edited, null);
+            int changed = changedSegments(previous, segments, null).size();
+            
+            return translationRepository.findBySourceSurveyId(surveyId)
+                    .flatMap(translation -> patchTranslation(previous, edited, translation, retranslated), concurrency)
+                    .collectList()
+                    .flatMap(patched -> translationRepository.saveAll(patched)
+                            .map(SurveyTranslation::getLanguage)
+                            .collectList())
+                    .flatMap(languages -> surveyRepository.save(edited)
+                            .map(saved -> SurveyUpdateResponse.builder()
+                                    .survey(saved)
+                                    .totalTextBlocks(segments.size())
+                                    .changedTextBlocks(changed)
+                                    .retranslatedTextBlocks(retranslated.get())
+                                    .updatedLanguages(languages)
+                                    .processingTimeMs(System.currentTimeMillis() - startTime)
+                                    .build()))
+                    .doFinally(signal -> evict(surveyId));
+        });
+    }
+    
+    /**
+     * Deletes a stored source survey and its translations. Translations go first, so none is
+     * left behind without its source.
+     */
+    public Mono<Void> deleteSource(String surveyId) {
+        return findSource(surveyId)
+                .flatMap(source -> translationRepository.deleteBySourceSurveyId(surveyId)
+                        .doOnNext(deleted -> log.info("Deleting survey {} and its {} translations", surveyId, deleted))
+                        .then(surveyRepository.deleteById(surveyId)))
+                .doFinally(signal -> evict(surveyId));
+    }
+    
+    /**
+     * Converts translations stored as full copies of their source in the {@code surveys}
+     * collection into overlays, and removes the copies.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateFullCopyTranslations() {
+        surveyRepository.findBySourceSurveyIdNotNull()
+                .concatMap(copy -> surveyRepository.findById(copy.getSourceSurveyId())
+                        .flatMap(source -> translationRepository
+                                .findBySourceSurveyIdAndLanguage(source.getId(), copy.getLanguage())
+                                .switchIfEmpty(Mono.defer(() -> translationRepository.save(asOverlay(source, copy)))))
+                        .then(Mono.defer(() -> surveyRepository.delete(copy)))
+                        .thenReturn(copy))
+                .count()
+                .subscribe(migrated -> {
+                    if (migrated > 0) {
+                        log.info("Migrated {} full-copy survey translations to overlays", migrated);
+                    }
+                }, error -> log.error("Failed to migrate full-copy survey translations", error));
+    }
+    
+    private Mono<SurveyTranslation> patchTranslation(Survey previous, Survey edited, SurveyTranslation translation,
+                                                     AtomicInteger retranslated) {
+        List<TextSegment> segments = segmentExtractor.extractSegments(edited, translation.getTranslationOptions());
+        Set<String> changedPaths = changedSegments(previous, segments, translation.getTranslationOptions()).stream()
+                .map(TextSegment::getPath)
+                .collect(Collectors.toSet());
+        return retranslate(edited, translation, segments, changedPaths, retranslated);
+    }
+    
+    /**
+     * Materializes a stored translation, first translating the segments an earlier call left
+     * untranslated. If the model fails again the translation is served as it is, uncached, so
+     * the next read tries once more.
+     */
+    private Mono<Survey> completeAndMaterialize(Survey source, SurveyTranslation translation) {
+        if (isComplete(translation)) {
+            return Mono.just(cachedMaterialize(source, translation));
+        }
+        List<TextSegment> segments = segmentExtractor.extractSegments(source, translation.getTranslationOptions());
+        return retranslate(source, translation, segments, Collections.emptySet(), new AtomicInteger())
+                .flatMap(translationRepository::save)
+                .map(saved -> isComplete(saved) ? cachedMaterialize(source, saved) : materialize(source, saved))
+                .onErrorResume(error -> {
+                    log.warn("Could not complete {} translation of survey {}: {}",
+                            translation.getLanguage(), source.getId(), error.getMessage());
+                    return Mono.just(materialize(source, translation));
+                });
+    }
+    
+    /**
+     * Translates the changed segments of {@code source}, and those an earlier call left
+     * untranslated, into the overlay of {@code translation}.
+     */
+    private Mono<SurveyTranslation> retranslate(Survey source, SurveyTranslation translation, List<TextSegment> segments,
+                                                Set<String> changedPaths, AtomicInteger retranslated) {
+        // Unchanged segments keep their stored translation, or read through to the source when the
+        // overlay left them out as translated to themselves; only changed and untranslated
+        // segments are sent again
+        Map<String, String> translatedByPath = toMap(translation.getSegments());
+        Set<String> untranslatedPaths = untranslatedPaths(translation);
+        Map<String, String> kept = new HashMap<>();
+        List<TextSegment> stale = new ArrayList<>();
+        for (TextSegment segment : segments) {
+            if (changedPaths.contains(segment.getPath()) || untranslatedPaths.contains(segment.getPath())) {
+                stale.add(segment);
+            } else {
+                kept.put(segment.getPath(), translatedByPath.getOrDefault(segment.getPath(), segment.getText()));
+            }
+        }
+        
+        log.info("Patching {} translation of survey {}: {} of {} segments to translate",
+                translation.getLanguage(), source.getId(), stale.size(), segments.size());
+        
+        Mono<Map<String, String>> fresh = stale.isEmpty()
+                ? Mono.just(Collections.emptyMap())
+                : translationService.translateSegments(
+                        toRequest(source, translation.getLanguage(), translation.getTranslationOptions()), stale);
+        
+        return fresh.map(translated -> {
+            retranslated.addAndGet(translated.size());
+            kept.putAll(translated);
+            applyOverlay(translation, source, kept);
+            translation.setUpdatedAt(LocalDateTime.now());
+            return translation;
+        });
+    }
+    
+    private List<TextSegment> changedSegments(Survey previous, List<TextSegment> segments,
+                                              SurveyTranslationRequest.TranslationOptions options) {
+        Map<String, String> previousByPath = toMap(segmentExtractor.extractSegments(previous, options));
+        List<TextSegment> changed = new ArrayList<>();
+        for (TextSegment segment : segments) {
+            if (!Objects.equals(previousByPath.get(segment.getPath()), segment.getText())) {
+                changed.add(segment);
+            }
+        }
+        return changed;
+    }
+    
+    private Mono<SurveyTranslation> store(Survey source, String language,
+                                          SurveyTranslationRequest.TranslationOptions options,
+                                          Map<String, String> translated) {
+        return translationRepository.findBySourceSurveyIdAndLanguage(source.getId(), language)
+                .defaultIfEmpty(SurveyTranslation.builder()
+                        .sourceSurveyId(source.getId())
+                        .language(language)
+                        .createdAt(LocalDateTime.now())
+                        .build())
+                .flatMap(translation -> {
+                    translation.setTranslationOptions(options);
+                    applyOverlay(translation, source, translated);
+                    translation.setUpdatedAt(LocalDateTime.now());
+                    return translationRepository.save(translation);
+                });
+    }
+    
+    /**
+     * Sets the overlay of {@code translation} to the translated segments of {@code source} worth
+     * storing: those with a translation that differs from the source text. Segments without a
+     * translation are recorded as untranslated; everything else reads through to the source when
+     * materialized.
+     */
+    private void applyOverlay(SurveyTranslation translation, Survey source, Map<String, String> translatedByPath) {
+        List<TextSegment> overlay = new ArrayList<>();
+        List<String> untranslated = new ArrayList<>();
+        for (TextSegment segment : segmentExtractor.extractSegments(source, translation.getTranslationOptions())) {
+            String translated = translatedByPath.get(segment.getPath());
+            if (translated == null) {
+                untranslated.add(segment.getPath());
+            } else if (!translated.equals(segment.getText())) {
+                overlay.add(new TextSegment(segment.getPath(), translated));
+            }
+        }
+        translation.setSegments(overlay);
+        translation.setUntranslatedPaths(untranslated.isEmpty() ? null : untranslated);
+    }
+    
+    private SurveyTranslation asOverlay(Survey source, Survey copy) {
+        SurveyTranslationRequest.TranslationOptions options = copy.getTranslationOptions();
+        SurveyTranslation translation = SurveyTranslation.builder()
+                .sourceSurveyId(source.getId())
+                .language(copy.getLanguage())
+                .translationOptions(options)
+                .createdAt(copy.getCreatedAt())
+                .updatedAt(copy.getUpdatedAt())
+                .build();
+        applyOverlay(translation, source, toMap(segmentExtractor.extractSegments(copy, options)));
+        return translation;
+    }
+    
+    /**
+     * The full translated survey: a copy of the source with the overlay's segments merged in,
+     * carrying the translation's own identity.
+     */
+    private Survey materialize(Survey source, SurveyTranslation translation) {
+        Survey survey = segmentExtractor.mergeSegments(source, toMap(translation.getSegments()));
+        survey.setId(translation.getId());
+        survey.setLanguage(translation.getLanguage());
+        survey.setSourceSurveyId(source.getId());
+        survey.setTranslationOptions(translation.getTranslationOptions());
+        survey.setCreatedAt(translation.getCreatedAt());
+        survey.setUpdatedAt(translation.getUpdatedAt());
+        return survey;
+    }
+    
+    private Survey cachedMaterialize(Survey source, SurveyTranslation translation) {
+        return materialized.get(cacheKey(source.getId(), translation.getLanguage()),
+                key -> materialize(source, translation));
+    }
+    
+    private void evict(String surveyId) {
+        String prefix = cacheKey(surveyId, "");
+        materialized.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+    
+    private Mono<Survey> findSource(String surveyId) {
+        return surveyRepository.findById(surveyId)
+                .filter(survey -> survey.getSourceSurveyId() == null)
+                .switchIfEmpty(Mono.error(new SurveyNotFoundException("Survey not found: " + surveyId)));
+    }
+    
+    private SurveyTranslationRequest toRequest(Survey source, String targetLanguage,
+                                               SurveyTranslationRequest.TranslationOptions options) {
+        return SurveyTranslationRequest.builder()
+                .survey(source)
+                .sourceLanguage(source.getLanguage())
+                .targetLanguage(targetLanguage)
+                .options(options)
+                .build();
+    }
+    
+    private static String cacheKey(String surveyId, String language) {
+        return surveyId + '/' + language;
+    }
+    
+    private static boolean isComplete(SurveyTranslation translation) {
+        return translation.getUntranslatedPaths() == null || translation.getUntranslatedPaths().isEmpty();
+    }
+    
+    private static Set<String> untranslatedPaths(SurveyTranslation translation) {
+        return isComplete(translation) ? Collections.emptySet() : new HashSet<>(translation.getUntranslatedPaths());
+    }
+    
+    private static Map<String, String> toMap(List<TextSegment> segments) {
+        Map<String, String> byPath = new HashMap<>();
+        if (segments != null) {
+            for (TextSegment segment : segments) {
+                byPath.put(segment.getPath(), segment.getText());
+            }
+        }
+        return byPath;
+    }
+}
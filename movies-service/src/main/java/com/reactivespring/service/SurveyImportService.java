@@ -0,0 +1,200 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.SurveyImportResult;
+import com.reactivespring.dto.TranslationVariantRequest;
+import com.reactivespring.repository.SurveyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports a stream of surveys in batches, optionally translating each one. The upload is read
+ * only as fast as batches are written and translated, so memory stays bounded by a couple of
+ * batches however large the upload is.
+ */
+@Slf4j
+@Service
+public class SurveyImportService {
+    
+    private final SurveyRepository surveyRepository;
+    private final StoredTranslationService storedTranslationService;
+    private final Validator validator;
+    private final int batchSize;
+    private final int translationConcurrency;
+    
+    public SurveyImportService(
+            SurveyRepository surveyRepository,
+            StoredTranslationService storedTranslationService,
+            Validator validator,
+            @Value("${translation.import.batch-size:500}") int batchSize,
+            @Value("${translation.import.translation-concurrency:4}") int translationConcurrency) {
+        this.surveyRepository = surveyRepository;
+        this.storedTranslationService = storedTranslationService;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.translationConcurrency = translationConcurrency;
+    }
+    
+    /**
+     * Validates and stores each survey as a new source survey, then translates it into
+     * {@code targetLanguages} as stored translations. One result is emitted per survey, in
+     * upload order. A stream that cannot be read any further ends with a single FAILED result.
+     */
+    public Flux<SurveyImportResult> importSurveys(Flux<Survey> surveys, List<String> targetLanguages) {
+        List<String> languages = targetLanguages != null ? targetLanguages : Collections.emptyList();
+        return surveys
+                .index((index, survey) -> validate(index + 1, survey))
+                .buffer(batchSize)
+                // One batch in flight, so the upload is only read as fast as it is stored; a broken
+                // upload still lets the batch in flight finish and report its results
+                .concatMapDelayError(batch -> insertBatch(batch)
+                        .flatMapSequential(record -> translate(record, languages), translationConcurrency), false, 1)
+                .onErrorResume(error -> {
+                    log.error("Survey import stopped", error);
+                    return Mono.just(SurveyImportResult.builder()
+                            .status(SurveyImportResult.Status.FAILED)
+                            .errors(Collections.singletonList("Import stopped: " + error.getMessage()))
+                            .build());
+                });
+    }
+    
+    private ImportRecord validate(long number, Survey survey) {
+        Set<ConstraintViolation<Survey>> violations = validator.validate(survey);
+        List<String> errors = violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+        return new ImportRecord(number, survey, errors);
+    }
+    
+    /**
+     * Inserts the valid surveys of a batch with a single insertMany. If that fails, the
+     * surveys it did not store are inserted one at a time to find out which of them fail.
+     */
+    private Flux<ImportRecord> insertBatch(List<ImportRecord> batch) {
+        List<Survey> valid = new ArrayList<>();
+        for (ImportRecord record : batch) {
+            if (record.errors.isEmpty()) {
+                valid.add(asSource(record.survey));
+            }
+        }
+        if (valid.isEmpty()) {
+            return Flux.fromIterable(batch);
+        }
+        
+        return surveyRepository.insert(valid)
+                .then(Mono.fromRunnable(() -> markInserted(batch)))
+                .onErrorResume(error -> {
+                    log.warn("Batch insert of {} surveys failed ({}), inserting them one at a time",
+                            valid.size(), error.getMessage());
+                    return insertIndividually(batch);
+                })
+                .thenMany(Flux.fromIterable(batch));
+    }
+    
+    private Mono<Void> insertIndividually(List<ImportRecord> batch) {
+        List<String> ids = batch.stream()
+                .filter(record -> record.errors.isEmpty())
+                .map(record -> record.survey.getId())
+                .collect(Collectors.toList());
+        // Ids are assigned before inserting, so the surveys the batch did store can be told apart
+        return surveyRepository.findAllById(ids)
+                .map(Survey::getId)
+                .collect(Collectors.toSet())
+                .flatMapMany(stored -> Flux.fromIterable(batch)
+                        .filter(record -> record.errors.isEmpty())
+                        .concatMap(record -> stored.contains(record.survey.getId())
+                                ? Mono.fromRunnable(() -> record.inserted = true)
+                                : surveyRepository.insert(record.survey)
+                                        .doOnNext(saved -> record.inserted = true)
+                                        .onErrorResume(error -> {
+                                            record.failure = error.getMessage();
+                                            return Mono.empty();
+                                        })))
+                .then();
+    }
+    
+    private Mono<SurveyImportResult> translate(ImportRecord record, List<String> languages) {
+        if (!record.inserted || languages.isEmpty()) {
+            return Mono.just(record.toResult(null, null));
+        }
+        Map<String, String> translations = new LinkedHashMap<>();
+        Map<String, String> translationErrors = new LinkedHashMap<>();
+        return Flux.fromIterable(languages)
+                .concatMap(language -> storedTranslationService
+                        .translateAndStore(record.survey, TranslationVariantRequest.builder()
+                                .targetLanguage(language)
+                                .build())
+                        .doOnNext(translation -> translations.put(language, translation.getId()))
+                        .onErrorResume(error -> {
+                            translationErrors.put(language, error.getMessage());
+                            return Mono.empty();
+                        }))
+                .then(Mono.fromSupplier(() -> record.toResult(translations, translationErrors)))
+                // Bulk translations yield to interactive requests at the model call limiter
+                .contextWrite(ModelCallLimiter.withPriority(ModelCallLimiter.Priority.BACKGROUND));
+    }
+    
+    private static void markInserted(List<ImportRecord> batch) {
+        for (ImportRecord record : batch) {
+            if (record.errors.isEmpty()) {
+                record.inserted = true;
+            }
+        }
+    }
+    
+    private static Survey asSource(Survey survey) {
+        survey.setId(new ObjectId().toHexString());
+        survey.setSourceSurveyId(null);
+        survey.setTranslationOptions(null);
+        if (survey.getCreatedAt() == null) {
+            survey.setCreatedAt(LocalDateTime.now());
+        }
+        return survey;
+    }
+    
+    private static class ImportRecord {
+        
+        private final long number;
+        private final Survey survey;
+        private final List<String> errors;
+        private boolean inserted;
+        private String failure;
+        
+        ImportRecord(long number, Survey survey, List<String> errors) {
+            this.number = number;
+            this.survey = survey;
+            this.errors = errors;
+        }
+        
+        SurveyImportResult toResult(Map<String, String> translations, Map<String, String> translationErrors) {
+            SurveyImportResult.Status status = !errors.isEmpty() ? SurveyImportResult.Status.INVALID
+                    : inserted ? SurveyImportResult.Status.IMPORTED
+                    : SurveyImportResult.Status.FAILED;
+            return SurveyImportResult.builder()
+                    .record(number)
+                    .status(status)
+                    .id(inserted ? survey.getId() : null)
+                    .title(survey.getTitle())
+                    .errors(failure != null ? Collections.singletonList(failure) : errors)
+                    .translations(translations)
+                    .translationErrors(translationErrors)
+                    .build();
+        }
+    }
+}
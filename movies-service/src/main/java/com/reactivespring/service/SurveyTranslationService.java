@@ -1,138 +1,410 @@
 package com.reactivespring.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.converter.SurveyChunker;
+import com.reactivespring.converter.SurveySegmentExtractor;
 import com.reactivespring.converter.SurveyTranslationMessageConverter;
+import com.reactivespring.converter.TranslationResponseParser;
 import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.BatchTranslationRequest;
+import com.reactivespring.dto.BatchTranslationResponse;
 import com.reactivespring.dto.CustomMessage;
 import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.SurveyTranslationEvent;
 import com.reactivespring.dto.SurveyTranslationResponse;
-import dev.langchain4j.model.chat.ChatLanguageModel;
+import com.reactivespring.dto.TextSegment;
+import com.reactivespring.exception.ModelCallRejectedException;
+import com.reactivespring.exception.ModelUnavailableException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class SurveyTranslationService {
     
-    private final ChatLanguageModel chatLanguageModel;
+    private final ReactiveChatModel chatModel;
     private final SurveyTranslationMessageConverter messageConverter;
-    private final ObjectMapper objectMapper;
+    private final SurveySegmentExtractor segmentExtractor;
+    private final SurveyChunker surveyChunker;
+    private final TranslationResponseParser responseParser;
+    private final TranslationMemoryService translationMemory;
+    private final TranslationLatencyTracker latencyTracker;
+    private final TranslationRequestCoalescer requestCoalescer;
+    private final ModelCallResilience resilience;
+    private final TranslationMetrics metrics;
+    // Languages of batch requests translated at once, across all batch requests
+    private final ConcurrencyGate batchGate;
+    
+    @Value("${translation.segment.max-attempts:2}")
+    private int maxSegmentAttempts;
+    
+    @Value("${translation.stream.concurrency:4}")
+    private int streamConcurrency;
+    
+    @Value("${translation.chunk.parallelism:4}")
+    private int chunkParallelism;
     
     @Autowired
     public SurveyTranslationService(
-            ChatLanguageModel chatLanguageModel,
+            ReactiveChatModel chatModel,
             SurveyTranslationMessageConverter messageConverter,
-            ObjectMapper objectMapper) {
-        this.chatLanguageModel = chatLanguageModel;
+            SurveySegmentExtractor segmentExtractor,
+            SurveyChunker surveyChunker,
+            TranslationResponseParser responseParser,
+            TranslationMemoryService translationMemory,
+            TranslationLatencyTracker latencyTracker,
+            TranslationRequestCoalescer requestCoalescer,
+            ModelCallResilience resilience,
+            TranslationMetrics metrics,
+            @Value("${translation.batch.concurrency:4}") int batchConcurrency) {
+        this.chatModel = chatModel;
         this.messageConverter = messageConverter;
-        this.objectMapper = objectMapper;
+        this.segmentExtractor = segmentExtractor;
+        this.surveyChunker = surveyChunker;
+        this.responseParser = responseParser;
+        this.translationMemory = translationMemory;
+        this.latencyTracker = latencyTracker;
+        this.requestCoalescer = requestCoalescer;
+        this.resilience = resilience;
+        this.metrics = metrics;
+        this.batchGate = new ConcurrencyGate(batchConcurrency);
     }
     
     public Mono<SurveyTranslationResponse> translateSurvey(SurveyTranslationRequest request) {
         log.info("Starting translation from {} to {}", request.getSourceLanguage(), request.getTargetLanguage());
         
-        return Mono.fromCallable(() -> performTranslation(request))
-                .subscribeOn(Schedulers.boundedElastic())
+        // Identical concurrent requests share a single translation
+        return requestCoalescer.coalesce(request, () -> {
+                    // Flatten the survey into the text segments that actually need translating
+                    List<TextSegment> segments = segmentExtractor.extractSegments(request.getSurvey(), request.getOptions());
+                    
+                    return translateSegmentsOf(request, segments);
+                })
                 .doOnSuccess(response -> log.info("Translation completed successfully"))
                 .doOnError(error -> log.error("Translation failed", error));
     }
     
-    private SurveyTranslationResponse performTranslation(SurveyTranslationRequest request) {
-        long startTime = System.currentTimeMillis();
-        
-        try {
-            // Convert request to CustomMessage
-            CustomMessage message = messageConverter.convertToMessage(request);
-            
-            // Call OpenAI via LangChain4j
-            String response = chatLanguageModel.generate(message.text());
-            
-            // Parse the response back to Survey object
-            Survey translatedSurvey = parseTranslatedSurvey(response, request);
-            
-            // Build metadata
-            SurveyTranslationResponse.TranslationMetadata metadata = buildMetadata(
-                    request, startTime, System.currentTimeMillis(), true
-            );
-            
-            return SurveyTranslationResponse.builder()
-                    .translatedSurvey(translatedSurvey)
-                    .sourceLanguage(request.getSourceLanguage())
-                    .targetLanguage(request.getTargetLanguage())
-                    .metadata(metadata)
-                    .build();
+    /**
+     * Translates one survey into every requested target language. Segments are extracted once
+     * and shared by all languages; up to {@code translation.batch.concurrency} languages are
+     * translated at once across all batch requests, the rest wait for a free slot. A failing
+     * language is reported in the response without failing the others.
+     */
+    public Mono<BatchTranslationResponse> translateSurveyBatch(BatchTranslationRequest batchRequest) {
+        log.info("Starting batch translation from {} to {}", batchRequest.getSourceLanguage(), batchRequest.getTargetLanguages());
+        
+        return Mono.defer(() -> {
+                    long startTime = System.currentTimeMillis();
+                    List<TextSegment> segments = segmentExtractor.extractSegments(batchRequest.getSurvey(), batchRequest.getOptions());
+                    List<String> targetLanguages = batchRequest.getTargetLanguages().stream()
+                            .distinct()
+                            .collect(Collectors.toList());
                     
-        } catch (Exception e) {
-            log.error("Error during translation", e);
-            
-            // Build error metadata
-            SurveyTranslationResponse.TranslationMetadata metadata = buildMetadata(
-                    request, startTime, System.currentTimeMillis(), false
-            );
-            
-            throw new RuntimeException("Translation failed: " + e.getMessage(), e);
+                    Map<String, SurveyTranslationResponse> translations = new ConcurrentHashMap<>();
+                    Map<String, String> errors = new ConcurrentHashMap<>();
+                    
+                    return Flux.fromIterable(targetLanguages)
+                            .flatMap(targetLanguage -> batchGate.withPermit(
+                                            translateSegmentsOf(batchRequest.forTargetLanguage(targetLanguage), segments))
+                                    .doOnNext(response -> translations.put(targetLanguage, response))
+                                    .onErrorResume(error -> {
+                                        log.error("Batch translation to {} failed", targetLanguage, error);
+                                        errors.put(targetLanguage, error.getMessage());
+                                        return Mono.empty();
+                                    }))
+                            .then(Mono.fromSupplier(() -> BatchTranslationResponse.builder()
+                                    .sourceLanguage(batchRequest.getSourceLanguage())
+                                    .translations(inRequestOrder(targetLanguages, translations))
+                                    .errors(inRequestOrder(targetLanguages, errors))
+                                    .processingTimeMs(System.currentTimeMillis() - startTime)
+                                    .build()));
+                })
+                .doOnSuccess(response -> log.info("Batch translation completed: {} succeeded, {} failed",
+                        response.getTranslations().size(), response.getErrors().size()));
+    }
+    
+    /**
+     * Translates individual segments through the translation memory and returns the
+     * translations keyed by segment path. Used to patch stored translations incrementally.
+     */
+    public Mono<Map<String, String>> translateSegments(SurveyTranslationRequest request, List<TextSegment> segments) {
+        return translateWithMemory(request, segments, new AtomicInteger());
+    }
+    
+    private Mono<SurveyTranslationResponse> translateSegmentsOf(SurveyTranslationRequest request, List<TextSegment> segments) {
+        return metrics.timeTranslation(request, Mono.defer(() -> {
+                    long startTime = System.currentTimeMillis();
+                    AtomicInteger memoryHits = new AtomicInteger();
+                    
+                    return translateWithMemory(request, segments, memoryHits)
+                            .map(translations -> buildResponse(request, segments, translations, memoryHits.get(), startTime));
+                }))
+                .doOnSuccess(response -> latencyTracker.record(response.getMetadata().getTotalTextBlocks(),
+                        response.getMetadata().getProcessingTimeMs()));
+    }
+    
+    private static <T> Map<String, T> inRequestOrder(List<String> targetLanguages, Map<String, T> byLanguage) {
+        Map<String, T> ordered = new LinkedHashMap<>();
+        for (String targetLanguage : targetLanguages) {
+            if (byLanguage.containsKey(targetLanguage)) {
+                ordered.put(targetLanguage, byLanguage.get(targetLanguage));
+            }
         }
+        return ordered;
     }
     
-    private Survey parseTranslatedSurvey(String response, SurveyTranslationRequest request) {
-        try {
-            // Clean the response to extract JSON
-            String cleanedResponse = extractJsonFromResponse(response);
-            
-            // Parse the JSON to Survey object
-            Survey translatedSurvey = objectMapper.readValue(cleanedResponse, Survey.class);
-            
-            // Update metadata fields
-            translatedSurvey.setLanguage(request.getTargetLanguage());
-            translatedSurvey.setUpdatedAt(LocalDateTime.now());
-            
-            return translatedSurvey;
-            
-        } catch (Exception e) {
-            log.error("Failed to parse translated survey", e);
-            throw new RuntimeException("Failed to parse translated survey: " + e.getMessage(), e);
+    /**
+     * Translates the survey part by part (introduction, each section, footer) and emits each
+     * part as soon as it is translated, followed by a final metadata event.
+     */
+    public Flux<SurveyTranslationEvent> translateSurveyStream(SurveyTranslationRequest request) {
+        log.info("Starting streaming translation from {} to {}", request.getSourceLanguage(), request.getTargetLanguage());
+        
+        return metrics.timeTranslation(request, Flux.defer(() -> {
+                    long startTime = System.currentTimeMillis();
+                    AtomicInteger memoryHits = new AtomicInteger();
+                    AtomicInteger translatedBlocks = new AtomicInteger();
+                    
+                    List<TextSegment> segments = segmentExtractor.extractSegments(request.getSurvey(), request.getOptions());
+                    
+                    // -1 groups the title, introduction and footer; sections are grouped by index
+                    Map<Integer, List<TextSegment>> segmentsBySection = segments.stream()
+                            .collect(Collectors.groupingBy(segment -> SurveySegmentExtractor.sectionIndexOf(segment.getPath()),
+                                    LinkedHashMap::new, Collectors.toList()));
+                    
+                    int sectionCount = request.getSurvey().getContentBlock() == null
+                            || request.getSurvey().getContentBlock().getSections() == null
+                            ? 0 : request.getSurvey().getContentBlock().getSections().size();
+                    List<Integer> parts = new ArrayList<>();
+                    parts.add(-1);
+                    for (int i = 0; i < sectionCount; i++) parts.add(i);
+                    
+                    Flux<SurveyTranslationEvent> partEvents = Flux.fromIterable(parts)
+                            .flatMap(part -> translateWithMemory(request,
+                                            segmentsBySection.getOrDefault(part, Collections.emptyList()), memoryHits)
+                                    .doOnNext(translations -> translatedBlocks.addAndGet(translations.size()))
+                                    .flatMapMany(translations -> toEvents(request.getSurvey(), part, translations)),
+                                    streamConcurrency);
+                    
+                    Mono<SurveyTranslationEvent> metadataEvent = Mono.fromSupplier(() -> SurveyTranslationEvent.builder()
+                            .type(SurveyTranslationEvent.METADATA)
+                            .metadata(buildMetadata(request, segments.size(), translatedBlocks.get(),
+                                    memoryHits.get(), startTime, System.currentTimeMillis()))
+                            .build());
+                    
+                    return Flux.concat(partEvents, metadataEvent);
+                }))
+                .doOnComplete(() -> log.info("Streaming translation completed successfully"))
+                .doOnError(error -> log.error("Streaming translation failed", error));
+    }
+    
+    private Flux<SurveyTranslationEvent> toEvents(Survey survey, int part, Map<String, String> translations) {
+        if (part >= 0) {
+            return Flux.just(SurveyTranslationEvent.builder()
+                    .type(SurveyTranslationEvent.SECTION)
+                    .sectionIndex(part)
+                    .section(segmentExtractor.mergeSection(survey, part, translations))
+                    .build());
+        }
+        
+        Survey header = segmentExtractor.mergeIntroduction(survey, translations);
+        SurveyTranslationEvent introduction = SurveyTranslationEvent.builder()
+                .type(SurveyTranslationEvent.INTRODUCTION)
+                .title(header.getTitle())
+                .introductionBlock(header.getIntroductionBlock())
+                .build();
+        if (survey.getFooterBlock() == null) {
+            return Flux.just(introduction);
         }
+        
+        return Flux.just(introduction, SurveyTranslationEvent.builder()
+                .type(SurveyTranslationEvent.FOOTER)
+                .footerBlock(segmentExtractor.mergeFooter(survey, translations))
+                .build());
+    }
+    
+    /**
+     * Translates segments through the translation memory: only segments it has not seen go to
+     * the model, and fresh translations are remembered. Returns translations keyed by path.
+     */
+    private Mono<Map<String, String>> translateWithMemory(
+            SurveyTranslationRequest request,
+            List<TextSegment> segments,
+            AtomicInteger memoryHits) {
+        
+        return translationMemory.lookup(request, segments)
+                .flatMap(remembered -> {
+                    memoryHits.addAndGet(remembered.size());
+                    metrics.countSegments(request, "memory", remembered.size());
+                    List<TextSegment> misses = segments.stream()
+                            .filter(segment -> !remembered.containsKey(segment.getPath()))
+                            .collect(Collectors.toList());
+                    
+                    return translateMisses(request, misses)
+                            .doOnNext(translated -> metrics.countSegments(request, "model", translated.size()))
+                            .flatMap(translated -> translationMemory.remember(request, misses, translated)
+                                    .thenReturn(translated))
+                            .map(translated -> {
+                                Map<String, String> translations = new HashMap<>(remembered);
+                                translations.putAll(translated);
+                                return translations;
+                            });
+                });
     }
     
-    private String extractJsonFromResponse(String response) {
-        // Remove markdown code blocks if present
-        String cleaned = response.trim();
-        if (cleaned.startsWith("```json")) {
-            cleaned = cleaned.substring(7);
-        } else if (cleaned.startsWith("```")) {
-            cleaned = cleaned.substring(3);
+    private Mono<Map<String, String>> translateMisses(SurveyTranslationRequest request, List<TextSegment> misses) {
+        if (misses.isEmpty()) {
+            return Mono.just(new HashMap<>());
         }
         
-        if (cleaned.endsWith("```")) {
-            cleaned = cleaned.substring(0, cleaned.length() - 3);
+        // Repeated strings ("Yes", "No", ...) are sent to the model once and fanned out by path
+        Map<String, List<String>> pathsByText = new LinkedHashMap<>();
+        List<TextSegment> unique = new ArrayList<>();
+        for (TextSegment segment : misses) {
+            pathsByText.computeIfAbsent(segment.getText(), text -> {
+                unique.add(segment);
+                return new ArrayList<>();
+            }).add(segment.getPath());
         }
         
-        // Find the first { and last } to extract JSON
-        int start = cleaned.indexOf('{');
-        int end = cleaned.lastIndexOf('}');
+        return translateChunks(request, unique)
+                .map(translatedByPath -> {
+                    Map<String, String> translations = new HashMap<>();
+                    for (TextSegment segment : unique) {
+                        String translated = translatedByPath.get(segment.getPath());
+                        if (translated != null) {
+                            pathsByText.get(segment.getText()).forEach(path -> translations.put(path, translated));
+                        }
+                    }
+                    return translations;
+                })
+                .onErrorMap(e -> !(e instanceof ModelCallRejectedException),
+                        e -> new RuntimeException("Translation failed: " + e.getMessage(), e));
+    }
+    
+    private SurveyTranslationResponse buildResponse(
+            SurveyTranslationRequest request,
+            List<TextSegment> segments,
+            Map<String, String> translations,
+            int memoryHits,
+            long startTime) {
+        
+        // Merge translated strings back into a copy of the source survey
+        Survey translatedSurvey = segmentExtractor.mergeSegments(request.getSurvey(), translations);
+        translatedSurvey.setLanguage(request.getTargetLanguage());
+        translatedSurvey.setUpdatedAt(LocalDateTime.now());
+        
+        // Build metadata
+        SurveyTranslationResponse.TranslationMetadata metadata = buildMetadata(
+                request, segments.size(), translations.size(), memoryHits, startTime, System.currentTimeMillis()
+        );
         
-        if (start != -1 && end != -1 && end > start) {
-            return cleaned.substring(start, end + 1);
+        return SurveyTranslationResponse.builder()
+                .translatedSurvey(translatedSurvey)
+                .sourceLanguage(request.getSourceLanguage())
+                .targetLanguage(request.getTargetLanguage())
+                .metadata(metadata)
+                .build();
+    }
+    
+    /**
+     * Sends the segments to the model and returns translations keyed by segment path.
+     * Segments are split into chunks that fit the token budget and up to
+     * {@code translation.chunk.parallelism} chunks are translated concurrently. Segments missing
+     * from a reply (or from an unparseable reply) are re-sent on their own, up to
+     * {@code translation.segment.max-attempts} model calls per chunk. While the model's circuit
+     * breaker is open, chunks fall back to their source text and the response is marked incomplete.
+     */
+    private Mono<Map<String, String>> translateChunks(SurveyTranslationRequest request, List<TextSegment> segments) {
+        List<List<TextSegment>> chunks = surveyChunker.chunk(segments);
+        if (chunks.size() > 1) {
+            log.info("Translating {} segments in {} chunks", segments.size(), chunks.size());
         }
         
-        return cleaned.trim();
+        // Results are merged by path, so chunks may complete in any order
+        return Flux.fromIterable(chunks)
+                .flatMap(chunk -> translateAttempt(request, chunk, new HashMap<>(), 1)
+                                .onErrorResume(ModelUnavailableException.class, e -> {
+                                    log.warn("Model unavailable, {} segments keep their source text", chunk.size());
+                                    metrics.countSegments(request, "source", chunk.size());
+                                    return Mono.just(new HashMap<>());
+                                }),
+                        chunkParallelism)
+                .reduceWith(HashMap::new, (translations, chunkTranslations) -> {
+                    translations.putAll(chunkTranslations);
+                    return translations;
+                });
+    }
+    
+    private Mono<Map<String, String>> translateAttempt(
+            SurveyTranslationRequest request,
+            List<TextSegment> pending,
+            Map<String, String> translations,
+            int attempt) {
+        
+        return Mono.defer(() -> {
+                    // Convert request to CustomMessage
+                    CustomMessage message = metrics.timePromptBuild(request,
+                            () -> messageConverter.convertToMessage(request, pending));
+                    
+                    // Call OpenAI via LangChain4j, parsing the reply as it streams in; transient
+                    // failures are retried from the start of the reply
+                    return resilience.execute(() -> responseParser.parse(resilience.stream(admitted ->
+                            chatModel.stream(message.text(), reply -> metrics.timeModelCall(request, admitted.apply(reply))))));
+                })
+                .map(reply -> {
+                    metrics.recordParse(request, reply.isComplete(), reply.getParseNanos());
+                    if (!reply.isComplete()) {
+                        // Segments completed before the reply broke off are kept; the rest are retried
+                        log.warn("Attempt {}: reply was not a complete JSON object", attempt);
+                    }
+                    
+                    Map<String, String> translatedByKey = reply.getTranslations();
+                    List<TextSegment> missing = new ArrayList<>();
+                    for (int i = 0; i < pending.size(); i++) {
+                        String translated = translatedByKey.get(String.valueOf(i));
+                        if (translated != null) {
+                            translations.put(pending.get(i).getPath(), translated);
+                        } else {
+                            missing.add(pending.get(i));
+                        }
+                    }
+                    
+                    if (!missing.isEmpty()) {
+                        log.warn("Attempt {}: {} of {} segments were not translated", attempt, missing.size(), pending.size());
+                    }
+                    return missing;
+                })
+                .flatMap(missing -> missing.isEmpty() || attempt >= maxSegmentAttempts
+                        ? Mono.just(translations)
+                        : translateAttempt(request, missing, translations, attempt + 1));
     }
     
     private SurveyTranslationResponse.TranslationMetadata buildMetadata(
             SurveyTranslationRequest request, 
+            int totalTextBlocks, 
+            int translatedBlocks, 
+            int memoryHits, 
             long startTime, 
-            long endTime, 
-            boolean isComplete) {
+            long endTime) {
         
         Map<String, String> translationNotes = new HashMap<>();
         translationNotes.put("model", "OpenAI GPT");
+        translationNotes.put("memoryHits", String.valueOf(memoryHits));
         
         if (request.getOptions() != null) {
             if (request.getOptions().getTone() != null) {
@@ -143,80 +415,18 @@ public class SurveyTranslationService {
             }
         }
         
-        // Count text blocks in the survey
-        int totalTextBlocks = countTextBlocks(request.getSurvey());
+        boolean isComplete = translatedBlocks == totalTextBlocks;
+        double translatedRatio = totalTextBlocks == 0 ? 1.0 : (double) translatedBlocks / totalTextBlocks;
         
         return SurveyTranslationResponse.TranslationMetadata.builder()
                 .translatedAt(LocalDateTime.now())
                 .translationModel("OpenAI GPT")
                 .totalTextBlocks(totalTextBlocks)
-                .translatedBlocks(isComplete ? totalTextBlocks : 0)
-                .confidenceScore(isComplete ? 0.95 : 0.0)
+                .translatedBlocks(translatedBlocks)
+                .confidenceScore(0.95 * translatedRatio)
                 .processingTimeMs(endTime - startTime)
                 .translationNotes(translationNotes)
                 .isComplete(isComplete)
                 .build();
     }
-    
-    private int countTextBlocks(Survey survey) {
-        int count = 0;
-        
-        // Count survey title
-        if (survey.getTitle() != null) count++;
-        
-        // Count introduction block
-        if (survey.getIntroductionBlock() != null) {
-            if (survey.getIntroductionBlock().getTitle() != null) count++;
-            if (survey.getIntroductionBlock().getDescription() != null) count++;
-            if (survey.getIntroductionBlock().getWelcomeMessage() != null) count++;
-            if (survey.getIntroductionBlock().getInstructions() != null) {
-                count += survey.getIntroductionBlock().getInstructions().size();
-            }
-        }
-        
-        // Count content block
-        if (survey.getContentBlock() != null && survey.getContentBlock().getSections() != null) {
-            for (Survey.Section section : survey.getContentBlock().getSections()) {
-                if (section.getTitle() != null) count++;
-                if (section.getDescription() != null) count++;
-                
-                if (section.getCategories() != null) {
-                    for (Survey.Category category : section.getCategories()) {
-                        if (category.getName() != null) count++;
-                        if (category.getDescription() != null) count++;
-                        
-                        if (category.getQuestions() != null) {
-                            for (Survey.Question question : category.getQuestions()) {
-                                if (question.getQuestionText() != null) count++;
-                                if (question.getDescription() != null) count++;
-                                
-                                if (question.getChoices() != null) {
-                                    for (Survey.Choice choice : question.getChoices()) {
-                                        if (choice.getText() != null) count++;
-                                    }
-                                }
-                                
-                                if (question.getValidationRules() != null && 
-                                    question.getValidationRules().getErrorMessage() != null) {
-                                    count++;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        }
-        
-        // Count footer block
-        if (survey.getFooterBlock() != null) {
-            if (survey.getFooterBlock().getThankYouMessage() != null) count++;
-            if (survey.getFooterBlock().getSubmitButtonText() != null) count++;
-            if (survey.getFooterBlock().getContactInformation() != null) count++;
-            if (survey.getFooterBlock().getAdditionalInstructions() != null) {
-                count += survey.getFooterBlock().getAdditionalInstructions().size();
-            }
-        }
-        
-        return count;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+package com.reactivespring.service;
+
+import com.reactivespring.converter.SurveySegmentExtractor;
+import com.reactivespring.domain.TranslationJob;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.exception.TranslationJobRejectedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs asynchronous translation jobs from a bounded queue with a fixed number of
+ * concurrent translations on a dedicated scheduler. Submissions beyond the queue
+ * capacity are rejected instead of piling up work.
+ * <p>
+ * Each instance holds a lease on the jobs it queued, renewed every third of
+ * {@code translation.jobs.lease-ms}. Jobs whose lease expired, because their instance stopped,
+ * are claimed one at a time by whichever instance has room in its queue.
+ */
+@Slf4j
+@Service
+public class TranslationJobService {
+    
+    private final SurveyTranslationService translationService;
+    private final SurveySegmentExtractor segmentExtractor;
+    private final TranslationJobStore jobStore;
+    private final TranslationLatencyTracker latencyTracker;
+    private final TranslationMetrics metrics;
+    
+    private final int concurrency;
+    private final int queueCapacity;
+    private final Duration lease;
+    private final String instanceId = UUID.randomUUID().toString();
+    
+    private final AtomicInteger queuedJobs = new AtomicInteger();
+    private final AtomicLong queuedTextBlocks = new AtomicLong();
+    
+    private Sinks.Many<TranslationJob> queue;
+    private Scheduler jobScheduler;
+    private Disposable worker;
+    private Disposable leaseKeeper;
+    
+    public TranslationJobService(
+            SurveyTranslationService translationService,
+            SurveySegmentExtractor segmentExtractor,
+            TranslationJobStore jobStore,
+            TranslationLatencyTracker latencyTracker,
+            TranslationMetrics metrics,
+            @Value("${translation.jobs.concurrency:4}") int concurrency,
+            @Value("${translation.jobs.queue-capacity:100}") int queueCapacity,
+            @Value("${translation.jobs.lease-ms:60000}") long leaseMs) {
+        this.translationService = translationService;
+        this.segmentExtractor = segmentExtractor;
+        this.jobStore = jobStore;
+        this.latencyTracker = latencyTracker;
+        this.metrics = metrics;
+        this.concurrency = concurrency;
+        this.queueCapacity = queueCapacity;
+        this.lease = Duration.ofMillis(leaseMs);
+    }
+    
+    @PostConstruct
+    public void start() {
+        queue = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(queueCapacity));
+        jobScheduler = Schedulers.newBoundedElastic(concurrency, queueCapacity, "translation-jobs");
+        worker = queue.asFlux()
+                .flatMap(job -> process(job).subscribeOn(jobScheduler), concurrency, 1)
+                .subscribe();
+        leaseKeeper = Flux.interval(lease.dividedBy(3))
+                .onBackpressureDrop()
+                .concatMap(tick -> jobStore.renewLeases(instanceId).then(claimExpiredJobs()))
+                .subscribe();
+        
+        metrics.registerGauge("survey.translation.jobs.queued", "Translation jobs waiting for a worker",
+                queuedJobs, AtomicInteger::get);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        leaseKeeper.dispose();
+        worker.dispose();
+        jobScheduler.dispose();
+    }
+    
+    /**
+     * Claims jobs left behind by instances that stopped, without waiting for the first lease renewal.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverUnfinishedJobs() {
+        claimExpiredJobs().subscribe();
+    }
+    
+    public Mono<TranslationJob> submit(SurveyTranslationRequest request) {
+        return Mono.defer(() -> {
+            int totalTextBlocks = segmentExtractor.extractSegments(request.getSurvey(), request.getOptions()).size();
+            
+            TranslationJob job = TranslationJob.builder()
+                    .id(UUID.randomUUID().toString())
+                    .status(TranslationJob.JobStatus.QUEUED)
+                    .request(request)
+                    .totalTextBlocks(totalTextBlocks)
+                    .estimatedCompletionTimeMs(estimateCompletionMs(totalTextBlocks))
+                    .owner(instanceId)
+                    .heartbeatAt(LocalDateTime.now())
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            
+            return enqueue(job);
+        });
+    }
+    
+    public Mono<TranslationJob> getJob(String jobId) {
+        return jobStore.findById(jobId);
+    }
+    
+    public int getQueueDepth() {
+        return queuedJobs.get();
+    }
+    
+    private Mono<TranslationJob> enqueue(TranslationJob job) {
+        // Persist before emitting so a worker's PROCESSING update can never be overwritten
+        return jobStore.save(job).flatMap(saved -> {
+            if (emit(job)) {
+                return Mono.just(job);
+            }
+            
+            log.warn("Rejected translation job {}: translation queue is full", job.getId());
+            job.setStatus(TranslationJob.JobStatus.FAILED);
+            job.setError("Rejected: translation queue is full");
+            return jobStore.save(job).then(Mono.error(new TranslationJobRejectedException(
+                    "Translation queue is full (" + queueCapacity + " jobs), please retry later")));
+        });
+    }
+    
+    /**
+     * Claims expired jobs one at a time while the queue has room. A claimed job that no longer
+     * fits is released again rather than failed, so another instance can take it.
+     */
+    private Mono<Void> claimExpiredJobs() {
+        return Mono.defer(() -> queuedJobs.get() >= queueCapacity
+                        ? Mono.<TranslationJob>empty()
+                        : jobStore.claimExpired(instanceId, lease))
+                .flatMap(job -> {
+                    log.info("Recovering unfinished translation job {}", job.getId());
+                    if (emit(job)) {
+                        return Mono.just(true);
+                    }
+                    log.info("Releasing translation job {}: translation queue is full", job.getId());
+                    return jobStore.release(job).thenReturn(false);
+                })
+                .flatMap(claimed -> claimed ? claimExpiredJobs() : Mono.empty());
+    }
+    
+    private boolean emit(TranslationJob job) {
+        queuedJobs.incrementAndGet();
+        queuedTextBlocks.addAndGet(job.getTotalTextBlocks());
+        
+        Sinks.EmitResult result;
+        synchronized (queue) {
+            result = queue.tryEmitNext(job);
+        }
+        if (!result.isSuccess()) {
+            dequeued(job);
+        }
+        return result.isSuccess();
+    }
+    
+    private Mono<TranslationJob> process(TranslationJob job) {
+        dequeued(job);
+        job.setStatus(TranslationJob.JobStatus.PROCESSING);
+        job.setStartedAt(LocalDateTime.now());
+        // The save below writes the whole job, so it must not put back an older heartbeat
+        job.setHeartbeatAt(LocalDateTime.now());
+        
+        return jobStore.save(job)
+                .then(translationService.translateSurvey(job.getRequest())
+                        .contextWrite(ModelCallLimiter.withPriority(ModelCallLimiter.Priority.BACKGROUND)))
+                .map(response -> {
+                    job.setStatus(TranslationJob.JobStatus.COMPLETED);
+                    job.setResult(response);
+                    return job;
+                })
+                .onErrorResume(error -> {
+                    log.error("Async translation failed for job: {}", job.getId(), error);
+                    job.setStatus(TranslationJob.JobStatus.FAILED);
+                    job.setError(error.getMessage());
+                    return Mono.just(job);
+                })
+                .flatMap(finished -> {
+                    finished.setCompletedAt(LocalDateTime.now());
+                    log.info("Async translation {} for job: {}", finished.getStatus(), finished.getId());
+                    return jobStore.save(finished);
+                });
+    }
+    
+    private void dequeued(TranslationJob job) {
+        queuedJobs.decrementAndGet();
+        queuedTextBlocks.addAndGet(-job.getTotalTextBlocks());
+    }
+    
+    /**
+     * Time to drain the blocks already queued ahead across all workers, plus this job's own blocks.
+     */
+    private long estimateCompletionMs(int totalTextBlocks) {
+        return latencyTracker.estimateMs(queuedTextBlocks.get() / concurrency + totalTextBlocks);
+    }
+}
@@ -0,0 +1,93 @@
+package com.reactivespring.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivespring.domain.TranslationJob;
+import com.reactivespring.repository.TranslationJobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Job store backed by the {@code translation_jobs} collection with an in-memory tier.
+ * Every job is kept in memory for {@code translation.jobs.retention-minutes}, so status
+ * lookups keep working (and Mongo outages only cost durability) while Mongo is unavailable.
+ * Finished jobs leave the collection as long after completing, through the TTL index of
+ * {@link com.reactivespring.config.TranslationJobIndexConfig}.
+ */
+@Slf4j
+@Component
+public class TranslationJobStore {
+    
+    private final TranslationJobRepository jobRepository;
+    private final Cache<String, TranslationJob> recentJobs;
+    
+    public TranslationJobStore(
+            TranslationJobRepository jobRepository,
+            @Value("${translation.jobs.retention-minutes:60}") long retentionMinutes,
+            @Value("${translation.jobs.max-retained:10000}") long maxRetained) {
+        this.jobRepository = jobRepository;
+        this.recentJobs = Caffeine.newBuilder()
+                .maximumSize(maxRetained)
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .build();
+    }
+    
+    public Mono<TranslationJob> save(TranslationJob job) {
+        recentJobs.put(job.getId(), job);
+        
+        return jobRepository.save(job)
+                .onErrorResume(error -> {
+                    log.warn("Failed to persist translation job {}, keeping it in memory only: {}",
+                            job.getId(), error.getMessage());
+                    return Mono.just(job);
+                });
+    }
+    
+    public Mono<TranslationJob> findById(String jobId) {
+        TranslationJob job = recentJobs.getIfPresent(jobId);
+        if (job != null) {
+            return Mono.just(job);
+        }
+        
+        return jobRepository.findById(jobId)
+                .onErrorResume(error -> {
+                    log.warn("Failed to load translation job {}: {}", jobId, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    /**
+     * Claims the oldest unfinished job whose lease is older than {@code lease}, for {@code owner}.
+     */
+    public Mono<TranslationJob> claimExpired(String owner, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        return jobRepository.claimExpired(owner, now.minus(lease), now)
+                .doOnNext(job -> recentJobs.put(job.getId(), job))
+                .onErrorResume(error -> {
+                    log.warn("Failed to claim an expired translation job: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    public Mono<Void> renewLeases(String owner) {
+        return jobRepository.renewLeases(owner, LocalDateTime.now())
+                .onErrorResume(error -> {
+                    log.warn("Failed to renew translation job leases: {}", error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+    
+    public Mono<Void> release(TranslationJob job) {
+        return jobRepository.release(job.getId(), job.getOwner())
+                .onErrorResume(error -> {
+                    log.warn("Failed to release translation job {}: {}", job.getId(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,33 @@
+package com.reactivespring.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps an exponentially weighted moving average of translation time per text block,
+ * used to estimate job completion times from observed latency.
+ */
+@Component
+public class TranslationLatencyTracker {
+    
+    private static final double ALPHA = 0.2;
+    
+    private volatile double msPerBlock;
+    
+    public TranslationLatencyTracker(@Value("${translation.jobs.initial-ms-per-block:500}") double initialMsPerBlock) {
+        this.msPerBlock = initialMsPerBlock;
+    }
+    
+    public synchronized void record(int textBlocks, long elapsedMs) {
+        if (textBlocks <= 0) return;
+        msPerBlock = ALPHA * ((double) elapsedMs / textBlocks) + (1 - ALPHA) * msPerBlock;
+    }
+    
+    public long estimateMs(long textBlocks) {
+        return Math.round(textBlocks * msPerBlock);
+    }
+    
+    public double getMsPerBlock() {
+        return msPerBlock;
+    }
+}
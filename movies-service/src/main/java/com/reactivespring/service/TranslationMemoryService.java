@@ -0,0 +1,176 @@
+package com.reactivespring.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.reactivespring.domain.TranslationMemoryEntry;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
+import com.reactivespring.dto.TranslationMemoryStats;
+import com.reactivespring.repository.TranslationMemoryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier translation memory: a bounded in-process cache in front of the
+ * {@code translation_memory} collection. Entries are keyed by language pair plus a
+ * content hash of the segment text, so repeated strings are only sent to the model once.
+ * Stored entries expire 90 days after they were written, see {@link TranslationMemoryEntry}.
+ */
+@Slf4j
+@Service
+public class TranslationMemoryService {
+    
+    private final TranslationMemoryRepository memoryRepository;
+    private final Cache<String, String> localCache;
+    
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong storeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    public TranslationMemoryService(
+            TranslationMemoryRepository memoryRepository,
+            @Value("${translation.memory.cache.max-size:100000}") long maxSize,
+            @Value("${translation.memory.cache.ttl-minutes:720}") long ttlMinutes) {
+        this.memoryRepository = memoryRepository;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+    
+    /**
+     * Returns the remembered translations of the given segments, keyed by segment path.
+     * Store failures are logged and treated as misses.
+     */
+    public Mono<Map<String, String>> lookup(SurveyTranslationRequest request, List<TextSegment> segments) {
+        Map<String, List<String>> pathsByKey = new LinkedHashMap<>();
+        for (TextSegment segment : segments) {
+            pathsByKey.computeIfAbsent(memoryKey(request, segment.getText()), key -> new ArrayList<>())
+                    .add(segment.getPath());
+        }
+        if (pathsByKey.isEmpty()) {
+            return Mono.just(new HashMap<>());
+        }
+        
+        Map<String, String> found = new HashMap<>(localCache.getAllPresent(pathsByKey.keySet()));
+        localHits.addAndGet(found.size());
+        
+        List<String> remaining = new ArrayList<>();
+        for (String key : pathsByKey.keySet()) {
+            if (!found.containsKey(key)) remaining.add(key);
+        }
+        
+        Mono<Map<String, String>> fromStore = remaining.isEmpty()
+                ? Mono.just(found)
+                : memoryRepository.findAllById(remaining)
+                        .doOnNext(entry -> {
+                            localCache.put(entry.getId(), entry.getTranslatedText());
+                            found.put(entry.getId(), entry.getTranslatedText());
+                            storeHits.incrementAndGet();
+                        })
+                        .then(Mono.just(found))
+                        .onErrorResume(error -> {
+                            log.warn("Translation memory lookup failed, treating as misses: {}", error.getMessage());
+                            return Mono.just(found);
+                        });
+        
+        return fromStore.map(hits -> {
+            misses.addAndGet(pathsByKey.size() - hits.size());
+            
+            Map<String, String> translatedByPath = new HashMap<>();
+            hits.forEach((key, translated) -> pathsByKey.get(key)
+                    .forEach(path -> translatedByPath.put(path, translated)));
+            return translatedByPath;
+        });
+    }
+    
+    /**
+     * Stores freshly translated segments in both tiers. Store failures are logged and
+     * never fail the translation itself.
+     */
+    public Mono<Void> remember(SurveyTranslationRequest request,
+                               List<TextSegment> segments,
+                               Map<String, String> translatedByPath) {
+        
+        Map<String, TranslationMemoryEntry> entries = new LinkedHashMap<>();
+        for (TextSegment segment : segments) {
+            String translated = translatedByPath.get(segment.getPath());
+            if (translated == null) continue;
+            
+            String key = memoryKey(request, segment.getText());
+            localCache.put(key, translated);
+            entries.putIfAbsent(key, TranslationMemoryEntry.builder()
+                    .id(key)
+                    .sourceLanguage(request.getSourceLanguage())
+                    .targetLanguage(request.getTargetLanguage())
+                    .sourceText(segment.getText())
+                    .translatedText(translated)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+        }
+        if (entries.isEmpty()) {
+            return Mono.empty();
+        }
+        
+        return memoryRepository.saveAll(entries.values())
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Failed to persist {} translation memory entries: {}", entries.size(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+    
+    public TranslationMemoryStats getStats() {
+        long local = localHits.get();
+        long store = storeHits.get();
+        long missed = misses.get();
+        long lookups = local + store + missed;
+        
+        return TranslationMemoryStats.builder()
+                .lookups(lookups)
+                .localHits(local)
+                .storeHits(store)
+                .misses(missed)
+                .hitRatio(lookups == 0 ? 0.0 : (double) (local + store) / lookups)
+                .cachedEntries(localCache.estimatedSize())
+                .evictions(localCache.stats().evictionCount())
+                .build();
+    }
+    
+    /**
+     * Tone and context change how a segment should read, so they are part of the hashed content.
+     */
+    static String memoryKey(SurveyTranslationRequest request, String text) {
+        SurveyTranslationRequest.TranslationOptions options = request.getOptions();
+        String content = (options != null && options.getTone() != null ? options.getTone() : "") + '\u0000'
+                + (options != null && options.getContext() != null ? options.getContext() : "") + '\u0000'
+                + text;
+        
+        return request.getSourceLanguage() + ":" + request.getTargetLanguage() + ":" + sha256(content);
+    }
+    
+    private static String sha256(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.reactivespring.service;
+
+import com.reactivespring.dto.SupportedLanguages;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer meters for the translation pipeline. Every stage timer is tagged with the
+ * language pair and an {@code outcome} of {@code success}, {@code error} or {@code cancelled}.
+ * Languages come straight from requests, so they are tagged by their primary subtag and only
+ * when it is one of the supported languages; anything else is tagged {@code other}.
+ */
+@Component
+public class TranslationMetrics {
+    
+    public static final String TRANSLATION = "survey.translation";
+    public static final String PROMPT_BUILD = "survey.translation.prompt.build";
+    public static final String MODEL_CALL = "survey.translation.model.call";
+    public static final String RESPONSE_PARSE = "survey.translation.response.parse";
+    public static final String SEGMENTS = "survey.translation.segments";
+    public static final String IN_FLIGHT = "survey.translation.in.flight";
+    
+    static final String OTHER_LANGUAGE = "other";
+    
+    private final MeterRegistry registry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    public TranslationMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder(IN_FLIGHT, inFlight, AtomicInteger::get)
+                .description("Survey translations currently in progress")
+                .register(registry);
+    }
+    
+    /**
+     * Times a whole translation from subscription to termination and counts it as in flight meanwhile.
+     */
+    public <T> Mono<T> timeTranslation(SurveyTranslationRequest request, Mono<T> translation) {
+        return Mono.defer(() -> {
+            inFlight.incrementAndGet();
+            Timer.Sample sample = Timer.start(registry);
+            return translation.doFinally(signal -> {
+                inFlight.decrementAndGet();
+                sample.stop(timer(TRANSLATION, request, outcome(signal)));
+            });
+        });
+    }
+    
+    public <T> Flux<T> timeTranslation(SurveyTranslationRequest request, Flux<T> translation) {
+        return Flux.defer(() -> {
+            inFlight.incrementAndGet();
+            Timer.Sample sample = Timer.start(registry);
+            return translation.doFinally(signal -> {
+                inFlight.decrementAndGet();
+                sample.stop(timer(TRANSLATION, request, outcome(signal)));
+            });
+        });
+    }
+    
+    /**
+     * Times one model call from when the {@link ModelCallLimiter} admits it until its reply ends,
+     * so waiting for a slot is left out; each retry and hedge is a call of its own.
+     */
+    public <T> Flux<T> timeModelCall(SurveyTranslationRequest request, Flux<T> call) {
+        return Flux.defer(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return call.doFinally(signal -> sample.stop(timer(MODEL_CALL, request, outcome(signal))));
+        });
+    }
+    
+    public <T> T timePromptBuild(SurveyTranslationRequest request, Supplier<T> promptBuilder) {
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            T prompt = promptBuilder.get();
+            outcome = "success";
+            return prompt;
+        } finally {
+            sample.stop(timer(PROMPT_BUILD, request, outcome));
+        }
+    }
+    
+    /**
+     * Records the time spent parsing a reply; with a streamed reply this is spread over its tokens.
+     */
+    public void recordParse(SurveyTranslationRequest request, boolean complete, long parseNanos) {
+        timer(RESPONSE_PARSE, request, complete ? "success" : "error").record(parseNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Counts segments by where their translation came from: {@code memory} or {@code model}.
+     */
+    public void countSegments(SurveyTranslationRequest request, String origin, int segments) {
+        if (segments <= 0) return;
+        Counter.builder(SEGMENTS)
+                .tags(languageTags(request))
+                .tag("origin", origin)
+                .register(registry)
+                .increment(segments);
+    }
+    
+    public <T> void registerGauge(String name, String description, T state, ToDoubleFunction<T> value) {
+        Gauge.builder(name, state, value)
+                .description(description)
+                .register(registry);
+    }
+    
+    public <T> void registerCounter(String name, String description, T state, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, state, value)
+                .description(description)
+                .register(registry);
+    }
+    
+    private Timer timer(String name, SurveyTranslationRequest request, String outcome) {
+        return Timer.builder(name)
+                .tags(languageTags(request))
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+    
+    private static Tags languageTags(SurveyTranslationRequest request) {
+        return Tags.of("source", languageTag(request.getSourceLanguage()),
+                "target", languageTag(request.getTargetLanguage()));
+    }
+    
+    static String languageTag(String language) {
+        if (language == null) return OTHER_LANGUAGE;
+        String primary = language.trim().split("[-_]", 2)[0].toLowerCase(Locale.ROOT);
+        return SupportedLanguages.isSupported(primary) ? primary : OTHER_LANGUAGE;
+    }
+    
+    private static String outcome(SignalType signal) {
+        switch (signal) {
+            case ON_COMPLETE:
+                return "success";
+            case ON_ERROR:
+                return "error";
+            default:
+                return "cancelled";
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.reactivespring.service;
+
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.SurveyTranslationResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer for translations: concurrent callers with an identical request share
+ * one in-flight translation instead of each calling the model. The entry is removed as soon
+ * as the translation completes or fails, so later requests always start a fresh one. The shared
+ * translation runs with the context of the caller that started it, so callers only join
+ * translations of their own {@link ModelCallLimiter.Priority}: an interactive request never
+ * waits behind background jobs for a translation a background job started.
+ */
+@Slf4j
+@Component
+public class TranslationRequestCoalescer {
+    
+    private final ObjectMapper canonicalMapper;
+    private final Map<String, Mono<SurveyTranslationResponse>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedRequests = new AtomicLong();
+    
+    public TranslationRequestCoalescer(ObjectMapper objectMapper, TranslationMetrics metrics) {
+        // Sorted properties and map keys make the serialized form, and so the hash, canonical
+        this.canonicalMapper = objectMapper.copy()
+                .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+                .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        metrics.registerCounter("survey.translation.coalesced", "Requests that joined an identical in-flight translation",
+                coalescedRequests, AtomicLong::get);
+    }
+    
+    public Mono<SurveyTranslationResponse> coalesce(SurveyTranslationRequest request,
+                                                    Supplier<Mono<SurveyTranslationResponse>> translation) {
+        return Mono.deferContextual(context -> {
+            String key = ModelCallLimiter.priorityOf(context) + ":" + requestKey(request);
+            
+            AtomicReference<Mono<SurveyTranslationResponse>> self = new AtomicReference<>();
+            Mono<SurveyTranslationResponse> shared = Mono.defer(translation)
+                    .doFinally(signal -> inFlight.remove(key, self.get()))
+                    .cache();
+            self.set(shared);
+            
+            Mono<SurveyTranslationResponse> existing = inFlight.putIfAbsent(key, shared);
+            if (existing != null) {
+                coalescedRequests.incrementAndGet();
+                log.info("Joining in-flight translation from {} to {}", request.getSourceLanguage(), request.getTargetLanguage());
+                return existing;
+            }
+            return shared;
+        });
+    }
+    
+    public long getCoalescedRequests() {
+        return coalescedRequests.get();
+    }
+    
+    public int getInFlight() {
+        return inFlight.size();
+    }
+    
+    /**
+     * SHA-256 of the canonical JSON of the whole request, streamed straight into the digest.
+     */
+    String requestKey(SurveyTranslationRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+                canonicalMapper.writeValue(out, request);
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not serialize translation request", e);
+        }
+    }
+}
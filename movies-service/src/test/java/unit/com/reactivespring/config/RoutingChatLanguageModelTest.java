@@ -0,0 +1,162 @@
+package com.reactivespring.config;
+
+import dev.ai4j.openai4j.OpenAiHttpException;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RoutingChatLanguageModelTest {
+    
+    private static final long COOLDOWN_NANOS = TimeUnit.SECONDS.toNanos(30);
+    
+    @Test
+    public void testGenerate_RoutesBySurveySize() {
+        RoutingChatLanguageModel router = new RoutingChatLanguageModel(Arrays.asList(
+                backend("long-context", 100_000, 0, reply("long-context")),
+                backend("fast", 1_000, 0, reply("fast"))), COOLDOWN_NANOS);
+        
+        assertEquals("fast", router.generate("x".repeat(400)));
+        assertEquals("long-context", router.generate("x".repeat(40_000)));
+    }
+    
+    @Test
+    public void testGenerate_PrefersLowerLatencyWithinSizeClass() {
+        ModelBackend slow = backend("slow", 1_000, 0, reply("slow"));
+        ModelBackend quick = backend("quick", 1_000, 0, reply("quick"));
+        RoutingChatLanguageModel router = new RoutingChatLanguageModel(Arrays.asList(slow, quick), COOLDOWN_NANOS);
+        
+        slow.recordSuccess(TimeUnit.SECONDS.toNanos(10), System.nanoTime());
+        
+        assertEquals("quick", router.generate("hello"));
+    }
+    
+    @Test
+    public void testGenerate_RoutesAroundRateLimitedBackend() {
+        ChatLanguageModel limited = new ChatLanguageModel() {
+            @Override
+            public Response<AiMessage> generate(List<ChatMessage> messages) {
+                throw new OpenAiHttpException(429, "Rate limit reached");
+            }
+        };
+        RoutingChatLanguageModel router = new RoutingChatLanguageModel(Arrays.asList(
+                backend("primary", 1_000, 0, limited),
+                backend("spare", 1_000, 0, reply("spare"))), COOLDOWN_NANOS);
+        
+        // Ties go to the first backend until it answers 429
+        assertThrows(OpenAiHttpException.class, () -> router.generate("hello"));
+        assertEquals("spare", router.generate("hello"));
+        assertEquals("spare", router.generate("hello"));
+    }
+    
+    @Test
+    public void testGenerate_RoutesAroundWrappedRateLimit() {
+        ChatLanguageModel limited = new ChatLanguageModel() {
+            @Override
+            public Response<AiMessage> generate(List<ChatMessage> messages) {
+                throw new RuntimeException(new OpenAiHttpException(429, "Rate limit reached"));
+            }
+        };
+        ModelBackend primary = backend("primary", 1_000, 0, limited);
+        RoutingChatLanguageModel router = new RoutingChatLanguageModel(Arrays.asList(
+                primary, backend("spare", 1_000, 0, reply("spare"))), COOLDOWN_NANOS);
+        
+        assertThrows(RuntimeException.class, () -> router.generate("hello"));
+        assertFalse(primary.isAvailable(System.nanoTime()));
+        assertEquals("spare", router.generate("hello"));
+    }
+    
+    @Test
+    public void testStreaming_RoutesAroundRateLimitedBackend() {
+        StreamingChatLanguageModel limited = (messages, handler) ->
+                handler.onError(new RuntimeException(new OpenAiHttpException(429, "Rate limit reached")));
+        StreamingChatLanguageModel spare = (messages, handler) -> {
+            handler.onNext("spare");
+            handler.onComplete(Response.from(AiMessage.from("spare")));
+        };
+        ModelBackend primaryBackend = new ModelBackend("primary", null, limited, 1_000, 0, 1000);
+        ModelBackend spareBackend = new ModelBackend("spare", null, spare, 1_000, 0, 1000);
+        RoutingChatLanguageModel router = new RoutingChatLanguageModel(
+                Arrays.asList(primaryBackend, spareBackend), COOLDOWN_NANOS);
+        
+        List<String> tokens = new ArrayList<>();
+        router.streaming().generate("hello", handler(tokens));
+        router.streaming().generate("hello", handler(tokens));
+        
+        assertEquals(List.of("error", "spare"), tokens);
+        assertFalse(primaryBackend.isAvailable(System.nanoTime()));
+    }
+    
+    @Test
+    public void testStreaming_RecordsSynchronousFailures() {
+        StreamingChatLanguageModel failing = (messages, handler) -> {
+            throw new OpenAiHttpException(429, "Rate limit reached");
+        };
+        StreamingChatLanguageModel spare = (messages, handler) -> {
+            handler.onNext("spare");
+            handler.onComplete(Response.from(AiMessage.from("spare")));
+        };
+        ModelBackend primaryBackend = new ModelBackend("primary", null, failing, 1_000, 0, 1000);
+        ModelBackend spareBackend = new ModelBackend("spare", null, spare, 1_000, 0, 1000);
+        RoutingChatLanguageModel router = new RoutingChatLanguageModel(
+                Arrays.asList(primaryBackend, spareBackend), COOLDOWN_NANOS);
+        
+        List<String> tokens = new ArrayList<>();
+        assertThrows(OpenAiHttpException.class, () -> router.streaming().generate("hello", handler(tokens)));
+        router.streaming().generate("hello", handler(tokens));
+        
+        assertEquals(List.of("spare"), tokens);
+        assertFalse(primaryBackend.isAvailable(System.nanoTime()));
+        assertTrue(primaryBackend.errorRate(System.nanoTime()) > 0);
+    }
+    
+    @Test
+    public void testGenerate_SpillsOverWhenBudgetIsUsedUp() {
+        RoutingChatLanguageModel router = new RoutingChatLanguageModel(Arrays.asList(
+                backend("small", 1_000, 1, reply("small")),
+                backend("large", 100_000, 0, reply("large"))), COOLDOWN_NANOS);
+        
+        assertEquals("small", router.generate("hello"));
+        assertEquals("large", router.generate("hello"));
+    }
+    
+    private static ModelBackend backend(String name, int maxPromptTokens, int requestsPerMinute, ChatLanguageModel model) {
+        return new ModelBackend(name, model, null, maxPromptTokens, requestsPerMinute, 1000);
+    }
+    
+    private static StreamingResponseHandler<AiMessage> handler(List<String> tokens) {
+        return new StreamingResponseHandler<AiMessage>() {
+            @Override
+            public void onNext(String token) {
+                tokens.add(token);
+            }
+            
+            @Override
+            public void onError(Throwable error) {
+                tokens.add("error");
+            }
+        };
+    }
+    
+    private static ChatLanguageModel reply(String text) {
+        return new ChatLanguageModel() {
+            @Override
+            public Response<AiMessage> generate(List<ChatMessage> messages) {
+                return Response.from(AiMessage.from(text));
+            }
+        };
+    }
+}
@@ -1,21 +1,33 @@
 package com.reactivespring.controller;
 
 import com.reactivespring.domain.Survey;
+import com.reactivespring.domain.TranslationJob;
+import com.reactivespring.dto.BatchTranslationRequest;
+import com.reactivespring.dto.BatchTranslationResponse;
+import com.reactivespring.dto.SurveyTranslationEvent;
 import com.reactivespring.dto.SurveyTranslationRequest;
 import com.reactivespring.dto.SurveyTranslationResponse;
+import com.reactivespring.exception.TranslationJobRejectedException;
 import com.reactivespring.service.SurveyTranslationService;
+import com.reactivespring.service.TranslationJobService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
@@ -28,6 +40,9 @@ public class SurveyTranslationControllerTest {
     @MockBean
     private SurveyTranslationService translationService;
     
+    @MockBean
+    private TranslationJobService jobService;
+    
     @Test
     public void testTranslateSurvey_Success() {
         // Given - Create a sample survey
@@ -82,6 +97,100 @@ public class SurveyTranslationControllerTest {
                 });
     }
     
+    @Test
+    public void testTranslateSurveyBatch_ReturnsPerLanguageResults() {
+        BatchTranslationRequest request = BatchTranslationRequest.builder()
+                .survey(createSampleSurvey())
+                .sourceLanguage("en")
+                .targetLanguages(Arrays.asList("es", "fr"))
+                .build();
+        
+        when(translationService.translateSurveyBatch(any(BatchTranslationRequest.class)))
+                .thenReturn(Mono.just(BatchTranslationResponse.builder()
+                        .sourceLanguage("en")
+                        .translations(Collections.singletonMap("es", SurveyTranslationResponse.builder()
+                                .translatedSurvey(createTranslatedSurvey())
+                                .sourceLanguage("en")
+                                .targetLanguage("es")
+                                .build()))
+                        .errors(Collections.singletonMap("fr", "Translation failed: timeout"))
+                        .processingTimeMs(1200L)
+                        .build()));
+        
+        webTestClient.post()
+                .uri("/api/v1/surveys/translate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.translations.es.translatedSurvey.title").isEqualTo("Encuesta de Satisfacción del Cliente")
+                .jsonPath("$.errors.fr").isEqualTo("Translation failed: timeout");
+    }
+    
+    @Test
+    public void testTranslateSurveyBatch_RequiresTargetLanguages() {
+        BatchTranslationRequest request = BatchTranslationRequest.builder()
+                .survey(createSampleSurvey())
+                .sourceLanguage("en")
+                .targetLanguages(Collections.emptyList())
+                .build();
+        
+        webTestClient.post()
+                .uri("/api/v1/surveys/translate/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+    
+    @Test
+    public void testTranslateSurveyStream_EmitsPartsThenMetadata() {
+        Survey translatedSurvey = createTranslatedSurvey();
+        SurveyTranslationRequest request = SurveyTranslationRequest.builder()
+                .survey(createSampleSurvey())
+                .sourceLanguage("en")
+                .targetLanguage("es")
+                .build();
+        
+        when(translationService.translateSurveyStream(any(SurveyTranslationRequest.class)))
+                .thenReturn(Flux.just(
+                        SurveyTranslationEvent.builder()
+                                .type(SurveyTranslationEvent.SECTION)
+                                .sectionIndex(0)
+                                .section(translatedSurvey.getContentBlock().getSections().get(0))
+                                .build(),
+                        SurveyTranslationEvent.builder()
+                                .type(SurveyTranslationEvent.METADATA)
+                                .metadata(SurveyTranslationResponse.TranslationMetadata.builder()
+                                        .totalTextBlocks(10)
+                                        .translatedBlocks(10)
+                                        .isComplete(true)
+                                        .build())
+                                .build()));
+        
+        Flux<ServerSentEvent<SurveyTranslationEvent>> events = webTestClient.post()
+                .uri("/api/v1/surveys/translate/stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<SurveyTranslationEvent>>() {})
+                .getResponseBody();
+        
+        StepVerifier.create(events)
+                .assertNext(event -> {
+                    assertEquals("section", event.event());
+                    assertEquals("Calidad del Servicio", event.data().getSection().getTitle());
+                })
+                .assertNext(event -> {
+                    assertEquals("metadata", event.event());
+                    assertEquals(10, event.data().getMetadata().getTranslatedBlocks());
+                })
+                .verifyComplete();
+    }
+    
     @Test
     public void testGetSupportedLanguages_Success() {
         webTestClient.get()
@@ -105,9 +214,14 @@ public class SurveyTranslationControllerTest {
                 .targetLanguage("fr")
                 .build();
         
-        // Mock the service to return a successful response (for async it starts processing)
-        when(translationService.translateSurvey(any(SurveyTranslationRequest.class)))
-                .thenReturn(Mono.just(SurveyTranslationResponse.builder().build()));
+        // Mock the job service to accept the job into its queue
+        when(jobService.submit(any(SurveyTranslationRequest.class)))
+                .thenReturn(Mono.just(TranslationJob.builder()
+                        .id("job-1")
+                        .status(TranslationJob.JobStatus.QUEUED)
+                        .estimatedCompletionTimeMs(7500L)
+                        .createdAt(LocalDateTime.now())
+                        .build()));
         
         // When & Then
         webTestClient.post()
@@ -116,10 +230,62 @@ public class SurveyTranslationControllerTest {
                 .bodyValue(request)
                 .exchange()
                 .expectStatus().isAccepted()
+                .expectHeader().location("/api/v1/surveys/translate/jobs/job-1")
+                .expectBody()
+                .jsonPath("$.jobId").isEqualTo("job-1")
+                .jsonPath("$.status").isEqualTo("QUEUED")
+                .jsonPath("$.estimatedCompletionTimeMs").isEqualTo(7500);
+    }
+    
+    @Test
+    public void testTranslateSurveyAsync_QueueFull() {
+        SurveyTranslationRequest request = SurveyTranslationRequest.builder()
+                .survey(createSampleSurvey())
+                .sourceLanguage("en")
+                .targetLanguage("fr")
+                .build();
+        
+        when(jobService.submit(any(SurveyTranslationRequest.class)))
+                .thenReturn(Mono.error(new TranslationJobRejectedException("Translation queue is full")));
+        
+        webTestClient.post()
+                .uri("/api/v1/surveys/translate/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    
+    @Test
+    public void testGetTranslationJob_Completed() {
+        when(jobService.getJob("job-1"))
+                .thenReturn(Mono.just(TranslationJob.builder()
+                        .id("job-1")
+                        .status(TranslationJob.JobStatus.COMPLETED)
+                        .result(SurveyTranslationResponse.builder()
+                                .translatedSurvey(createTranslatedSurvey())
+                                .sourceLanguage("en")
+                                .targetLanguage("es")
+                                .build())
+                        .build()));
+        
+        webTestClient.get()
+                .uri("/api/v1/surveys/translate/jobs/job-1")
+                .exchange()
+                .expectStatus().isOk()
                 .expectBody()
-                .jsonPath("$.jobId").exists()
-                .jsonPath("$.status").isEqualTo("PROCESSING")
-                .jsonPath("$.estimatedCompletionTimeMs").isEqualTo(30000);
+                .jsonPath("$.status").isEqualTo("COMPLETED")
+                .jsonPath("$.result.translatedSurvey.title").isEqualTo("Encuesta de Satisfacción del Cliente");
+    }
+    
+    @Test
+    public void testGetTranslationJob_NotFound() {
+        when(jobService.getJob("unknown")).thenReturn(Mono.empty());
+        
+        webTestClient.get()
+                .uri("/api/v1/surveys/translate/jobs/unknown")
+                .exchange()
+                .expectStatus().isNotFound();
     }
     
     private Survey createSampleSurvey() {
@@ -0,0 +1,64 @@
+package com.reactivespring.converter;
+
+import com.reactivespring.dto.TextSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SurveyChunkerTest {
+    
+    private static final String CATEGORY_0 = "contentBlock.sections[0].categories[0]";
+    private static final String CATEGORY_1 = "contentBlock.sections[0].categories[1]";
+    
+    @Test
+    public void testChunk_SmallSurveyIsOneChunk() {
+        List<TextSegment> segments = Arrays.asList(
+                segment("title", 20),
+                segment(CATEGORY_0 + ".name", 20),
+                segment("footerBlock.submitButtonText", 20));
+        
+        assertEquals(1, new SurveyChunker(1500).chunk(segments).size());
+    }
+    
+    @Test
+    public void testChunk_SplitsAtCategoryBoundaries() {
+        List<TextSegment> segments = Arrays.asList(
+                segment(CATEGORY_0 + ".name", 100),
+                segment(CATEGORY_0 + ".questions[0].questionText", 100),
+                segment(CATEGORY_1 + ".name", 100),
+                segment(CATEGORY_1 + ".questions[0].questionText", 100));
+        
+        // Each category costs ~64 tokens: both do not fit in 100, so the cut falls between them
+        List<List<TextSegment>> chunks = new SurveyChunker(100).chunk(segments);
+        
+        assertEquals(2, chunks.size());
+        assertEquals(Arrays.asList(CATEGORY_0 + ".name", CATEGORY_0 + ".questions[0].questionText"), paths(chunks.get(0)));
+        assertEquals(Arrays.asList(CATEGORY_1 + ".name", CATEGORY_1 + ".questions[0].questionText"), paths(chunks.get(1)));
+    }
+    
+    @Test
+    public void testChunk_OversizedCategoryIsCutBetweenSegments() {
+        List<TextSegment> segments = Arrays.asList(
+                segment(CATEGORY_0 + ".questions[0].questionText", 200),
+                segment(CATEGORY_0 + ".questions[1].questionText", 200),
+                segment(CATEGORY_0 + ".questions[2].questionText", 200));
+        
+        List<List<TextSegment>> chunks = new SurveyChunker(100).chunk(segments);
+        
+        assertEquals(3, chunks.size());
+        assertEquals(segments, chunks.stream().flatMap(List::stream).collect(Collectors.toList()));
+    }
+    
+    private TextSegment segment(String path, int length) {
+        return new TextSegment(path, String.join("", Collections.nCopies(length, "a")));
+    }
+    
+    private List<String> paths(List<TextSegment> chunk) {
+        return chunk.stream().map(TextSegment::getPath).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,117 @@
+package com.reactivespring.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SurveySegmentExtractorTest {
+
+    private final SurveySegmentExtractor extractor = new SurveySegmentExtractor(new ObjectMapper().findAndRegisterModules());
+
+    @Test
+    public void testExtractSegments_TextFieldsOnly() {
+        List<TextSegment> segments = extractor.extractSegments(createSurvey(), null);
+
+        List<String> paths = segments.stream().map(TextSegment::getPath).collect(Collectors.toList());
+        assertEquals(Arrays.asList(
+                "title",
+                "introductionBlock.title",
+                "introductionBlock.instructions[0]",
+                "contentBlock.sections[0].title",
+                "contentBlock.sections[0].categories[0].name",
+                "contentBlock.sections[0].categories[0].questions[0].questionText",
+                "contentBlock.sections[0].categories[0].questions[0].choices[0].text",
+                "contentBlock.sections[0].categories[0].questions[0].choices[1].text",
+                "contentBlock.sections[0].categories[0].questions[0].validationRules.errorMessage",
+                "footerBlock.submitButtonText"
+        ), paths);
+    }
+
+    @Test
+    public void testExtractSegments_HonoursOptions() {
+        SurveyTranslationRequest.TranslationOptions options = SurveyTranslationRequest.TranslationOptions.builder()
+                .translateChoiceValues(true)
+                .translateValidationMessages(false)
+                .build();
+
+        List<String> paths = extractor.extractSegments(createSurvey(), options).stream()
+                .map(TextSegment::getPath)
+                .collect(Collectors.toList());
+
+        assertTrue(paths.contains("contentBlock.sections[0].categories[0].questions[0].choices[0].value"));
+        assertFalse(paths.contains("contentBlock.sections[0].categories[0].questions[0].validationRules.errorMessage"));
+    }
+
+    @Test
+    public void testMergeSegments_ReplacesByPathOnCopy() {
+        Survey source = createSurvey();
+        Map<String, String> translations = new HashMap<>();
+        translations.put("title", "Encuesta");
+        translations.put("introductionBlock.instructions[0]", "Responda con sinceridad");
+        translations.put("contentBlock.sections[0].categories[0].questions[0].choices[1].text", "No");
+
+        Survey merged = extractor.mergeSegments(source, translations);
+
+        assertEquals("Encuesta", merged.getTitle());
+        assertEquals("Responda con sinceridad", merged.getIntroductionBlock().getInstructions().get(0));
+        Survey.Question question = merged.getContentBlock().getSections().get(0).getCategories().get(0).getQuestions().get(0);
+        assertEquals("Yes", question.getChoices().get(0).getText());
+        assertEquals("No", question.getChoices().get(1).getText());
+        assertEquals("n", question.getChoices().get(1).getValue());
+        assertEquals(Survey.QuestionType.SINGLE_CHOICE, question.getType());
+
+        // The source survey is left untouched
+        assertEquals("Survey", source.getTitle());
+        assertEquals("Answer honestly", source.getIntroductionBlock().getInstructions().get(0));
+    }
+
+    private Survey createSurvey() {
+        return Survey.builder()
+                .id("survey-1")
+                .title("Survey")
+                .language("en")
+                .introductionBlock(Survey.IntroductionBlock.builder()
+                        .title("Welcome")
+                        .instructions(Collections.singletonList("Answer honestly"))
+                        .build())
+                .contentBlock(Survey.ContentBlock.builder()
+                        .sections(Collections.singletonList(Survey.Section.builder()
+                                .title("Section")
+                                .order(1)
+                                .categories(Collections.singletonList(Survey.Category.builder()
+                                        .name("Category")
+                                        .order(1)
+                                        .questions(Collections.singletonList(Survey.Question.builder()
+                                                .questionText("Do you agree?")
+                                                .type(Survey.QuestionType.SINGLE_CHOICE)
+                                                .order(1)
+                                                .choices(Arrays.asList(
+                                                        Survey.Choice.builder().text("Yes").value("y").order(1).build(),
+                                                        Survey.Choice.builder().text("No").value("n").order(2).build()
+                                                ))
+                                                .validationRules(Survey.ValidationRules.builder()
+                                                        .errorMessage("Please choose an answer")
+                                                        .build())
+                                                .build()))
+                                        .build()))
+                                .build()))
+                        .build())
+                .footerBlock(Survey.FooterBlock.builder()
+                        .submitButtonText("Submit")
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,53 @@
+package com.reactivespring.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SurveyTranslationMessageConverterTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SurveyTranslationMessageConverter converter = new SurveyTranslationMessageConverter(objectMapper);
+    
+    @Test
+    public void testConvertToMessage_SegmentsKeyedByIndex() throws Exception {
+        String prompt = converter.convertToMessage(request("es", null), Arrays.asList(
+                new TextSegment("title", "Customer \"Satisfaction\""),
+                new TextSegment("footerBlock.submitButtonText", "Submit\n"))).text();
+        
+        Map<?, ?> segments = objectMapper.readValue(prompt.substring(prompt.indexOf('{')), Map.class);
+        assertEquals("Customer \"Satisfaction\"", segments.get("0"));
+        assertEquals("Submit\n", segments.get("1"));
+        assertTrue(prompt.contains("Translate from en to es."));
+    }
+    
+    @Test
+    public void testConvertToMessage_LanguageAndOptionsFollowSharedPrefix() {
+        String spanish = converter.convertToMessage(request("es", null),
+                Arrays.asList(new TextSegment("title", "Survey"))).text();
+        String formalGerman = converter.convertToMessage(request("de", "formal"),
+                Arrays.asList(new TextSegment("title", "Survey"))).text();
+        
+        String sharedPrefix = spanish.substring(0, spanish.indexOf("Translate from"));
+        assertTrue(formalGerman.startsWith(sharedPrefix));
+        assertTrue(formalGerman.contains("Use a formal tone."));
+    }
+    
+    private SurveyTranslationRequest request(String targetLanguage, String tone) {
+        SurveyTranslationRequest.TranslationOptions options = new SurveyTranslationRequest.TranslationOptions();
+        options.setTone(tone);
+        
+        SurveyTranslationRequest request = new SurveyTranslationRequest();
+        request.setSourceLanguage("en");
+        request.setTargetLanguage(targetLanguage);
+        request.setOptions(options);
+        return request;
+    }
+}
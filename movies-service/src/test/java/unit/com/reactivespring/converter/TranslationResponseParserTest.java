@@ -0,0 +1,64 @@
+package com.reactivespring.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TranslationResponseParserTest {
+    
+    private final TranslationResponseParser parser = new TranslationResponseParser(new ObjectMapper());
+    
+    @Test
+    public void testParse_SkipsFencesProseAndTrailingText() {
+        Flux<String> reply = Flux.just(
+                "Here you go:\n```json\n{\"0\": \"Hola\", \"1\": \"S\u00ed\", \"2\": {\"nested\": \"x\"}, \"3\": 4}\n```\nLet me know!");
+        
+        StepVerifier.create(parser.parse(reply))
+                .assertNext(parsed -> {
+                    assertTrue(parsed.isComplete());
+                    assertEquals(2, parsed.getTranslations().size());
+                    assertEquals("Hola", parsed.getTranslations().get("0"));
+                    assertEquals("S\u00ed", parsed.getTranslations().get("1"));
+                })
+                .verifyComplete();
+    }
+    
+    @Test
+    public void testParse_ReplyWithoutObjectIsIncomplete() {
+        StepVerifier.create(parser.parse(Flux.just("I cannot ", "translate this.")))
+                .assertNext(parsed -> {
+                    assertFalse(parsed.isComplete());
+                    assertTrue(parsed.getTranslations().isEmpty());
+                })
+                .verifyComplete();
+    }
+    
+    @Test
+    public void testParseStreamed_ParsesChunksSplitAnywhere() {
+        // Chunks split keys, values, escapes and a surrogate pair
+        Flux<String> chunks = Flux.just("```js", "on\n{\"0\": \"Ho", "la \\\"", "amigo\\\" \uD83D", "\uDE00\", \"1", "\": \"S\u00ed\"}\n``", "`");
+        
+        StepVerifier.create(parser.parse(chunks))
+                .assertNext(reply -> {
+                    assertTrue(reply.isComplete());
+                    assertEquals("Hola \"amigo\" \uD83D\uDE00", reply.getTranslations().get("0"));
+                    assertEquals("S\u00ed", reply.getTranslations().get("1"));
+                })
+                .verifyComplete();
+    }
+    
+    @Test
+    public void testParseStreamed_TruncatedReplyIsIncomplete() {
+        StepVerifier.create(parser.parse(Flux.just("{\"0\": \"Hola\", ", "\"1\": \"Adi")))
+                .assertNext(reply -> {
+                    assertFalse(reply.isComplete());
+                    assertEquals(1, reply.getTranslations().size());
+                })
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,43 @@
+package com.reactivespring.repository;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SurveyRepositoryCustomImplTest {
+    
+    @Test
+    public void testSummaryQuery_KeysetPageOnIndexedFilters() {
+        Query query = SurveyRepositoryCustomImpl.summaryQuery("en", "alice", null, "64b7f0c2a1e4c3d2b1a09f8e", 20);
+        
+        Document filter = query.getQueryObject();
+        assertEquals("en", filter.get("language"));
+        assertEquals("alice", filter.get("createdBy"));
+        assertEquals(new Document("$lt", "64b7f0c2a1e4c3d2b1a09f8e"), filter.get("id"));
+        assertEquals(new Document("id", -1), query.getSortObject());
+        assertEquals(20, query.getLimit());
+        assertEquals(0, query.getSkip());
+    }
+    
+    @Test
+    public void testSummaryQuery_OmitsSurveyBlocks() {
+        Document fields = SurveyRepositoryCustomImpl.summaryQuery(null, null, null, null, 20).getFieldsObject();
+        
+        assertTrue(fields.containsKey("title"));
+        assertFalse(fields.containsKey("contentBlock"));
+        assertFalse(fields.containsKey("introductionBlock"));
+        assertFalse(fields.containsKey("footerBlock"));
+    }
+    
+    @Test
+    public void testSummaryQuery_SearchesTitleTextIndex() {
+        Document filter = SurveyRepositoryCustomImpl.summaryQuery(null, null, "customer satisfaction", null, 20).getQueryObject();
+        
+        assertEquals(new Document("$search", "customer satisfaction"), filter.get("$text"));
+        assertFalse(filter.containsKey("language"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.reactivespring.repository;
+
+import com.reactivespring.domain.TranslationJob;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TranslationJobRepositoryCustomImplTest {
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testClaimQuery_MatchesUnfinishedJobsWithExpiredOrMissingLease() {
+        LocalDateTime expiredBefore = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Query query = TranslationJobRepositoryCustomImpl.claimQuery(expiredBefore);
+        
+        List<Document> conditions = (List<Document>) query.getQueryObject().get("$and");
+        assertEquals(new Document("$in", Arrays.asList(TranslationJob.JobStatus.QUEUED, TranslationJob.JobStatus.PROCESSING)),
+                conditions.get(0).get("status"));
+        assertEquals(Arrays.asList(new Document("heartbeatAt", null),
+                        new Document("heartbeatAt", new Document("$lt", expiredBefore))),
+                conditions.get(1).get("$or"));
+        assertEquals(new Document("createdAt", 1), query.getSortObject());
+    }
+    
+    @Test
+    public void testClaimUpdate_HandsJobToNewOwnerAsQueued() {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        Document update = TranslationJobRepositoryCustomImpl.claimUpdate("instance-2", now).getUpdateObject();
+        
+        Document set = (Document) update.get("$set");
+        assertEquals("instance-2", set.get("owner"));
+        assertEquals(now, set.get("heartbeatAt"));
+        assertEquals(TranslationJob.JobStatus.QUEUED, set.get("status"));
+        assertTrue(((Document) update.get("$unset")).containsKey("startedAt"));
+    }
+}
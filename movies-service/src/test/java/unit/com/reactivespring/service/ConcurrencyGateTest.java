@@ -0,0 +1,47 @@
+package com.reactivespring.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConcurrencyGateTest {
+    
+    private final ConcurrencyGate gate = new ConcurrencyGate(1);
+    
+    @Test
+    public void testWithPermit_CallsOverTheBoundWaitForAFreePermit() {
+        Sinks.One<String> first = Sinks.one();
+        List<String> results = new ArrayList<>();
+        gate.withPermit(first.asMono()).subscribe(results::add);
+        gate.withPermit(Mono.just("second")).subscribe(results::add);
+        
+        assertEquals(1, gate.getInUse());
+        assertEquals(1, gate.getWaiting());
+        assertEquals(0, results.size());
+        
+        first.tryEmitValue("first");
+        assertEquals(List.of("first", "second"), results);
+        assertEquals(0, gate.getInUse());
+    }
+    
+    @Test
+    public void testWithPermit_CancelledCallsFreeTheirPermitOrPlace() {
+        Disposable running = gate.withPermit(Mono.never()).subscribe();
+        Disposable waiting = gate.withPermit(Mono.never()).subscribe();
+        List<String> results = new ArrayList<>();
+        gate.withPermit(Mono.just("third")).subscribe(results::add);
+        
+        waiting.dispose();
+        assertEquals(1, gate.getWaiting());
+        running.dispose();
+        assertEquals(List.of("third"), results);
+        assertEquals(0, gate.getInUse());
+        assertEquals(0, gate.getWaiting());
+    }
+}
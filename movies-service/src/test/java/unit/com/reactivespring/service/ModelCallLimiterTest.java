@@ -0,0 +1,158 @@
+package com.reactivespring.service;
+
+import com.reactivespring.exception.ModelCallRejectedException;
+import dev.ai4j.openai4j.OpenAiHttpException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModelCallLimiterTest {
+    
+    private final ModelCallLimiter limiter = new ModelCallLimiter(2, 1, 10, 1, 5000, 60000, 0.5,
+            new TranslationMetrics(new SimpleMeterRegistry()));
+    
+    @Test
+    public void testLimit_QueuesCallsOverLimitAndRejectsWhenQueueIsFull() {
+        Sinks.Empty<String> first = Sinks.empty();
+        List<String> results = new ArrayList<>();
+        limiter.limit(first.asMono().flux()).subscribe();
+        limiter.limit(Flux.<String>never()).subscribe();
+        limiter.limit(Flux.just("queued")).subscribe(results::add);
+        
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getQueued());
+        StepVerifier.create(limiter.limit(Flux.just("rejected")))
+                .expectErrorSatisfies(error -> {
+                    assertTrue(error instanceof ModelCallRejectedException);
+                    assertTrue(((ModelCallRejectedException) error).getRetryAfter().getSeconds() >= 1);
+                })
+                .verify();
+        
+        first.tryEmitEmpty();
+        assertEquals(List.of("queued"), results);
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+    }
+    
+    @Test
+    public void testLimit_InteractiveCallsOvertakeBackgroundCalls() {
+        Sinks.Empty<String> first = Sinks.empty();
+        List<String> order = new ArrayList<>();
+        limiter.limit(first.asMono().flux()).subscribe();
+        limiter.limit(Flux.<String>never()).subscribe();
+        limiter.limit(Flux.just("background"))
+                .contextWrite(ModelCallLimiter.withPriority(ModelCallLimiter.Priority.BACKGROUND))
+                .subscribe(order::add);
+        limiter.limit(Flux.just("interactive")).subscribe(order::add);
+        
+        assertEquals(2, limiter.getQueued());
+        
+        // The freed slot goes to the interactive call, whose own slot then goes to the background call
+        first.tryEmitEmpty();
+        assertEquals(List.of("interactive", "background"), order);
+        assertEquals(1, limiter.getInFlight());
+    }
+    
+    @Test
+    public void testLimit_RateLimitedCallsLowerTheLimitOnce() {
+        Sinks.Empty<String> first = Sinks.empty();
+        Sinks.Empty<String> second = Sinks.empty();
+        limiter.limit(first.asMono().flux()).subscribe(value -> { }, error -> { });
+        limiter.limit(second.asMono().flux()).subscribe(value -> { }, error -> { });
+        
+        first.tryEmitError(new OpenAiHttpException(429, "Rate limit reached"));
+        second.tryEmitError(new OpenAiHttpException(429, "Rate limit reached"));
+        
+        assertEquals(1.0, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+    
+    @Test
+    public void testLimit_SlowFirstTokenLowersTheLimit() {
+        ModelCallLimiter limiter = limiter(10, 60000);
+        
+        limiter.limit(Flux.just("late").delaySubscription(Duration.ofMillis(50))).blockLast();
+        
+        assertEquals(1.0, limiter.getLimit());
+    }
+    
+    @Test
+    public void testLimitBlocking_WholeReplyIsNotASlowFirstToken() {
+        ModelCallLimiter limiter = limiter(10, 60000);
+        
+        // A blocking call's only element arrives with the full reply, long after max-first-token-ms
+        limiter.limitBlocking(Flux.just("reply").delaySubscription(Duration.ofMillis(50))).blockLast();
+        
+        assertEquals(2.0, limiter.getLimit());
+    }
+    
+    @Test
+    public void testLimitBlocking_SlowCallLowersTheLimit() {
+        ModelCallLimiter limiter = limiter(10, 20);
+        
+        limiter.limitBlocking(Flux.just("reply").delaySubscription(Duration.ofMillis(50))).blockLast();
+        
+        assertEquals(1.0, limiter.getLimit());
+    }
+    
+    @Test
+    public void testLimit_CancelledWaiterLeavesTheQueue() {
+        limiter.limit(Flux.<String>never()).subscribe();
+        limiter.limit(Flux.<String>never()).subscribe();
+        Disposable waiting = limiter.limit(Flux.just("never run")).subscribe();
+        assertEquals(1, limiter.getQueued());
+        
+        waiting.dispose();
+        assertEquals(0, limiter.getQueued());
+        assertEquals(2, limiter.getInFlight());
+    }
+    
+    @Test
+    public void testLimit_CancelledCallKeepsItsSlotUntilTheProviderIsDone() {
+        Sinks.Empty<Void> providerDone = Sinks.empty();
+        List<String> results = new ArrayList<>();
+        Disposable cancelled = limiter.limit(Flux.<String>never(), providerDone.asMono()).subscribe();
+        limiter.limit(Flux.<String>never()).subscribe();
+        limiter.limit(Flux.just("queued")).subscribe(results::add);
+        
+        cancelled.dispose();
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getQueued());
+        
+        providerDone.tryEmitEmpty();
+        assertEquals(0, limiter.getQueued());
+        assertEquals(List.of("queued"), results);
+    }
+    
+    @Test
+    public void testLimit_TimedOutCallKeepsItsSlotUntilTheProviderIsDone() {
+        Sinks.Empty<Void> providerDone = Sinks.empty();
+        
+        // The timeout reaches the caller at once, while the provider is still generating
+        StepVerifier.create(limiter.limit(Flux.<String>error(new TimeoutException("first token")), providerDone.asMono()))
+                .expectError(TimeoutException.class)
+                .verify();
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(2.0, limiter.getLimit());
+        
+        providerDone.tryEmitEmpty();
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1.0, limiter.getLimit());
+    }
+    
+    private static ModelCallLimiter limiter(long maxFirstTokenMs, long maxBlockingCallMs) {
+        return new ModelCallLimiter(2, 1, 10, 1, maxFirstTokenMs, maxBlockingCallMs, 0.5,
+                new TranslationMetrics(new SimpleMeterRegistry()));
+    }
+}
@@ -0,0 +1,150 @@
+package com.reactivespring.service;
+
+import com.reactivespring.exception.ModelUnavailableException;
+import dev.ai4j.openai4j.OpenAiHttpException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModelCallResilienceTest {
+    
+    private final TranslationMetrics metrics = new TranslationMetrics(new SimpleMeterRegistry());
+    private final ModelCallLimiter limiter = new ModelCallLimiter(8, 1, 64, 100, 5000, 60000, 0.7, metrics);
+    
+    @Test
+    public void testExecute_RetriesTransientFailures() {
+        ModelCallResilience resilience = resilience(false);
+        AtomicInteger calls = new AtomicInteger();
+        
+        StepVerifier.create(resilience.execute(() -> calls.incrementAndGet() < 3
+                        ? Mono.error(new OpenAiHttpException(503, "Service unavailable"))
+                        : Mono.just("translated")))
+                .expectNext("translated")
+                .verifyComplete();
+        assertEquals(3, calls.get());
+    }
+    
+    @Test
+    public void testExecute_DoesNotRetryClientErrors() {
+        ModelCallResilience resilience = resilience(false);
+        AtomicInteger calls = new AtomicInteger();
+        
+        StepVerifier.create(resilience.execute(() -> {
+                    calls.incrementAndGet();
+                    return Mono.error(new OpenAiHttpException(400, "Bad request"));
+                }))
+                .expectError(OpenAiHttpException.class)
+                .verify();
+        assertEquals(1, calls.get());
+    }
+    
+    @Test
+    public void testExecute_OpenCircuitFailsFast() {
+        ModelCallResilience resilience = resilience(false);
+        AtomicInteger calls = new AtomicInteger();
+        
+        // Two failing requests of three attempts each fill the window with failures
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(resilience.execute(() -> {
+                        calls.incrementAndGet();
+                        return Mono.error(new OpenAiHttpException(500, "Internal error"));
+                    }))
+                    .expectError()
+                    .verify();
+        }
+        
+        StepVerifier.create(resilience.execute(() -> {
+                    calls.incrementAndGet();
+                    return Mono.just("translated");
+                }))
+                .expectError(ModelUnavailableException.class)
+                .verify();
+        assertEquals(4, calls.get());
+    }
+    
+    @Test
+    public void testStream_HedgeAnswersWhenFirstCallIsSlow() {
+        ModelCallResilience resilience = resilience(true);
+        for (int i = 0; i < 20; i++) {
+            resilience.stream(admitted -> admitted.apply(Flux.just("{}"))).blockLast();
+        }
+        
+        AtomicInteger calls = new AtomicInteger();
+        StepVerifier.create(resilience.stream(admitted -> admitted.apply(calls.incrementAndGet() == 1
+                        ? Flux.just("slow").delaySubscription(Duration.ofSeconds(5))
+                        : Flux.just("hedged"))))
+                .expectNext("hedged")
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+        assertEquals(2, calls.get());
+    }
+    
+    @Test
+    public void testStream_HedgeSkippedWhileNoSlotIsFree() {
+        ModelCallResilience resilience = resilience(true);
+        for (int i = 0; i < 20; i++) {
+            resilience.stream(admitted -> admitted.apply(Flux.just("{}"))).blockLast();
+        }
+        
+        // Every slot is busy but nobody is queued yet: a hedge would be the first to wait
+        for (int i = 0; i < 8; i++) {
+            limiter.limit(Flux.<String>never()).subscribe();
+        }
+        AtomicInteger calls = new AtomicInteger();
+        StepVerifier.create(resilience.stream(admitted -> {
+                    calls.incrementAndGet();
+                    return admitted.apply(Flux.just("slow").delaySubscription(Duration.ofMillis(500)));
+                }))
+                .expectNext("slow")
+                .verifyComplete();
+        assertEquals(1, calls.get());
+    }
+    
+    @Test
+    public void testStream_TimeoutsStartOnceTheLimiterAdmitsTheCall() {
+        ModelCallLimiter saturated = new ModelCallLimiter(2, 1, 10, 10, 5000, 60000, 0.5, metrics);
+        ModelCallResilience resilience = new ModelCallResilience(saturated, metrics, 3, 1, 5, 200, 200,
+                false, 0.95, 4, 4, 0.5, 60000);
+        Sinks.Empty<String> first = Sinks.empty();
+        Sinks.Empty<String> second = Sinks.empty();
+        saturated.limit(first.asMono().flux()).subscribe();
+        saturated.limit(second.asMono().flux()).subscribe();
+        
+        // The call waits in the queue for longer than the first-token timeout, then answers at once
+        AtomicInteger calls = new AtomicInteger();
+        StepVerifier.create(resilience.execute(() -> resilience.stream(admitted -> {
+                                    calls.incrementAndGet();
+                                    return saturated.limit(admitted.apply(Flux.just("translated")));
+                                })
+                                .next())
+                        .contextWrite(ModelCallLimiter.withPriority(ModelCallLimiter.Priority.BACKGROUND)))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(500))
+                .then(() -> {
+                    first.tryEmitEmpty();
+                    second.tryEmitEmpty();
+                })
+                .expectNext("translated")
+                .verifyComplete();
+        assertEquals(1, calls.get());
+        assertTrue(saturated.getLimit() >= 2);
+        
+        // A queue wait is no provider failure, so the circuit is still closed
+        StepVerifier.create(resilience.execute(() -> Mono.just("translated")))
+                .expectNext("translated")
+                .verifyComplete();
+    }
+    
+    private ModelCallResilience resilience(boolean hedging) {
+        return new ModelCallResilience(limiter, metrics, 3, 1, 5, 30000, 15000, hedging, 0.95, 4, 4, 0.5, 60000);
+    }
+}
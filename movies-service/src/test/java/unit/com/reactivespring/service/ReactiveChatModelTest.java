@@ -0,0 +1,100 @@
+package com.reactivespring.service;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.model.StreamingResponseHandler;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReactiveChatModelTest {
+    
+    private final ModelCallLimiter limiter = new ModelCallLimiter(2, 1, 10, 1, 5000, 60000, 0.5,
+            new TranslationMetrics(new SimpleMeterRegistry()));
+    
+    @Test
+    public void testStream_EmitsTokensUntilTheProviderCompletes() {
+        ReactiveChatModel model = streaming((messages, handler) -> {
+            handler.onNext("Hola");
+            handler.onNext(" mundo");
+            handler.onComplete(Response.from(AiMessage.from("Hola mundo")));
+        });
+        
+        StepVerifier.create(model.stream("Translate: Hello world"))
+                .expectNext("Hola", " mundo")
+                .verifyComplete();
+        assertEquals(0, limiter.getInFlight());
+    }
+    
+    @Test
+    public void testStream_PropagatesProviderError() {
+        ReactiveChatModel model = streaming((messages, handler) -> {
+            handler.onNext("Hola");
+            handler.onError(new IllegalStateException("connection reset"));
+        });
+        
+        StepVerifier.create(model.stream("Translate: Hello world"))
+                .expectNext("Hola")
+                .expectErrorMessage("connection reset")
+                .verify();
+        assertEquals(0, limiter.getInFlight());
+    }
+    
+    @Test
+    public void testGenerate_CollectsStreamedTokens() {
+        ReactiveChatModel model = streaming((messages, handler) -> {
+            handler.onNext("Hola");
+            handler.onNext(" mundo");
+            handler.onComplete(Response.from(AiMessage.from("Hola mundo")));
+        });
+        
+        StepVerifier.create(model.generate("Translate: Hello world"))
+                .expectNext("Hola mundo")
+                .verifyComplete();
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStream_FallsBackToTheBlockingModel() {
+        ObjectProvider<StreamingChatLanguageModel> noStreaming = mock(ObjectProvider.class);
+        ChatLanguageModel blocking = messages -> Response.from(AiMessage.from("Hola mundo"));
+        ReactiveChatModel model = new ReactiveChatModel(blocking, noStreaming, limiter);
+        
+        StepVerifier.create(model.stream("Translate: Hello world"))
+                .expectNext("Hola mundo")
+                .verifyComplete();
+        assertEquals(0, limiter.getInFlight());
+    }
+    
+    @Test
+    public void testStream_CancelledCallKeepsItsSlotUntilTheProviderCompletes() {
+        AtomicReference<StreamingResponseHandler<AiMessage>> provider = new AtomicReference<>();
+        ReactiveChatModel model = streaming((messages, handler) -> provider.set(handler));
+        
+        Disposable reply = model.stream("Translate: Hello world").subscribe();
+        reply.dispose();
+        assertEquals(1, limiter.getInFlight());
+        
+        // The provider was not stopped and finishes the reply nobody reads any more
+        provider.get().onNext("Hola");
+        provider.get().onComplete(Response.from(AiMessage.from("Hola")));
+        assertEquals(0, limiter.getInFlight());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private ReactiveChatModel streaming(StreamingChatLanguageModel streamingModel) {
+        ObjectProvider<StreamingChatLanguageModel> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(streamingModel);
+        return new ReactiveChatModel(mock(ChatLanguageModel.class), provider, limiter);
+    }
+}
@@ -0,0 +1,384 @@
+package com.reactivespring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.converter.SurveySegmentExtractor;
+import com.reactivespring.domain.Survey;
+import com.reactivespring.domain.SurveyTranslation;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
+import com.reactivespring.dto.TranslationVariantRequest;
+import com.reactivespring.exception.SurveyNotFoundException;
+import com.reactivespring.repository.SurveyRepository;
+import com.reactivespring.repository.SurveyTranslationRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.DuplicateKeyException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StoredTranslationServiceTest {
+    
+    private static final String QUESTION_PATH = "contentBlock.sections[0].categories[0].questions[0].questionText";
+    
+    private final SurveyRepository surveyRepository = mock(SurveyRepository.class);
+    private final SurveyTranslationRepository translationRepository = mock(SurveyTranslationRepository.class);
+    private final SurveyTranslationService translationService = mock(SurveyTranslationService.class);
+    private final StoredTranslationService storedTranslationService = new StoredTranslationService(
+            surveyRepository, translationRepository, translationService,
+            new SurveySegmentExtractor(new ObjectMapper().findAndRegisterModules()), 4, 100, 10);
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdateSource_TranslatesOnlyChangedSegments() {
+        Survey previous = createSurvey("survey-1", "en", "Survey", "Do you agree?");
+        SurveyTranslation translation = createTranslation("survey-1-es", "es",
+                "Encuesta", "\u00bfEst\u00e1 de acuerdo?");
+        Survey edited = createSurvey(null, "en", "Survey", "Do you fully agree?");
+        
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(previous));
+        when(translationRepository.findBySourceSurveyId("survey-1")).thenReturn(Flux.just(translation));
+        when(translationService.translateSegments(any(SurveyTranslationRequest.class), anyList()))
+                .thenReturn(Mono.just(Collections.singletonMap(QUESTION_PATH, "\u00bfEst\u00e1 totalmente de acuerdo?")));
+        when(translationRepository.saveAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(surveyRepository.save(any(Survey.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        
+        StepVerifier.create(storedTranslationService.updateSource("survey-1", edited))
+                .assertNext(response -> {
+                    assertEquals(1, response.getChangedTextBlocks());
+                    assertEquals(1, response.getRetranslatedTextBlocks());
+                    assertEquals(Collections.singletonList("es"), response.getUpdatedLanguages());
+                })
+                .verifyComplete();
+        
+        ArgumentCaptor<List<TextSegment>> sent = ArgumentCaptor.forClass(List.class);
+        verify(translationService).translateSegments(any(SurveyTranslationRequest.class), sent.capture());
+        assertEquals(1, sent.getValue().size());
+        assertEquals("Do you fully agree?", sent.getValue().get(0).getText());
+        
+        ArgumentCaptor<List<SurveyTranslation>> saved = ArgumentCaptor.forClass(List.class);
+        verify(translationRepository).saveAll(saved.capture());
+        SurveyTranslation patched = saved.getValue().get(0);
+        assertEquals("survey-1-es", patched.getId());
+        assertEquals("es", patched.getLanguage());
+        Map<String, String> segments = toMap(patched.getSegments());
+        assertEquals("Encuesta", segments.get("title"));
+        assertEquals("\u00bfEst\u00e1 totalmente de acuerdo?", segments.get(QUESTION_PATH));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdateSource_DoesNotResendSegmentsTranslatedToThemselves() {
+        // "Acme" translates to itself, so the overlay only stores the question
+        Survey previous = createSurvey("survey-1", "en", "Acme", "Do you agree?");
+        SurveyTranslation translation = SurveyTranslation.builder()
+                .id("survey-1-es")
+                .sourceSurveyId("survey-1")
+                .language("es")
+                .segments(Collections.singletonList(new TextSegment(QUESTION_PATH, "\u00bfEst\u00e1 de acuerdo?")))
+                .build();
+        Survey edited = createSurvey(null, "en", "Acme", "Do you fully agree?");
+        
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(previous));
+        when(translationRepository.findBySourceSurveyId("survey-1")).thenReturn(Flux.just(translation));
+        when(translationService.translateSegments(any(SurveyTranslationRequest.class), anyList()))
+                .thenReturn(Mono.just(Collections.singletonMap(QUESTION_PATH, "\u00bfEst\u00e1 totalmente de acuerdo?")));
+        when(translationRepository.saveAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(surveyRepository.save(any(Survey.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        
+        StepVerifier.create(storedTranslationService.updateSource("survey-1", edited))
+                .assertNext(response -> assertEquals(1, response.getRetranslatedTextBlocks()))
+                .verifyComplete();
+        
+        ArgumentCaptor<List<TextSegment>> sent = ArgumentCaptor.forClass(List.class);
+        verify(translationService).translateSegments(any(SurveyTranslationRequest.class), sent.capture());
+        assertEquals(Collections.singletonList(QUESTION_PATH),
+                sent.getValue().stream().map(TextSegment::getPath).collect(Collectors.toList()));
+        
+        ArgumentCaptor<List<SurveyTranslation>> saved = ArgumentCaptor.forClass(List.class);
+        verify(translationRepository).saveAll(saved.capture());
+        assertEquals(Collections.singletonMap(QUESTION_PATH, "\u00bfEst\u00e1 totalmente de acuerdo?"),
+                toMap(saved.getValue().get(0).getSegments()));
+    }
+    
+    @Test
+    public void testTranslateAndStore_StoresOnlyTranslatedText() {
+        Survey source = createSurvey("survey-1", "en", "Survey", "Do you agree?");
+        Map<String, String> translated = new HashMap<>();
+        translated.put("title", "Encuesta");
+        translated.put("introductionBlock.title", "Encuesta");
+        translated.put(QUESTION_PATH, "Do you agree?");
+        
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(source));
+        when(translationService.translateSegments(any(SurveyTranslationRequest.class), anyList()))
+                .thenReturn(Mono.just(translated));
+        when(translationRepository.findBySourceSurveyIdAndLanguage("survey-1", "es")).thenReturn(Mono.empty());
+        when(translationRepository.save(any(SurveyTranslation.class))).thenAnswer(invocation -> {
+            SurveyTranslation translation = invocation.getArgument(0);
+            translation.setId("survey-1-es");
+            return Mono.just(translation);
+        });
+        
+        StepVerifier.create(storedTranslationService.translateAndStore("survey-1",
+                        TranslationVariantRequest.builder().targetLanguage("es").build()))
+                .assertNext(survey -> {
+                    assertEquals("survey-1-es", survey.getId());
+                    assertEquals("survey-1", survey.getSourceSurveyId());
+                    assertEquals("es", survey.getLanguage());
+                    assertEquals("Encuesta", survey.getTitle());
+                    assertEquals(Survey.QuestionType.TEXT, survey.getContentBlock().getSections().get(0)
+                            .getCategories().get(0).getQuestions().get(0).getType());
+                })
+                .verifyComplete();
+        
+        ArgumentCaptor<SurveyTranslation> saved = ArgumentCaptor.forClass(SurveyTranslation.class);
+        verify(translationRepository).save(saved.capture());
+        // The question translated to itself reads through to the source
+        Map<String, String> segments = toMap(saved.getValue().getSegments());
+        assertEquals(2, segments.size());
+        assertEquals("Encuesta", segments.get("title"));
+        assertEquals("Encuesta", segments.get("introductionBlock.title"));
+        assertNull(saved.getValue().getUntranslatedPaths());
+    }
+    
+    @Test
+    public void testTranslateAndStore_RecordsSegmentsTheModelFailedToTranslate() {
+        Survey source = createSurvey("survey-1", "en", "Survey", "Do you agree?");
+        Map<String, String> translated = new HashMap<>();
+        translated.put("title", "Encuesta");
+        translated.put("introductionBlock.title", "Encuesta");
+        
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(source));
+        when(translationService.translateSegments(any(SurveyTranslationRequest.class), anyList()))
+                .thenReturn(Mono.just(translated));
+        when(translationRepository.findBySourceSurveyIdAndLanguage("survey-1", "es")).thenReturn(Mono.empty());
+        when(translationRepository.save(any(SurveyTranslation.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        
+        StepVerifier.create(storedTranslationService.translateAndStore("survey-1",
+                        TranslationVariantRequest.builder().targetLanguage("es").build()))
+                .assertNext(survey -> assertEquals("Encuesta", survey.getTitle()))
+                .verifyComplete();
+        
+        ArgumentCaptor<SurveyTranslation> saved = ArgumentCaptor.forClass(SurveyTranslation.class);
+        verify(translationRepository).save(saved.capture());
+        assertEquals(Collections.singletonList(QUESTION_PATH), saved.getValue().getUntranslatedPaths());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindTranslation_TranslatesSegmentsLeftUntranslated() {
+        // An earlier call failed to translate the question
+        SurveyTranslation translation = createTranslation("survey-1-es", "es", "Encuesta", "Do you agree?");
+        translation.setSegments(translation.getSegments().subList(0, 2));
+        translation.setUntranslatedPaths(Collections.singletonList(QUESTION_PATH));
+        
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(createSurvey("survey-1", "en", "Survey", "Do you agree?")));
+        when(translationRepository.findBySourceSurveyIdAndLanguage("survey-1", "es")).thenReturn(Mono.just(translation));
+        when(translationService.translateSegments(any(SurveyTranslationRequest.class), anyList()))
+                .thenReturn(Mono.just(Collections.singletonMap(QUESTION_PATH, "\u00bfEst\u00e1 de acuerdo?")));
+        when(translationRepository.save(any(SurveyTranslation.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        
+        StepVerifier.create(storedTranslationService.findTranslation("survey-1", "es"))
+                .assertNext(survey -> assertEquals("\u00bfEst\u00e1 de acuerdo?", survey.getContentBlock().getSections().get(0)
+                        .getCategories().get(0).getQuestions().get(0).getQuestionText()))
+                .verifyComplete();
+        
+        ArgumentCaptor<List<TextSegment>> sent = ArgumentCaptor.forClass(List.class);
+        verify(translationService).translateSegments(any(SurveyTranslationRequest.class), sent.capture());
+        assertEquals(Collections.singletonList(QUESTION_PATH),
+                sent.getValue().stream().map(TextSegment::getPath).collect(Collectors.toList()));
+        
+        ArgumentCaptor<SurveyTranslation> saved = ArgumentCaptor.forClass(SurveyTranslation.class);
+        verify(translationRepository).save(saved.capture());
+        assertNull(saved.getValue().getUntranslatedPaths());
+        assertEquals(3, saved.getValue().getSegments().size());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUpdateSource_RecordsChangedSegmentsThePatchFailedToTranslate() {
+        Survey previous = createSurvey("survey-1", "en", "Survey", "Do you agree?");
+        Survey edited = createSurvey(null, "en", "Survey", "Do you fully agree?");
+        
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(previous));
+        when(translationRepository.findBySourceSurveyId("survey-1")).thenReturn(Flux.just(
+                createTranslation("survey-1-es", "es", "Encuesta", "\u00bfEst\u00e1 de acuerdo?")));
+        when(translationService.translateSegments(any(SurveyTranslationRequest.class), anyList()))
+                .thenReturn(Mono.just(Collections.emptyMap()));
+        when(translationRepository.saveAll(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(surveyRepository.save(any(Survey.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        
+        StepVerifier.create(storedTranslationService.updateSource("survey-1", edited))
+                .assertNext(response -> assertEquals(0, response.getRetranslatedTextBlocks()))
+                .verifyComplete();
+        
+        // The stale translation is dropped rather than kept, and the question is sent again later
+        ArgumentCaptor<List<SurveyTranslation>> saved = ArgumentCaptor.forClass(List.class);
+        verify(translationRepository).saveAll(saved.capture());
+        SurveyTranslation patched = saved.getValue().get(0);
+        assertEquals(Collections.singletonList(QUESTION_PATH), patched.getUntranslatedPaths());
+        assertNull(toMap(patched.getSegments()).get(QUESTION_PATH));
+    }
+    
+    @Test
+    public void testTranslateAndStore_ReplacesTranslationInsertedConcurrently() {
+        Survey source = createSurvey("survey-1", "en", "Survey", "Do you agree?");
+        Map<String, String> translated = new HashMap<>();
+        translated.put("title", "Encuesta");
+        translated.put("introductionBlock.title", "Encuesta");
+        translated.put(QUESTION_PATH, "¿Está de acuerdo?");
+        SurveyTranslation concurrent = createTranslation("survey-1-es", "es", "Encuesta", "¿De acuerdo?");
+        
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(source));
+        when(translationService.translateSegments(any(SurveyTranslationRequest.class), anyList()))
+                .thenReturn(Mono.just(translated));
+        // Not there when first read, inserted by a concurrent translation before this one is saved
+        when(translationRepository.findBySourceSurveyIdAndLanguage("survey-1", "es"))
+                .thenReturn(Mono.empty(), Mono.just(concurrent));
+        when(translationRepository.save(any(SurveyTranslation.class))).thenAnswer(invocation -> {
+            SurveyTranslation translation = invocation.getArgument(0);
+            return translation.getId() == null
+                    ? Mono.error(new DuplicateKeyException("E11000 duplicate key error"))
+                    : Mono.just(translation);
+        });
+        
+        StepVerifier.create(storedTranslationService.translateAndStore("survey-1",
+                        TranslationVariantRequest.builder().targetLanguage("es").build()))
+                .assertNext(survey -> {
+                    assertEquals("survey-1-es", survey.getId());
+                    assertEquals("¿Está de acuerdo?", survey.getContentBlock().getSections().get(0)
+                            .getCategories().get(0).getQuestions().get(0).getQuestionText());
+                })
+                .verifyComplete();
+        
+        verify(translationRepository, times(2)).save(any(SurveyTranslation.class));
+        assertEquals("¿Está de acuerdo?", toMap(concurrent.getSegments()).get(QUESTION_PATH));
+    }
+    
+    @Test
+    public void testFindTranslation_ServesRepeatedReadsFromCache() {
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(createSurvey("survey-1", "en", "Survey", "Do you agree?")));
+        when(translationRepository.findBySourceSurveyIdAndLanguage("survey-1", "es"))
+                .thenReturn(Mono.just(createTranslation("survey-1-es", "es", "Encuesta", "\u00bfEst\u00e1 de acuerdo?")));
+        
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(storedTranslationService.findTranslation("survey-1", "es"))
+                    .assertNext(survey -> assertEquals("\u00bfEst\u00e1 de acuerdo?", survey.getContentBlock().getSections().get(0)
+                            .getCategories().get(0).getQuestions().get(0).getQuestionText()))
+                    .verifyComplete();
+        }
+        
+        verify(surveyRepository, times(1)).findById("survey-1");
+        verify(translationRepository, times(1)).findBySourceSurveyIdAndLanguage("survey-1", "es");
+    }
+    
+    @Test
+    public void testMigrateFullCopyTranslations_ReplacesCopyWithOverlay() {
+        Survey source = createSurvey("survey-1", "en", "Survey", "Do you agree?");
+        Survey copy = createSurvey("survey-1-es", "es", "Encuesta", "\u00bfEst\u00e1 de acuerdo?");
+        copy.setSourceSurveyId("survey-1");
+        
+        when(surveyRepository.findBySourceSurveyIdNotNull()).thenReturn(Flux.just(copy));
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(source));
+        when(translationRepository.findBySourceSurveyIdAndLanguage("survey-1", "es")).thenReturn(Mono.empty());
+        when(translationRepository.save(any(SurveyTranslation.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(surveyRepository.delete(copy)).thenReturn(Mono.empty());
+        
+        storedTranslationService.migrateFullCopyTranslations();
+        
+        ArgumentCaptor<SurveyTranslation> saved = ArgumentCaptor.forClass(SurveyTranslation.class);
+        InOrder order = inOrder(translationRepository, surveyRepository);
+        order.verify(translationRepository).save(saved.capture());
+        order.verify(surveyRepository).delete(copy);
+        assertEquals("survey-1", saved.getValue().getSourceSurveyId());
+        assertEquals("\u00bfEst\u00e1 de acuerdo?", toMap(saved.getValue().getSegments()).get(QUESTION_PATH));
+    }
+    
+    @Test
+    public void testDeleteSource_DeletesTranslationsBeforeSource() {
+        when(surveyRepository.findById("survey-1")).thenReturn(Mono.just(createSurvey("survey-1", "en", "Survey", "Do you agree?")));
+        when(translationRepository.deleteBySourceSurveyId("survey-1")).thenReturn(Mono.just(2L));
+        when(surveyRepository.deleteById("survey-1")).thenReturn(Mono.empty());
+        
+        StepVerifier.create(storedTranslationService.deleteSource("survey-1"))
+                .verifyComplete();
+        
+        InOrder order = inOrder(translationRepository, surveyRepository);
+        order.verify(translationRepository).deleteBySourceSurveyId("survey-1");
+        order.verify(surveyRepository).deleteById("survey-1");
+    }
+    
+    @Test
+    public void testDeleteSource_RejectsTranslation() {
+        Survey translation = createSurvey("survey-1-es", "es", "Encuesta", "\u00bfEst\u00e1 de acuerdo?");
+        translation.setSourceSurveyId("survey-1");
+        when(surveyRepository.findById("survey-1-es")).thenReturn(Mono.just(translation));
+        
+        StepVerifier.create(storedTranslationService.deleteSource("survey-1-es"))
+                .expectError(SurveyNotFoundException.class)
+                .verify();
+        
+        verify(surveyRepository, never()).deleteById(anyString());
+    }
+    
+    private SurveyTranslation createTranslation(String id, String language, String title, String questionText) {
+        return SurveyTranslation.builder()
+                .id(id)
+                .sourceSurveyId("survey-1")
+                .language(language)
+                .segments(Arrays.asList(
+                        new TextSegment("title", title),
+                        new TextSegment("introductionBlock.title", title),
+                        new TextSegment(QUESTION_PATH, questionText)))
+                .build();
+    }
+    
+    private static Map<String, String> toMap(List<TextSegment> segments) {
+        Map<String, String> byPath = new HashMap<>();
+        for (TextSegment segment : segments) {
+            byPath.put(segment.getPath(), segment.getText());
+        }
+        return byPath;
+    }
+    
+    private Survey createSurvey(String id, String language, String title, String questionText) {
+        return Survey.builder()
+                .id(id)
+                .title(title)
+                .language(language)
+                .introductionBlock(Survey.IntroductionBlock.builder()
+                        .title(title)
+                        .build())
+                .contentBlock(Survey.ContentBlock.builder()
+                        .sections(Collections.singletonList(Survey.Section.builder()
+                                .categories(Collections.singletonList(Survey.Category.builder()
+                                        .questions(Arrays.asList(Survey.Question.builder()
+                                                .questionText(questionText)
+                                                .type(Survey.QuestionType.TEXT)
+                                                .build()))
+                                        .build()))
+                                .build()))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,139 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.SurveyImportResult;
+import com.reactivespring.dto.TranslationVariantRequest;
+import com.reactivespring.repository.SurveyRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import javax.validation.Validation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SurveyImportServiceTest {
+    
+    private final SurveyRepository surveyRepository = mock(SurveyRepository.class);
+    private final StoredTranslationService storedTranslationService = mock(StoredTranslationService.class);
+    private final SurveyImportService importService = new SurveyImportService(surveyRepository, storedTranslationService,
+            Validation.buildDefaultValidatorFactory().getValidator(), 2, 2);
+    
+    @Test
+    public void testImportSurveys_InsertsValidSurveysInBatches() {
+        when(surveyRepository.insert(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        
+        Survey invalid = createSurvey("Untitled");
+        invalid.setTitle(null);
+        
+        StepVerifier.create(importService.importSurveys(
+                        Flux.just(createSurvey("First"), invalid, createSurvey("Third")), null))
+                .assertNext(result -> {
+                    assertEquals(1L, result.getRecord());
+                    assertEquals(SurveyImportResult.Status.IMPORTED, result.getStatus());
+                    assertNotNull(result.getId());
+                })
+                .assertNext(result -> {
+                    assertEquals(2L, result.getRecord());
+                    assertEquals(SurveyImportResult.Status.INVALID, result.getStatus());
+                    assertEquals(Collections.singletonList("title: Survey title is required"), result.getErrors());
+                })
+                .assertNext(result -> assertEquals(SurveyImportResult.Status.IMPORTED, result.getStatus()))
+                .verifyComplete();
+        
+        // Two batches: the first holds one valid survey of two, the second the third survey
+        verify(surveyRepository, times(2)).insert(argThat((List<Survey> batch) -> batch.size() == 1));
+    }
+    
+    @Test
+    public void testImportSurveys_FailedBatchFallsBackToSingleInserts() {
+        when(surveyRepository.insert(anyList())).thenReturn(Flux.error(new IllegalStateException("batch failed")));
+        when(surveyRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            // The batch stored the first survey before failing
+            Iterable<String> ids = invocation.getArgument(0);
+            return Flux.just(Survey.builder().id(ids.iterator().next()).build());
+        });
+        when(surveyRepository.insert(any(Survey.class))).thenReturn(Mono.error(new IllegalStateException("document too large")));
+        
+        StepVerifier.create(importService.importSurveys(Flux.just(createSurvey("First"), createSurvey("Second")), null))
+                .assertNext(result -> assertEquals(SurveyImportResult.Status.IMPORTED, result.getStatus()))
+                .assertNext(result -> {
+                    assertEquals(SurveyImportResult.Status.FAILED, result.getStatus());
+                    assertEquals(Collections.singletonList("document too large"), result.getErrors());
+                })
+                .verifyComplete();
+        
+        verify(surveyRepository, times(1)).insert(any(Survey.class));
+    }
+    
+    @Test
+    public void testImportSurveys_TranslatesImportedSurveys() {
+        when(surveyRepository.insert(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        when(storedTranslationService.translateAndStore(any(Survey.class), any(TranslationVariantRequest.class)))
+                .thenAnswer(invocation -> {
+                    TranslationVariantRequest request = invocation.getArgument(1);
+                    if ("xx".equals(request.getTargetLanguage())) {
+                        return Mono.error(new IllegalArgumentException("Unsupported language"));
+                    }
+                    return Mono.just(Survey.builder().id("es-1").language("es").build());
+                });
+        
+        StepVerifier.create(importService.importSurveys(Flux.just(createSurvey("First")), Arrays.asList("es", "xx")))
+                .assertNext(result -> {
+                    assertEquals(SurveyImportResult.Status.IMPORTED, result.getStatus());
+                    assertEquals(Collections.singletonMap("es", "es-1"), result.getTranslations());
+                    assertEquals(Collections.singletonMap("xx", "Unsupported language"), result.getTranslationErrors());
+                })
+                .verifyComplete();
+    }
+    
+    @Test
+    public void testImportSurveys_UnreadableUploadEndsWithFailure() {
+        when(surveyRepository.insert(anyList())).thenAnswer(invocation -> Flux.fromIterable(invocation.getArgument(0)));
+        
+        StepVerifier.create(importService.importSurveys(Flux.concat(Flux.just(createSurvey("First"), createSurvey("Second")),
+                        Flux.error(new IllegalStateException("Unexpected character"))), null))
+                .expectNextCount(2)
+                .assertNext(result -> {
+                    assertEquals(SurveyImportResult.Status.FAILED, result.getStatus());
+                    assertTrue(result.getErrors().get(0).contains("Unexpected character"));
+                })
+                .verifyComplete();
+    }
+    
+    private Survey createSurvey(String title) {
+        return Survey.builder()
+                .title(title)
+                .language("en")
+                .introductionBlock(Survey.IntroductionBlock.builder()
+                        .title(title)
+                        .build())
+                .contentBlock(Survey.ContentBlock.builder()
+                        .sections(Collections.singletonList(Survey.Section.builder()
+                                .title("Section")
+                                .categories(Collections.singletonList(Survey.Category.builder()
+                                        .name("Category")
+                                        .questions(Collections.singletonList(Survey.Question.builder()
+                                                .questionText("Do you agree?")
+                                                .type(Survey.QuestionType.TEXT)
+                                                .build()))
+                                        .build()))
+                                .build()))
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.reactivespring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.converter.SurveySegmentExtractor;
+import com.reactivespring.domain.Survey;
+import com.reactivespring.domain.TranslationJob;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.SurveyTranslationResponse;
+import com.reactivespring.exception.TranslationJobRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TranslationJobServiceTest {
+    
+    private final SurveyTranslationService translationService = mock(SurveyTranslationService.class);
+    private final TranslationJobStore jobStore = mock(TranslationJobStore.class);
+    private TranslationJobService jobService;
+    
+    @AfterEach
+    public void stopJobService() {
+        jobService.stop();
+    }
+    
+    @Test
+    public void testSubmit_TranslatesQueuedJobInTheBackground() {
+        jobService = jobService(100, 60000);
+        when(translationService.translateSurvey(any(SurveyTranslationRequest.class)))
+                .thenReturn(Mono.just(SurveyTranslationResponse.builder().targetLanguage("es").build()));
+        
+        TranslationJob job = jobService.submit(createRequest()).block();
+        
+        assertNotNull(job.getOwner());
+        // Saved when queued, when picked up and when finished
+        verify(jobStore, timeout(1000).times(3)).save(job);
+        assertEquals(TranslationJob.JobStatus.COMPLETED, job.getStatus());
+        assertEquals("es", job.getResult().getTargetLanguage());
+    }
+    
+    @Test
+    public void testSubmit_RejectsJobsBeyondQueueCapacity() {
+        jobService = jobService(1, 60000);
+        when(translationService.translateSurvey(any(SurveyTranslationRequest.class))).thenReturn(Mono.never());
+        
+        // The first job occupies the only worker, the second fills the queue
+        jobService.submit(createRequest()).block();
+        verify(translationService, timeout(1000)).translateSurvey(any(SurveyTranslationRequest.class));
+        jobService.submit(createRequest()).block();
+        assertEquals(1, jobService.getQueueDepth());
+        
+        StepVerifier.create(jobService.submit(createRequest()))
+                .expectError(TranslationJobRejectedException.class)
+                .verify();
+        
+        ArgumentCaptor<TranslationJob> saved = ArgumentCaptor.forClass(TranslationJob.class);
+        verify(jobStore, times(5)).save(saved.capture());
+        TranslationJob rejected = saved.getValue();
+        assertEquals(TranslationJob.JobStatus.FAILED, rejected.getStatus());
+        assertEquals("Rejected: translation queue is full", rejected.getError());
+        assertEquals(1, jobService.getQueueDepth());
+    }
+    
+    @Test
+    public void testRecoverUnfinishedJobs_ClaimsExpiredJobsUntilNoneIsLeft() {
+        jobService = jobService(100, 60000);
+        TranslationJob orphaned = TranslationJob.builder()
+                .id("job-1")
+                .status(TranslationJob.JobStatus.QUEUED)
+                .request(createRequest())
+                .totalTextBlocks(1)
+                .build();
+        when(jobStore.claimExpired(anyString(), any(Duration.class)))
+                .thenReturn(Mono.just(orphaned), Mono.empty());
+        when(translationService.translateSurvey(orphaned.getRequest()))
+                .thenReturn(Mono.just(SurveyTranslationResponse.builder().build()));
+        
+        jobService.recoverUnfinishedJobs();
+        
+        verify(jobStore, timeout(1000).times(2)).save(orphaned);
+        assertEquals(TranslationJob.JobStatus.COMPLETED, orphaned.getStatus());
+        verify(jobStore, times(2)).claimExpired(anyString(), any(Duration.class));
+    }
+    
+    @Test
+    public void testRecoverUnfinishedJobs_LeavesJobsToOtherInstancesWhileQueueIsFull() {
+        jobService = jobService(1, 60000);
+        when(translationService.translateSurvey(any(SurveyTranslationRequest.class))).thenReturn(Mono.never());
+        jobService.submit(createRequest()).block();
+        verify(translationService, timeout(1000)).translateSurvey(any(SurveyTranslationRequest.class));
+        jobService.submit(createRequest()).block();
+        
+        jobService.recoverUnfinishedJobs();
+        
+        verify(jobStore, never()).claimExpired(anyString(), any(Duration.class));
+    }
+    
+    @Test
+    public void testStart_RenewsLeasesOfOwnJobs() {
+        jobService = jobService(100, 300);
+        when(translationService.translateSurvey(any(SurveyTranslationRequest.class))).thenReturn(Mono.never());
+        
+        TranslationJob job = jobService.submit(createRequest()).block();
+        
+        verify(jobStore, timeout(1000).atLeast(2)).renewLeases(job.getOwner());
+    }
+    
+    private TranslationJobService jobService(int queueCapacity, long leaseMs) {
+        when(jobStore.save(any(TranslationJob.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+        when(jobStore.renewLeases(anyString())).thenReturn(Mono.empty());
+        when(jobStore.claimExpired(anyString(), any(Duration.class))).thenReturn(Mono.empty());
+        when(jobStore.release(any(TranslationJob.class))).thenReturn(Mono.empty());
+        
+        TranslationJobService service = new TranslationJobService(translationService,
+                new SurveySegmentExtractor(new ObjectMapper().findAndRegisterModules()), jobStore,
+                new TranslationLatencyTracker(500), new TranslationMetrics(new SimpleMeterRegistry()),
+                1, queueCapacity, leaseMs);
+        service.start();
+        return service;
+    }
+    
+    private SurveyTranslationRequest createRequest() {
+        return SurveyTranslationRequest.builder()
+                .survey(Survey.builder().title("Survey").language("en").build())
+                .sourceLanguage("en")
+                .targetLanguage("es")
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package com.reactivespring.service;
+
+import com.reactivespring.domain.TranslationMemoryEntry;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.TextSegment;
+import com.reactivespring.dto.TranslationMemoryStats;
+import com.reactivespring.repository.TranslationMemoryRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TranslationMemoryServiceTest {
+    
+    private static final String TITLE_PATH = "contentBlock.title";
+    private static final String QUESTION_PATH = "contentBlock.sections[0].categories[0].questions[0].questionText";
+    private static final String CHOICE_PATH = "contentBlock.sections[0].categories[0].questions[0].choices[0].text";
+    
+    private final TranslationMemoryRepository memoryRepository = mock(TranslationMemoryRepository.class);
+    private final TranslationMemoryService memoryService = new TranslationMemoryService(memoryRepository, 100, 60);
+    
+    @Test
+    public void testLookup_ServesRepeatedTextFromOneStoredEntryThenFromCache() {
+        SurveyTranslationRequest request = createRequest(null, null);
+        List<TextSegment> segments = Arrays.asList(
+                new TextSegment(QUESTION_PATH, "Yes"), new TextSegment(CHOICE_PATH, "Yes"));
+        when(memoryRepository.findAllById(anyIterable()))
+                .thenReturn(Flux.just(createEntry(request, "Yes", "S\u00ed")));
+        
+        StepVerifier.create(memoryService.lookup(request, segments))
+                .expectNext(Map.of(QUESTION_PATH, "S\u00ed", CHOICE_PATH, "S\u00ed"))
+                .verifyComplete();
+        StepVerifier.create(memoryService.lookup(request, segments))
+                .expectNext(Map.of(QUESTION_PATH, "S\u00ed", CHOICE_PATH, "S\u00ed"))
+                .verifyComplete();
+        
+        verify(memoryRepository, times(1)).findAllById(anyIterable());
+    }
+    
+    @Test
+    public void testLookup_StoreFailureCountsAsMiss() {
+        when(memoryRepository.findAllById(anyIterable()))
+                .thenReturn(Flux.error(new IllegalStateException("connection refused")));
+        
+        StepVerifier.create(memoryService.lookup(createRequest(null, null),
+                        Collections.singletonList(new TextSegment(TITLE_PATH, "Survey"))))
+                .expectNext(Collections.emptyMap())
+                .verifyComplete();
+        assertEquals(1, memoryService.getStats().getMisses());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testRemember_StoresOneEntryPerTextAndServesItLocally() {
+        SurveyTranslationRequest request = createRequest(null, null);
+        List<TextSegment> segments = Arrays.asList(
+                new TextSegment(QUESTION_PATH, "Yes"), new TextSegment(CHOICE_PATH, "Yes"));
+        when(memoryRepository.saveAll(anyIterable())).thenAnswer(invocation ->
+                Flux.fromIterable((Iterable<TranslationMemoryEntry>) invocation.getArgument(0)));
+        
+        StepVerifier.create(memoryService.remember(request, segments,
+                        Map.of(QUESTION_PATH, "S\u00ed", CHOICE_PATH, "S\u00ed")))
+                .verifyComplete();
+        StepVerifier.create(memoryService.lookup(request, segments))
+                .expectNext(Map.of(QUESTION_PATH, "S\u00ed", CHOICE_PATH, "S\u00ed"))
+                .verifyComplete();
+        
+        ArgumentCaptor<Iterable<TranslationMemoryEntry>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(memoryRepository).saveAll(saved.capture());
+        List<TranslationMemoryEntry> entries = new ArrayList<>();
+        saved.getValue().forEach(entries::add);
+        assertEquals(1, entries.size());
+        assertEquals(TranslationMemoryService.memoryKey(request, "Yes"), entries.get(0).getId());
+        assertEquals("S\u00ed", entries.get(0).getTranslatedText());
+        verify(memoryRepository, never()).findAllById(anyIterable());
+    }
+    
+    @Test
+    public void testGetStats_HitRatioCountsLocalAndStoreHits() {
+        SurveyTranslationRequest request = createRequest(null, null);
+        when(memoryRepository.findAllById(anyIterable()))
+                .thenReturn(Flux.just(createEntry(request, "Yes", "S\u00ed")));
+        List<TextSegment> segments = Arrays.asList(
+                new TextSegment(QUESTION_PATH, "Yes"), new TextSegment(TITLE_PATH, "Survey"));
+        
+        // First lookup: one store hit and one miss; second: one local hit and one miss
+        memoryService.lookup(request, segments).block();
+        when(memoryRepository.findAllById(anyIterable())).thenReturn(Flux.empty());
+        memoryService.lookup(request, segments).block();
+        
+        TranslationMemoryStats stats = memoryService.getStats();
+        assertEquals(4, stats.getLookups());
+        assertEquals(1, stats.getLocalHits());
+        assertEquals(1, stats.getStoreHits());
+        assertEquals(2, stats.getMisses());
+        assertEquals(0.5, stats.getHitRatio());
+    }
+    
+    @Test
+    public void testMemoryKey_SeparatesToneAndContext() {
+        String plain = TranslationMemoryService.memoryKey(createRequest(null, null), "Yes");
+        String formal = TranslationMemoryService.memoryKey(createRequest("formal", null), "Yes");
+        String casual = TranslationMemoryService.memoryKey(createRequest("casual", null), "Yes");
+        String medical = TranslationMemoryService.memoryKey(createRequest("formal", "medical survey"), "Yes");
+        
+        assertNotEquals(plain, formal);
+        assertNotEquals(formal, casual);
+        assertNotEquals(formal, medical);
+        assertEquals(formal, TranslationMemoryService.memoryKey(createRequest("formal", null), "Yes"));
+        assertNotEquals(formal, TranslationMemoryService.memoryKey(createRequest("formal", null), "No"));
+    }
+    
+    private static SurveyTranslationRequest createRequest(String tone, String context) {
+        return SurveyTranslationRequest.builder()
+                .sourceLanguage("en")
+                .targetLanguage("es")
+                .options(tone == null && context == null ? null : SurveyTranslationRequest.TranslationOptions.builder()
+                        .tone(tone)
+                        .context(context)
+                        .build())
+                .build();
+    }
+    
+    private static TranslationMemoryEntry createEntry(SurveyTranslationRequest request, String text, String translated) {
+        return TranslationMemoryEntry.builder()
+                .id(TranslationMemoryService.memoryKey(request, text))
+                .sourceLanguage(request.getSourceLanguage())
+                .targetLanguage(request.getTargetLanguage())
+                .sourceText(text)
+                .translatedText(translated)
+                .build();
+    }
+}
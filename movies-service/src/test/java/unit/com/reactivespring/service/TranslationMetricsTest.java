@@ -0,0 +1,73 @@
+package com.reactivespring.service;
+
+import com.reactivespring.dto.SurveyTranslationRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TranslationMetricsTest {
+    
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final TranslationMetrics metrics = new TranslationMetrics(registry);
+    
+    @Test
+    public void testLanguageTag_UsesPrimarySubtagOfSupportedLanguages() {
+        assertEquals("es", TranslationMetrics.languageTag("es"));
+        assertEquals("es", TranslationMetrics.languageTag(" ES-mx "));
+        assertEquals("zh", TranslationMetrics.languageTag("zh_Hant"));
+    }
+    
+    @Test
+    public void testLanguageTag_MapsUnknownLanguagesToOther() {
+        assertEquals("other", TranslationMetrics.languageTag("klingon"));
+        assertEquals("other", TranslationMetrics.languageTag("x" + System.nanoTime()));
+        assertEquals("other", TranslationMetrics.languageTag(""));
+        assertEquals("other", TranslationMetrics.languageTag(null));
+    }
+    
+    @Test
+    public void testCountSegments_ArbitraryLanguagesShareOneMeter() {
+        for (int i = 0; i < 10; i++) {
+            metrics.countSegments(createRequest("en", "lang-" + i), "model", 1);
+        }
+        
+        assertEquals(1, registry.find(TranslationMetrics.SEGMENTS).counters().size());
+        assertNotNull(registry.find(TranslationMetrics.SEGMENTS).tags("source", "en", "target", "other").counter());
+        assertEquals(10.0, registry.get(TranslationMetrics.SEGMENTS).counter().count());
+    }
+    
+    @Test
+    public void testTimePromptBuild_RecordsFailedBuildsAsErrors() {
+        SurveyTranslationRequest request = createRequest("en", "es");
+        
+        assertThrows(IllegalStateException.class, () -> metrics.timePromptBuild(request, () -> {
+            throw new IllegalStateException("no segments");
+        }));
+        
+        assertEquals(1, registry.get(TranslationMetrics.PROMPT_BUILD).tag("outcome", "error").timer().count());
+        assertNull(registry.find(TranslationMetrics.PROMPT_BUILD).tag("outcome", "success").timer());
+    }
+    
+    @Test
+    public void testTimeModelCall_StartsOnSubscription() {
+        Flux<String> call = metrics.timeModelCall(createRequest("en", "es"), Flux.just("Hola"));
+        assertNull(registry.find(TranslationMetrics.MODEL_CALL).timer());
+        
+        StepVerifier.create(call).expectNext("Hola").verifyComplete();
+        
+        assertEquals(1, registry.get(TranslationMetrics.MODEL_CALL).tag("outcome", "success").timer().count());
+    }
+    
+    private SurveyTranslationRequest createRequest(String sourceLanguage, String targetLanguage) {
+        return SurveyTranslationRequest.builder()
+                .sourceLanguage(sourceLanguage)
+                .targetLanguage(targetLanguage)
+                .build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.reactivespring.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.reactivespring.domain.Survey;
+import com.reactivespring.dto.SurveyTranslationRequest;
+import com.reactivespring.dto.SurveyTranslationResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+public class TranslationRequestCoalescerTest {
+    
+    private final TranslationRequestCoalescer coalescer = new TranslationRequestCoalescer(
+            new ObjectMapper().findAndRegisterModules(), new TranslationMetrics(new SimpleMeterRegistry()));
+    
+    @Test
+    public void testCoalesce_ConcurrentIdenticalRequestsShareOneTranslation() {
+        AtomicInteger translations = new AtomicInteger();
+        Sinks.One<SurveyTranslationResponse> result = Sinks.one();
+        
+        Mono<SurveyTranslationResponse> first = coalescer.coalesce(createRequest("es"), () -> {
+            translations.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<SurveyTranslationResponse> second = coalescer.coalesce(createRequest("es"), () -> {
+            translations.incrementAndGet();
+            return result.asMono();
+        });
+        
+        first.subscribe();
+        StepVerifier.create(second)
+                .then(() -> result.tryEmitValue(SurveyTranslationResponse.builder().targetLanguage("es").build()))
+                .assertNext(response -> assertEquals("es", response.getTargetLanguage()))
+                .verifyComplete();
+        
+        assertEquals(1, translations.get());
+        assertEquals(1, coalescer.getCoalescedRequests());
+        assertEquals(0, coalescer.getInFlight());
+    }
+    
+    @Test
+    public void testCoalesce_FailedTranslationIsNotReused() {
+        AtomicInteger translations = new AtomicInteger();
+        
+        StepVerifier.create(coalescer.coalesce(createRequest("es"), () -> {
+                    translations.incrementAndGet();
+                    return Mono.error(new RuntimeException("Translation failed"));
+                }))
+                .verifyError();
+        
+        StepVerifier.create(coalescer.coalesce(createRequest("es"), () -> {
+                    translations.incrementAndGet();
+                    return Mono.just(SurveyTranslationResponse.builder().build());
+                }))
+                .expectNextCount(1)
+                .verifyComplete();
+        
+        assertEquals(2, translations.get());
+    }
+    
+    @Test
+    public void testCoalesce_InteractiveRequestDoesNotJoinBackgroundTranslation() {
+        AtomicInteger translations = new AtomicInteger();
+        Sinks.One<SurveyTranslationResponse> background = Sinks.one();
+        
+        coalescer.coalesce(createRequest("es"), () -> {
+                    translations.incrementAndGet();
+                    return background.asMono();
+                })
+                .contextWrite(ModelCallLimiter.withPriority(ModelCallLimiter.Priority.BACKGROUND))
+                .subscribe();
+        
+        StepVerifier.create(coalescer.coalesce(createRequest("es"), () -> {
+                    translations.incrementAndGet();
+                    return Mono.just(SurveyTranslationResponse.builder().targetLanguage("es").build());
+                }))
+                .expectNextCount(1)
+                .verifyComplete();
+        
+        assertEquals(2, translations.get());
+        assertEquals(0, coalescer.getCoalescedRequests());
+    }
+    
+    @Test
+    public void testRequestKey_DependsOnTargetLanguage() {
+        assertEquals(coalescer.requestKey(createRequest("es")), coalescer.requestKey(createRequest("es")));
+        assertNotEquals(coalescer.requestKey(createRequest("es")), coalescer.requestKey(createRequest("fr")));
+    }
+    
+    private SurveyTranslationRequest createRequest(String targetLanguage) {
+        return SurveyTranslationRequest.builder()
+                .survey(Survey.builder().title("Survey").language("en").build())
+                .sourceLanguage("en")
+                .targetLanguage(targetLanguage)
+                .build();
+    }
+}